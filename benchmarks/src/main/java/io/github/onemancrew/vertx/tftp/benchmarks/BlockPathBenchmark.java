@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.benchmarks;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.github.onemancrew.vertx.tftp.protocol.message.AckMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.DataMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.PacketReader;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Project: vertx-tftp-client
+ * File: BlockPathBenchmark.java
+ * Package: io.github.onemancrew.vertx.tftp.benchmarks
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * The work a transfer does for each block, without the socket.
+ * Sending slices the block out of the file, encodes it into a pooled packet and reads the ACK that closes the
+ * window; receiving reads the DATA packet in place, copies the payload out and encodes the ACK that closes the window.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlockPathBenchmark {
+	private static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+	private static final int FILE_BLOCKS = 64;
+
+	@Param({"512", "1468", "8192"})
+	public int blockSize;
+
+	@Param({"1", "16"})
+	public int windowSize;
+
+	private Buffer m_file;
+	private Buffer[] m_dataPackets;
+	private Buffer m_ackPacket;
+	private ByteBuf m_sink;
+	private final PacketReader m_reader = new PacketReader();
+	private long m_block;
+
+	@Setup
+	public void setup() {
+		byte[] file = new byte[blockSize * FILE_BLOCKS];
+		new Random(1).nextBytes(file);
+		m_file = Buffer.buffer(file);
+		m_dataPackets = new Buffer[FILE_BLOCKS];
+		for (int i = 0; i < FILE_BLOCKS; i++) {
+			ByteBuf packet = Unpooled.buffer(DataMessage.getBufferSize(blockSize));
+			DataMessage.toByteBuf(packet, i + 1, m_file.getByteBuf().slice(i * blockSize, blockSize));
+			m_dataPackets[i] = Buffer.buffer(packet);
+		}
+		ByteBuf ack = Unpooled.buffer(4);
+		new AckMessage(1).toByteBuf(ack);
+		m_ackPacket = Buffer.buffer(ack);
+		m_sink = ALLOCATOR.directBuffer(blockSize * FILE_BLOCKS);
+	}
+
+	@TearDown
+	public void tearDown() {
+		m_sink.release();
+	}
+
+	@Benchmark
+	public int sendBlock(ByteCounter counter) {
+		int index = (int) (m_block++ % FILE_BLOCKS);
+		Buffer data = m_file.slice(index * blockSize, (index + 1) * blockSize);
+		ByteBuf packet = ALLOCATOR.directBuffer(DataMessage.getBufferSize(data.length()));
+		DataMessage.toByteBuf(packet, index + 1, data.getByteBuf());
+		// the transport wraps the packet without copying it
+		int sent = Buffer.buffer(packet).length();
+		packet.release();
+		if (m_block % windowSize == 0) {
+			PacketReader ack = m_reader.wrap(m_ackPacket);
+			if (ack.getOpcode() == Opcode.ACK)
+				sent += ack.getBlockId();
+		}
+		counter.bytes += data.length();
+		return sent;
+	}
+
+	@Benchmark
+	public int receiveBlock(ByteCounter counter) {
+		int index = (int) (m_block++ % FILE_BLOCKS);
+		PacketReader packet = m_reader.wrap(m_dataPackets[index]);
+		if (packet.getOpcode() != Opcode.DATA || !packet.hasBlockId())
+			throw new IllegalStateException();
+		int blockId = packet.getBlockId();
+		if (index == 0)
+			m_sink.clear();
+		m_sink.writeBytes(packet.getPayload().getByteBuf());
+		if (m_block % windowSize == 0) {
+			ByteBuf ack = ALLOCATOR.directBuffer(4);
+			new AckMessage(blockId).toByteBuf(ack);
+			ack.release();
+		}
+		counter.bytes += packet.getPayloadLength();
+		return blockId;
+	}
+}
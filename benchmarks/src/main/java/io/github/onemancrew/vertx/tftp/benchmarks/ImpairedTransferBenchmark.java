@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.benchmarks;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.congestion.AimdCongestionControl;
+import io.github.onemancrew.vertx.tftp.congestion.CongestionControl;
+import io.github.onemancrew.vertx.tftp.protocol.transport.ImpairmentProfile;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Project: vertx-tftp-client
+ * File: ImpairedTransferBenchmark.java
+ * Package: io.github.onemancrew.vertx.tftp.benchmarks
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Whole transfers against an embedded {@link TftpServer} over a loopback link impaired on the client side.
+ * The sample time mode reports the percentiles of the completion time, the {@code bytes} counter of the throughput
+ * mode the goodput in bytes per millisecond. A transfer that fails, e.g. after too many retransmissions, fails the run.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImpairedTransferBenchmark {
+	private static final String UPLOAD_FILE = "upload.bin";
+	private static final String DOWNLOAD_FILE = "download.bin";
+
+	@Param({"clean", "loss1", "loss5", "duplicate", "reorder", "wan"})
+	public String profile;
+
+	@Param({"1", "8"})
+	public int windowSize;
+
+	@Param({"fixed", "aimd", "aimd-delay"})
+	public String congestion;
+
+	@Param({"1468"})
+	public int blockSize;
+
+	@Param({"262144"})
+	public int fileSize;
+
+	private Vertx m_vertx;
+	private TftpServer m_server;
+	private TftpClient m_client;
+	private File m_file;
+
+	/**
+	 * The link conditions of a profile name.
+	 */
+	static ImpairmentProfile profile(String name) {
+		switch (name) {
+			case "clean":
+				return new ImpairmentProfile();
+			case "loss1":
+				return new ImpairmentProfile().setLossRate(0.01);
+			case "loss5":
+				return new ImpairmentProfile().setLossRate(0.05);
+			case "duplicate":
+				return new ImpairmentProfile().setDuplicateRate(0.05);
+			case "reorder":
+				return new ImpairmentProfile().setReorderRate(0.05).setJitter(2);
+			case "wan":
+				// 10 ms each way, 20 Mbit/s and 0.5% loss
+				return new ImpairmentProfile().setDelay(10).setJitter(2).setBandwidth(2_500_000).setLossRate(0.005);
+			default:
+				throw new IllegalArgumentException("unknown profile " + name);
+		}
+	}
+
+	/**
+	 * The congestion control of a name.
+	 */
+	static CongestionControl congestionControl(String name) {
+		switch (name) {
+			case "fixed":
+				return CongestionControl.FIXED;
+			case "aimd":
+				return new AimdCongestionControl();
+			case "aimd-delay":
+				return new AimdCongestionControl().setDelayThreshold(0.5);
+			default:
+				throw new IllegalArgumentException("unknown congestion control " + name);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		m_vertx = Vertx.vertx();
+		byte[] content = new byte[fileSize];
+		new Random(1).nextBytes(content);
+		m_file = File.createTempFile("tftp-benchmark-", ".bin");
+		Files.write(m_file.toPath(), content);
+		MemoryFileStore store = new MemoryFileStore().putFile(DOWNLOAD_FILE, Buffer.buffer(content));
+		m_server = new TftpServer(m_vertx, store, new TftpServerOptions().setRetransmitTimeout(200));
+		CompletableFuture<TftpServer> listening = new CompletableFuture<>();
+		m_server.listen(0, "127.0.0.1", result -> complete(listening, result));
+		m_client = new TftpClient(m_vertx, "127.0.0.1", listening.get(10, TimeUnit.SECONDS).actualPort(),
+				new TftpClientOptions().setBlockSize(blockSize).setWindowSize(windowSize)
+						.setImpairment(profile(profile)).setCongestionControl(congestionControl(congestion)));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		CompletableFuture<Void> closed = new CompletableFuture<>();
+		m_client.close(v -> m_server.close(w -> m_vertx.close(result -> complete(closed, result))));
+		closed.get(10, TimeUnit.SECONDS);
+		Files.deleteIfExists(m_file.toPath());
+	}
+
+	private static <T> void complete(CompletableFuture<T> future, AsyncResult<T> result) {
+		if (result.succeeded())
+			future.complete(result.result());
+		else
+			future.completeExceptionally(result.cause());
+	}
+
+	@Benchmark
+	public void upload(ByteCounter counter) throws Exception {
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		m_client.upload(m_file.getPath(), UPLOAD_FILE, null, result -> complete(done, result));
+		done.get(60, TimeUnit.SECONDS);
+		counter.bytes += fileSize;
+	}
+
+	@Benchmark
+	public void download(ByteCounter counter) throws Exception {
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		LoopbackTransferBenchmark.DiscardStream sink = new LoopbackTransferBenchmark.DiscardStream();
+		m_client.download(DOWNLOAD_FILE, sink, result -> complete(done, result));
+		done.get(60, TimeUnit.SECONDS);
+		counter.bytes += fileSize;
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.benchmarks;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Project: vertx-tftp-client
+ * File: LoopbackTransferBenchmark.java
+ * Package: io.github.onemancrew.vertx.tftp.benchmarks
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Whole transfers against an embedded {@link TftpServer} in the same JVM, one transfer per operation.
+ * Uploads read a file from the temporary directory, downloads are written to a stream that discards them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoopbackTransferBenchmark {
+	private static final String UPLOAD_FILE = "upload.bin";
+	private static final String DOWNLOAD_FILE = "download.bin";
+
+	@Param({"512", "1468", "8192"})
+	public int blockSize;
+
+	@Param({"1", "8", "32"})
+	public int windowSize;
+
+	@Param({"1048576"})
+	public int fileSize;
+
+	private Vertx m_vertx;
+	private TftpServer m_server;
+	private TftpClient m_client;
+	private File m_file;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		m_vertx = Vertx.vertx();
+		byte[] content = new byte[fileSize];
+		new Random(1).nextBytes(content);
+		m_file = File.createTempFile("tftp-benchmark-", ".bin");
+		Files.write(m_file.toPath(), content);
+		MemoryFileStore store = new MemoryFileStore().putFile(DOWNLOAD_FILE, Buffer.buffer(content));
+		m_server = new TftpServer(m_vertx, store, new TftpServerOptions().setRetransmitTimeout(200));
+		CompletableFuture<TftpServer> listening = new CompletableFuture<>();
+		m_server.listen(0, "127.0.0.1", result -> complete(listening, result));
+		m_client = new TftpClient(m_vertx, "127.0.0.1", listening.get(10, TimeUnit.SECONDS).actualPort(),
+				new TftpClientOptions().setBlockSize(blockSize).setWindowSize(windowSize));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		CompletableFuture<Void> closed = new CompletableFuture<>();
+		m_client.close(v -> m_server.close(w -> m_vertx.close(result -> complete(closed, result))));
+		closed.get(10, TimeUnit.SECONDS);
+		Files.deleteIfExists(m_file.toPath());
+	}
+
+	private static <T> void complete(CompletableFuture<T> future, AsyncResult<T> result) {
+		if (result.succeeded())
+			future.complete(result.result());
+		else
+			future.completeExceptionally(result.cause());
+	}
+
+	@Benchmark
+	public void upload(ByteCounter counter) throws Exception {
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		m_client.upload(m_file.getPath(), UPLOAD_FILE, null, result -> complete(done, result));
+		done.get(30, TimeUnit.SECONDS);
+		counter.bytes += fileSize;
+	}
+
+	@Benchmark
+	public void download(ByteCounter counter) throws Exception {
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		DiscardStream sink = new DiscardStream();
+		m_client.download(DOWNLOAD_FILE, sink, result -> complete(done, result));
+		done.get(30, TimeUnit.SECONDS);
+		if (sink.m_bytes != fileSize)
+			throw new IllegalStateException("downloaded " + sink.m_bytes + " of " + fileSize + " bytes");
+		counter.bytes += fileSize;
+	}
+
+	static class DiscardStream implements WriteStream<Buffer> {
+		long m_bytes;
+
+		@Override
+		public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+			return this;
+		}
+
+		@Override
+		public WriteStream<Buffer> write(Buffer data) {
+			m_bytes += data.length();
+			return this;
+		}
+
+		@Override
+		public void end() {
+		}
+
+		@Override
+		public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+			return this;
+		}
+
+		@Override
+		public boolean writeQueueFull() {
+			return false;
+		}
+
+		@Override
+		public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+			return this;
+		}
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.benchmarks;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownErrorException;
+import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownOpcodeException;
+import io.github.onemancrew.vertx.tftp.protocol.message.AckMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.DataMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.ErrorMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.IBufferProtocol;
+import io.github.onemancrew.vertx.tftp.protocol.message.OptionAckMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.PacketReader;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.ReadRequestMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.RequestMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.WriteRequestMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Project: vertx-tftp-client
+ * File: MessageCodecBenchmark.java
+ * Package: io.github.onemancrew.vertx.tftp.benchmarks
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Encoding and decoding of every TFTP message.
+ * DATA and ACK are measured both through the message classes and through the paths the transfers use, the static
+ * {@link DataMessage#toByteBuf(ByteBuf, int, ByteBuf)} encoder and the {@link PacketReader} flyweight.
+ * Requests are only encoded, the client never decodes them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageCodecBenchmark {
+	private static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+
+	@Param({"512", "1468", "8192"})
+	public int blockSize;
+
+	private byte[] m_block;
+	private ByteBuf m_blockBuf;
+	private DataMessage m_data;
+	private AckMessage m_ack;
+	private ErrorMessage m_error;
+	private OptionAckMessage m_optionAck;
+	private RequestMessage m_readRequest;
+	private RequestMessage m_writeRequest;
+	private Buffer m_dataPacket;
+	private Buffer m_ackPacket;
+	private Buffer m_errorPacket;
+	private Buffer m_optionAckPacket;
+	private final PacketReader m_reader = new PacketReader();
+
+	@Setup
+	public void setup() {
+		m_block = new byte[blockSize];
+		new Random(1).nextBytes(m_block);
+		m_blockBuf = Unpooled.wrappedBuffer(m_block);
+		m_data = new DataMessage(1, m_block);
+		m_ack = new AckMessage(1);
+		m_error = new ErrorMessage(ErrorCode.FILE_NOT_FOUND);
+		Map<String, String> options = new LinkedHashMap<>();
+		options.put("blksize", String.valueOf(blockSize));
+		options.put("windowsize", "16");
+		options.put("tsize", "1048576");
+		m_optionAck = new OptionAckMessage(options);
+		m_readRequest = new ReadRequestMessage("firmware.bin");
+		m_writeRequest = new WriteRequestMessage("firmware.bin");
+		options.forEach(m_readRequest::addOption);
+		options.forEach(m_writeRequest::addOption);
+		m_dataPacket = packet(m_data);
+		m_ackPacket = packet(m_ack);
+		m_errorPacket = packet(m_error);
+		m_optionAckPacket = packet(m_optionAck);
+	}
+
+	private static Buffer packet(IBufferProtocol msg) {
+		ByteBuf buf = Unpooled.buffer(msg.getBufferSize());
+		msg.toByteBuf(buf);
+		return Buffer.buffer(buf);
+	}
+
+	private static int encode(IBufferProtocol msg) {
+		ByteBuf packet = ALLOCATOR.directBuffer(msg.getBufferSize());
+		msg.toByteBuf(packet);
+		int size = packet.readableBytes();
+		packet.release();
+		return size;
+	}
+
+	@Benchmark
+	public int encodeData() {
+		ByteBuf packet = ALLOCATOR.directBuffer(DataMessage.getBufferSize(blockSize));
+		DataMessage.toByteBuf(packet, 1, m_blockBuf);
+		int size = packet.readableBytes();
+		packet.release();
+		return size;
+	}
+
+	@Benchmark
+	public int encodeDataMessage() {
+		return encode(m_data);
+	}
+
+	@Benchmark
+	public void decodeData(Blackhole blackhole) {
+		PacketReader reader = m_reader.wrap(m_dataPacket);
+		blackhole.consume(reader.getOpcode());
+		blackhole.consume(reader.getBlockId());
+		blackhole.consume(reader.getPayload());
+	}
+
+	@Benchmark
+	public DataMessage decodeDataMessage() throws UnknownOpcodeException {
+		DataMessage msg = new DataMessage();
+		msg.fromBuffer(m_dataPacket.getByteBuf().nioBuffer());
+		return msg;
+	}
+
+	@Benchmark
+	public int encodeAck() {
+		return encode(m_ack);
+	}
+
+	@Benchmark
+	public int decodeAck() {
+		PacketReader reader = m_reader.wrap(m_ackPacket);
+		return reader.getOpcodeValue() + reader.getBlockId();
+	}
+
+	@Benchmark
+	public AckMessage decodeAckMessage() throws UnknownOpcodeException {
+		AckMessage msg = new AckMessage();
+		msg.fromBuffer(m_ackPacket.getByteBuf().nioBuffer());
+		return msg;
+	}
+
+	@Benchmark
+	public int encodeError() {
+		return encode(m_error);
+	}
+
+	@Benchmark
+	public ErrorMessage decodeError() throws UnknownOpcodeException, UnknownErrorException {
+		ErrorMessage msg = new ErrorMessage(ErrorCode.NO_ERROR);
+		msg.fromBuffer(m_errorPacket.getByteBuf().nioBuffer());
+		return msg;
+	}
+
+	@Benchmark
+	public int encodeOptionAck() {
+		return encode(m_optionAck);
+	}
+
+	@Benchmark
+	public OptionAckMessage decodeOptionAck() throws UnknownOpcodeException {
+		OptionAckMessage msg = new OptionAckMessage();
+		msg.fromBuffer(m_optionAckPacket.getByteBuf().nioBuffer());
+		return msg;
+	}
+
+	@Benchmark
+	public int encodeReadRequest() {
+		return encode(m_readRequest);
+	}
+
+	@Benchmark
+	public int encodeWriteRequest() {
+		return encode(m_writeRequest);
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+/**
+ * Project: vertx-tftp-client
+ * File: BatchOptions.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Concurrency limits of a {@link TftpBatch}.
+ */
+public class BatchOptions {
+	public static final int DEFAULT_MAX_CONCURRENCY = 64;
+	/**
+	 * Embedded TFTP servers usually serve one or two transfers at a time.
+	 */
+	public static final int DEFAULT_MAX_CONCURRENCY_PER_SERVER = 2;
+
+	private int m_maxConcurrency;
+	private int m_maxConcurrencyPerServer;
+
+	public BatchOptions() {
+		m_maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+		m_maxConcurrencyPerServer = DEFAULT_MAX_CONCURRENCY_PER_SERVER;
+	}
+
+	public BatchOptions(BatchOptions other) {
+		m_maxConcurrency = other.m_maxConcurrency;
+		m_maxConcurrencyPerServer = other.m_maxConcurrencyPerServer;
+	}
+
+	public int getMaxConcurrency() {
+		return m_maxConcurrency;
+	}
+
+	/**
+	 * Set the number of transfers of the batch running at the same time.
+	 */
+	public BatchOptions setMaxConcurrency(int maxConcurrency) {
+		if (maxConcurrency < 1)
+			throw new IllegalArgumentException("maxConcurrency must be >= 1");
+		m_maxConcurrency = maxConcurrency;
+		return this;
+	}
+
+	public int getMaxConcurrencyPerServer() {
+		return m_maxConcurrencyPerServer;
+	}
+
+	/**
+	 * Set the number of transfers of the batch running at the same time with one server.
+	 */
+	public BatchOptions setMaxConcurrencyPerServer(int maxConcurrencyPerServer) {
+		if (maxConcurrencyPerServer < 1)
+			throw new IllegalArgumentException("maxConcurrencyPerServer must be >= 1");
+		m_maxConcurrencyPerServer = maxConcurrencyPerServer;
+		return this;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Project: vertx-tftp-client
+ * File: BatchResult.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * The outcome of every job of a batch, in the order the jobs were given.
+ */
+public class BatchResult {
+	private final List<JobResult> m_results;
+	private final long m_durationMs;
+
+	public BatchResult(List<JobResult> results, long durationMs) {
+		m_results = Collections.unmodifiableList(results);
+		m_durationMs = durationMs;
+	}
+
+	public List<JobResult> getResults() {
+		return m_results;
+	}
+
+	public List<JobResult> getFailures() {
+		List<JobResult> failures = new ArrayList<>();
+		for (JobResult result : m_results) {
+			if (result.failed())
+				failures.add(result);
+		}
+		return failures;
+	}
+
+	public int getSucceeded() {
+		return m_results.size() - getFailed();
+	}
+
+	public int getFailed() {
+		int failed = 0;
+		for (JobResult result : m_results) {
+			if (result.failed())
+				failed++;
+		}
+		return failed;
+	}
+
+	public boolean succeeded() {
+		return getFailed() == 0;
+	}
+
+	public long getDurationMs() {
+		return m_durationMs;
+	}
+}
@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.github.onemancrew.vertx.tftp.protocol.stream.AsyncFileBlockSink;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Project: vertx-tftp-client
+ * File: DownloadCache.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Keeps a copy of downloaded files so downloading them again from the same server needs no transfer.
+ * Files are keyed by server and file name and evicted least recently used first once the cache holds more than
+ * {@link DownloadCacheOptions#getMaxBytes()}. A file older than the ttl is checked with a tsize probe, see
+ * {@link TftpClient#transferSize(String, Handler)}, and downloaded again if the server announces another size.
+ * The cache can be shared by clients and used from any context.
+ */
+public class DownloadCache {
+	private static Logger log = LoggerFactory.getLogger(DownloadCache.class);
+	private static final String SERVE_SUFFIX = ".cache";
+
+	private final FileSystem m_fileSystem;
+	private final DownloadCacheOptions m_options;
+	private final String m_directory;
+	private final LinkedHashMap<String, Entry> m_entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long m_size;
+	private long m_nextFile;
+	private long m_hits;
+	private long m_misses;
+
+	/**
+	 * Create a cache in a new folder of {@link DownloadCacheOptions#getDirectory()}, blocks while the folder is created.
+	 */
+	public DownloadCache(Vertx vertx, DownloadCacheOptions options) {
+		m_fileSystem = vertx.fileSystem();
+		m_options = new DownloadCacheOptions(options);
+		m_fileSystem.mkdirsBlocking(m_options.getDirectory());
+		m_directory = m_fileSystem.createTempDirectoryBlocking(m_options.getDirectory(), "cache", null);
+	}
+
+	/**
+	 * Download a file through the cache.
+	 * @param client the client of the server, downloads the file on a miss.
+	 */
+	void download(TftpClient client, String remoteName, String filePath, Handler<AsyncResult<Void>> handler) {
+		String key = client.getServer() + "/" + remoteName;
+		Entry entry = lookup(key);
+		if (entry == null) {
+			fetch(client, key, remoteName, filePath, handler);
+		} else if (System.currentTimeMillis() - entry.m_storedAt < m_options.getTtl()) {
+			serve(client, key, entry, remoteName, filePath, handler);
+		} else if (!m_options.isRevalidate()) {
+			remove(key, entry);
+			fetch(client, key, remoteName, filePath, handler);
+		} else {
+			client.transferSize(remoteName, size -> {
+				if (size.succeeded() && size.result() == entry.m_size) {
+					entry.m_storedAt = System.currentTimeMillis();
+					serve(client, key, entry, remoteName, filePath, handler);
+				} else {
+					remove(key, entry);
+					fetch(client, key, remoteName, filePath, handler);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return the number of downloads served from the cache.
+	 */
+	public synchronized long getHits() {
+		return m_hits;
+	}
+
+	/**
+	 * @return the number of downloads that needed a transfer.
+	 */
+	public synchronized long getMisses() {
+		return m_misses;
+	}
+
+	/**
+	 * @return the size of the cached files in bytes.
+	 */
+	public synchronized long getSize() {
+		return m_size;
+	}
+
+	/**
+	 * Drop every cached file and delete the folder of the cache.
+	 */
+	public void close(Handler<AsyncResult<Void>> handler) {
+		synchronized (this) {
+			m_entries.clear();
+			m_size = 0;
+		}
+		m_fileSystem.deleteRecursive(m_directory, true, handler);
+	}
+
+	private synchronized Entry lookup(String key) {
+		return m_entries.get(key);
+	}
+
+	/**
+	 * Copy or link the cached file to the destination, through a temporary file renamed over it.
+	 */
+	private void serve(TftpClient client, String key, Entry entry, String remoteName, String filePath,
+					   Handler<AsyncResult<Void>> handler) {
+		// a unique name, the same file may be served or written by a flight meanwhile
+		File file = new File(filePath);
+		m_fileSystem.createTempFile(file.getAbsoluteFile().getParent(), "." + file.getName() + ".", SERVE_SUFFIX,
+				AsyncFileBlockSink.TEMP_PERMS, created -> {
+			if (created.failed()) {
+				handler.handle(created.mapEmpty());
+				return;
+			}
+			String temp = created.result();
+			place(entry.m_path, temp, placed -> {
+				if (placed.failed()) {
+					// evicted meanwhile
+					remove(key, entry);
+					m_fileSystem.delete(temp, deleted -> fetch(client, key, remoteName, filePath, handler));
+					return;
+				}
+				synchronized (this) {
+					m_hits++;
+				}
+				m_fileSystem.move(temp, filePath, new CopyOptions().setReplaceExisting(true).setAtomicMove(true), handler);
+			});
+		});
+	}
+
+	private void fetch(TftpClient client, String key, String remoteName, String filePath,
+					   Handler<AsyncResult<Void>> handler) {
+		synchronized (this) {
+			m_misses++;
+		}
+		client.downloadUncached(remoteName, filePath, null, result -> {
+			// the entry exists before the handler is called, so a download started by the handler is a hit
+			if (result.succeeded())
+				store(key, filePath, v -> handler.handle(result));
+			else
+				handler.handle(result);
+		});
+	}
+
+	/**
+	 * Copy the downloaded file into the cache, a file that cannot be cached is only logged.
+	 * @param handler called once the entry is inserted or given up.
+	 */
+	private void store(String key, String filePath, Handler<Void> handler) {
+		m_fileSystem.props(filePath, props -> {
+			if (props.failed() || props.result().size() > m_options.getMaxBytes()) {
+				handler.handle(null);
+				return;
+			}
+			long size = props.result().size();
+			String path;
+			synchronized (this) {
+				path = m_directory + File.separator + (m_nextFile++);
+			}
+			place(filePath, path, placed -> {
+				if (placed.failed())
+					log.error("cache " + filePath + ": " + placed.cause());
+				else
+					insert(key, new Entry(path, size));
+				handler.handle(null);
+			});
+		});
+	}
+
+	private void insert(String key, Entry entry) {
+		List<Entry> evicted = new ArrayList<>();
+		synchronized (this) {
+			Entry replaced = m_entries.put(key, entry);
+			if (replaced != null) {
+				m_size -= replaced.m_size;
+				evicted.add(replaced);
+			}
+			m_size += entry.m_size;
+			Iterator<Map.Entry<String, Entry>> lru = m_entries.entrySet().iterator();
+			while (m_size > m_options.getMaxBytes() && lru.hasNext()) {
+				Entry oldest = lru.next().getValue();
+				lru.remove();
+				m_size -= oldest.m_size;
+				evicted.add(oldest);
+			}
+		}
+		for (Entry old : evicted)
+			m_fileSystem.delete(old.m_path, deleted -> {});
+	}
+
+	private void remove(String key, Entry entry) {
+		synchronized (this) {
+			if (!m_entries.remove(key, entry))
+				return;
+			m_size -= entry.m_size;
+		}
+		m_fileSystem.delete(entry.m_path, deleted -> {});
+	}
+
+	/**
+	 * Make a copy of the file, or a hard link when enabled and possible.
+	 */
+	private void place(String from, String to, Handler<AsyncResult<Void>> handler) {
+		CopyOptions replace = new CopyOptions().setReplaceExisting(true);
+		if (!m_options.isHardLink()) {
+			m_fileSystem.copy(from, to, replace, handler);
+			return;
+		}
+		m_fileSystem.delete(to, deleted -> m_fileSystem.link(to, from, linked -> {
+			if (linked.succeeded())
+				handler.handle(Future.succeededFuture());
+			else
+				m_fileSystem.copy(from, to, replace, handler);
+		}));
+	}
+
+	private static class Entry {
+		private final String m_path;
+		private final long m_size;
+		private volatile long m_storedAt = System.currentTimeMillis();
+
+		Entry(String path, long size) {
+			m_path = path;
+			m_size = size;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import java.io.File;
+
+/**
+ * Project: vertx-tftp-client
+ * File: DownloadCacheOptions.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Capacity and freshness of a {@link DownloadCache}.
+ */
+public class DownloadCacheOptions {
+	public static final String DEFAULT_DIRECTORY = System.getProperty("java.io.tmpdir") + File.separator + "vertx-tftp-cache";
+	public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+	public static final long DEFAULT_TTL = 5 * 60 * 1000;
+	public static final boolean DEFAULT_REVALIDATE = true;
+	public static final boolean DEFAULT_HARD_LINK = false;
+
+	private String m_directory;
+	private long m_maxBytes;
+	private long m_ttl;
+	private boolean m_revalidate;
+	private boolean m_hardLink;
+
+	public DownloadCacheOptions() {
+		m_directory = DEFAULT_DIRECTORY;
+		m_maxBytes = DEFAULT_MAX_BYTES;
+		m_ttl = DEFAULT_TTL;
+		m_revalidate = DEFAULT_REVALIDATE;
+		m_hardLink = DEFAULT_HARD_LINK;
+	}
+
+	public DownloadCacheOptions(DownloadCacheOptions other) {
+		m_directory = other.m_directory;
+		m_maxBytes = other.m_maxBytes;
+		m_ttl = other.m_ttl;
+		m_revalidate = other.m_revalidate;
+		m_hardLink = other.m_hardLink;
+	}
+
+	public String getDirectory() {
+		return m_directory;
+	}
+
+	/**
+	 * Set the folder the cached files are kept in, each cache uses its own sub folder.
+	 */
+	public DownloadCacheOptions setDirectory(String directory) {
+		m_directory = directory;
+		return this;
+	}
+
+	public long getMaxBytes() {
+		return m_maxBytes;
+	}
+
+	/**
+	 * Set the size of the cached files above which the least recently used files are evicted.
+	 */
+	public DownloadCacheOptions setMaxBytes(long maxBytes) {
+		if (maxBytes < 0)
+			throw new IllegalArgumentException("maxBytes must be >= 0");
+		m_maxBytes = maxBytes;
+		return this;
+	}
+
+	public long getTtl() {
+		return m_ttl;
+	}
+
+	/**
+	 * Set how long a cached file is served without asking the server.
+	 * @param ttl the time in milliseconds, 0 to check with the server on every download.
+	 */
+	public DownloadCacheOptions setTtl(long ttl) {
+		if (ttl < 0)
+			throw new IllegalArgumentException("ttl must be >= 0");
+		m_ttl = ttl;
+		return this;
+	}
+
+	public boolean isRevalidate() {
+		return m_revalidate;
+	}
+
+	/**
+	 * Keep an expired file when the server announces the same size with the tsize option (RFC 2349), instead of
+	 * downloading it again. Servers without the option always download again.
+	 */
+	public DownloadCacheOptions setRevalidate(boolean revalidate) {
+		m_revalidate = revalidate;
+		return this;
+	}
+
+	public boolean isHardLink() {
+		return m_hardLink;
+	}
+
+	/**
+	 * Serve and store files with hard links instead of copies when the cache is on the same file system.
+	 * The downloaded file then shares its content with the cache, it must be replaced rather than modified in place.
+	 */
+	public DownloadCacheOptions setHardLink(boolean hardLink) {
+		m_hardLink = hardLink;
+		return this;
+	}
+}
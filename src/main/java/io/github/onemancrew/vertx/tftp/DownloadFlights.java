@@ -0,0 +1,388 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.github.onemancrew.vertx.tftp.protocol.DownloadFileProcess;
+import io.github.onemancrew.vertx.tftp.protocol.stream.AsyncFileBlockSink;
+import io.github.onemancrew.vertx.tftp.protocol.stream.BlockSink;
+import io.github.onemancrew.vertx.tftp.protocol.stream.WriteStreamBlockSink;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.streams.Pump;
+import io.vertx.core.streams.WriteStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Project: vertx-tftp-client
+ * File: DownloadFlights.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Coalesces the concurrent downloads of a file from one server into one transfer.
+ * The first download of a file starts a flight that spools the file to a temporary file; the downloads asked for
+ * while it is in flight join it. Streams that joined before the first block on the context of the flight get the
+ * blocks as they arrive, the other streams and every file destination are served from the spool once the transfer
+ * completed. The spool is moved to the first file destination once the others were served, it is kept next to it
+ * when the flight was started by a download to a file.
+ */
+class DownloadFlights {
+	private static final String SERVE_SUFFIX = ".flight";
+
+	private final Vertx m_vertx;
+	private final FileSystem m_fileSystem;
+	private final TftpClientOptions m_options;
+	private final Map<String, Flight> m_flights = new HashMap<>();
+
+	DownloadFlights(Vertx vertx, TftpClientOptions options) {
+		m_vertx = vertx;
+		m_fileSystem = vertx.fileSystem();
+		m_options = options;
+	}
+
+	void downloadFile(TftpClient client, String remoteName, String filePath, Handler<AsyncResult<Void>> handler) {
+		join(client, remoteName, new Member(m_vertx.getOrCreateContext(), filePath, null, handler));
+	}
+
+	void download(TftpClient client, String remoteName, WriteStream<Buffer> stream, Handler<AsyncResult<Void>> handler) {
+		join(client, remoteName, new Member(m_vertx.getOrCreateContext(), null, stream, handler));
+	}
+
+	/**
+	 * @return the number of files in flight.
+	 */
+	int size() {
+		synchronized (m_flights) {
+			return m_flights.size();
+		}
+	}
+
+	private void join(TftpClient client, String remoteName, Member member) {
+		Flight flight;
+		synchronized (m_flights) {
+			flight = m_flights.get(remoteName);
+			if (flight != null) {
+				flight.add(member);
+				return;
+			}
+			flight = new Flight(remoteName, member.m_context, member.m_filePath);
+			flight.add(member);
+			m_flights.put(remoteName, flight);
+		}
+		flight.start(client);
+	}
+
+	private static class Member {
+		private final Context m_context;
+		private final String m_filePath;
+		private final WriteStream<Buffer> m_stream;
+		private final Handler<AsyncResult<Void>> m_handler;
+		private BlockSink m_live;
+		private boolean m_done;
+
+		Member(Context context, String filePath, WriteStream<Buffer> stream, Handler<AsyncResult<Void>> handler) {
+			m_context = context;
+			m_filePath = filePath;
+			m_stream = stream;
+			m_handler = handler;
+		}
+
+		synchronized boolean isDone() {
+			return m_done;
+		}
+
+		synchronized void complete(AsyncResult<Void> result) {
+			if (m_done)
+				return;
+			m_done = true;
+			m_context.runOnContext(v -> m_handler.handle(result));
+		}
+	}
+
+	/**
+	 * One transfer and the downloads waiting for it, the sink of the transfer writes the spool and the live streams.
+	 * Runs on the context of the download that started it.
+	 */
+	private class Flight implements BlockSink {
+		private final String m_remoteName;
+		private final Context m_context;
+		private final String m_firstPath;
+		private final List<Member> m_members = new ArrayList<>();
+		private final List<Member> m_live = new ArrayList<>();
+		private boolean m_started;
+		private String m_spoolPath;
+		private BlockSink m_spool;
+		private Handler<Void> m_drainHandler;
+
+		Flight(String remoteName, Context context, String firstPath) {
+			m_remoteName = remoteName;
+			m_context = context;
+			m_firstPath = firstPath;
+		}
+
+		synchronized void add(Member member) {
+			m_members.add(member);
+			if (member.m_stream != null && !m_started && member.m_context == m_context) {
+				// written with the blocks, the stream belongs to the context of the flight
+				member.m_live = new WriteStreamBlockSink(member.m_stream);
+				m_live.add(member);
+			}
+		}
+
+		void start(TftpClient client) {
+			Handler<AsyncResult<String>> created = temp -> {
+				if (temp.failed()) {
+					finished(Future.failedFuture(temp.cause()));
+					return;
+				}
+				m_spoolPath = temp.result();
+				AsyncFileBlockSink.open(m_vertx, m_spoolPath, false, false,
+						DownloadFileProcess.writeQueueSize(m_options), spool -> {
+					if (spool.failed()) {
+						finished(Future.failedFuture(spool.cause()));
+						return;
+					}
+					m_spool = spool.result();
+					client.downloadToSink(m_remoteName, this, this::finished);
+				});
+			};
+			m_context.runOnContext(v -> {
+				if (m_firstPath == null) {
+					m_fileSystem.createTempFile("tftp-", SERVE_SUFFIX, created);
+					return;
+				}
+				// on the file system of the first destination, so the spool can be moved there
+				File file = new File(m_firstPath);
+				m_fileSystem.createTempFile(file.getAbsoluteFile().getParent(), "." + file.getName() + ".", SERVE_SUFFIX,
+						AsyncFileBlockSink.TEMP_PERMS, created);
+			});
+		}
+
+		private synchronized List<Member> startWrites() {
+			m_started = true;
+			return m_live.isEmpty() ? Collections.emptyList() : new ArrayList<>(m_live);
+		}
+
+		@Override
+		public void write(long block, int blockSize, Buffer data, Handler<AsyncResult<Void>> handler) {
+			for (Member member : startWrites()) {
+				member.m_live.write(block, blockSize, data, written -> {
+					if (written.failed())
+						dropLive(member, written);
+				});
+			}
+			m_spool.write(block, blockSize, data, handler);
+		}
+
+		private void dropLive(Member member, AsyncResult<Void> result) {
+			synchronized (this) {
+				m_live.remove(member);
+			}
+			member.complete(result);
+			checkDrain();
+		}
+
+		@Override
+		public boolean writeQueueFull() {
+			if (m_spool.writeQueueFull())
+				return true;
+			synchronized (this) {
+				for (Member member : m_live) {
+					if (member.m_live.writeQueueFull())
+						return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public BlockSink drainHandler(Handler<Void> handler) {
+			m_drainHandler = handler;
+			Handler<Void> drained = handler == null ? null : v -> checkDrain();
+			m_spool.drainHandler(drained);
+			synchronized (this) {
+				for (Member member : m_live)
+					member.m_live.drainHandler(drained);
+			}
+			return this;
+		}
+
+		/**
+		 * The download waits until the spool and every live stream drained.
+		 */
+		private void checkDrain() {
+			Handler<Void> handler = m_drainHandler;
+			if (handler != null && !writeQueueFull())
+				handler.handle(null);
+		}
+
+		@Override
+		public void end(Handler<AsyncResult<Void>> handler) {
+			for (Member member : startWrites())
+				member.m_live.end(member::complete);
+			m_spool.end(handler);
+		}
+
+		@Override
+		public void abort(Handler<AsyncResult<Void>> handler) {
+			m_spool.abort(handler);
+		}
+
+		private void finished(AsyncResult<Void> result) {
+			List<Member> members;
+			synchronized (m_flights) {
+				m_flights.remove(m_remoteName, this);
+			}
+			synchronized (this) {
+				m_started = true;
+				members = new ArrayList<>(m_members);
+			}
+			if (result.failed()) {
+				// nothing is left behind once the downloads failed
+				deleteSpool(v -> {
+					for (Member member : members)
+						member.complete(result);
+				});
+				return;
+			}
+			Member mover = null;
+			List<Member> others = new ArrayList<>();
+			for (Member member : members) {
+				if (member.isDone())
+					continue;
+				if (mover == null && member.m_filePath != null)
+					mover = member;
+				else
+					others.add(member);
+			}
+			Member last = mover;
+			AtomicInteger serving = new AtomicInteger(others.size() + 1);
+			Handler<Void> served = v -> {
+				if (serving.decrementAndGet() != 0)
+					return;
+				if (last == null)
+					deleteSpool();
+				else
+					last.m_context.runOnContext(v2 -> moveSpool(last));
+			};
+			for (Member member : others)
+				member.m_context.runOnContext(v -> serve(member, served));
+			served.handle(null);
+		}
+
+		/**
+		 * Rename the spool to the file of the member, or copy it when the file is on another file system.
+		 */
+		private void moveSpool(Member member) {
+			CopyOptions move = new CopyOptions().setReplaceExisting(true).setAtomicMove(true);
+			m_fileSystem.move(m_spoolPath, member.m_filePath, move, moved -> {
+				if (moved.succeeded())
+					member.complete(moved);
+				else
+					serve(member, v -> deleteSpool());
+			});
+		}
+
+		/**
+		 * Copy the spool to the file of the member, or pump it into its stream.
+		 */
+		private void serve(Member member, Handler<Void> served) {
+			if (member.m_filePath != null) {
+				// a unique name, another flight or a cached download may write the same file meanwhile
+				File file = new File(member.m_filePath);
+				m_fileSystem.createTempFile(file.getAbsoluteFile().getParent(), "." + file.getName() + ".", SERVE_SUFFIX,
+						AsyncFileBlockSink.TEMP_PERMS, created -> {
+					if (created.failed()) {
+						member.complete(created.mapEmpty());
+						served.handle(null);
+						return;
+					}
+					String temp = created.result();
+					m_fileSystem.copy(m_spoolPath, temp, new CopyOptions().setReplaceExisting(true), copied -> {
+						if (copied.failed()) {
+							m_fileSystem.delete(temp, deleted -> {
+								member.complete(copied);
+								served.handle(null);
+							});
+							return;
+						}
+						CopyOptions move = new CopyOptions().setReplaceExisting(true).setAtomicMove(true);
+						m_fileSystem.move(temp, member.m_filePath, move, moved -> {
+							member.complete(moved);
+							served.handle(null);
+						});
+					});
+				});
+				return;
+			}
+			m_fileSystem.open(m_spoolPath, new OpenOptions().setRead(true).setWrite(false), opened -> {
+				if (opened.failed()) {
+					member.complete(opened.mapEmpty());
+					served.handle(null);
+					return;
+				}
+				opened.result().exceptionHandler(cause -> {
+					opened.result().close();
+					member.complete(Future.failedFuture(cause));
+					served.handle(null);
+				});
+				opened.result().endHandler(v -> {
+					member.m_stream.end();
+					opened.result().close();
+					member.complete(Future.succeededFuture());
+					served.handle(null);
+				});
+				Pump.pump(opened.result(), member.m_stream).start();
+			});
+		}
+
+		private void deleteSpool() {
+			deleteSpool(v -> {});
+		}
+
+		private void deleteSpool(Handler<Void> handler) {
+			if (m_spoolPath != null)
+				m_fileSystem.delete(m_spoolPath, deleted -> handler.handle(null));
+			else
+				handler.handle(null);
+		}
+	}
+}
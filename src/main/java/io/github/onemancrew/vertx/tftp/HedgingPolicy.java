@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import java.util.Arrays;
+
+/**
+ * Project: vertx-tftp-client
+ * File: HedgingPolicy.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * When a {@link TftpServerPool} requests a file again from another server because the first block is late.
+ * The delay is either fixed or a percentile of the time to the first block of the recent downloads, so only the
+ * slowest downloads are hedged.
+ */
+public class HedgingPolicy {
+	/**
+	 * Number of recent downloads the percentile is computed over.
+	 */
+	private static final int WINDOW = 256;
+	/**
+	 * Downloads measured before the percentile is used instead of the initial delay.
+	 */
+	private static final int MIN_SAMPLES = 20;
+
+	private final double m_percentile;
+	private final long m_delayMs;
+	private final long[] m_samples;
+	private int m_count;
+	private int m_next;
+
+	private HedgingPolicy(double percentile, long delayMs) {
+		m_percentile = percentile;
+		m_delayMs = delayMs;
+		m_samples = percentile > 0 ? new long[WINDOW] : null;
+	}
+
+	/**
+	 * Hedge the downloads whose first block did not arrive within a fixed delay.
+	 * @param delayMs the delay in milliseconds.
+	 */
+	public static HedgingPolicy fixed(long delayMs) {
+		if (delayMs < 0)
+			throw new IllegalArgumentException("delayMs must be >= 0");
+		return new HedgingPolicy(0, delayMs);
+	}
+
+	/**
+	 * Hedge the downloads whose first block is later than the given percentile of the recent downloads.
+	 * @param percentile the percentile, e.g. 95.
+	 * @param initialDelayMs the delay used until enough downloads were measured.
+	 */
+	public static HedgingPolicy percentile(double percentile, long initialDelayMs) {
+		if (percentile <= 0 || percentile >= 100)
+			throw new IllegalArgumentException("percentile must be between 0 and 100");
+		if (initialDelayMs < 0)
+			throw new IllegalArgumentException("initialDelayMs must be >= 0");
+		return new HedgingPolicy(percentile, initialDelayMs);
+	}
+
+	/**
+	 * @return the delay in milliseconds after which the next download is hedged.
+	 */
+	public synchronized long getDelayMs() {
+		if (m_samples == null || m_count < MIN_SAMPLES)
+			return m_delayMs;
+		long[] sorted = Arrays.copyOf(m_samples, m_count);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(m_percentile / 100 * m_count) - 1;
+		return sorted[Math.max(rank, 0)];
+	}
+
+	/**
+	 * Record the time to the first block of a download that was not hedged.
+	 */
+	synchronized void record(long firstBlockMs) {
+		if (m_samples == null || firstBlockMs < 0)
+			return;
+		m_samples[m_next] = firstBlockMs;
+		m_next = (m_next + 1) % WINDOW;
+		if (m_count < WINDOW)
+			m_count++;
+	}
+}
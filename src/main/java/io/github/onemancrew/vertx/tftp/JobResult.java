@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+/**
+ * Project: vertx-tftp-client
+ * File: JobResult.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * The outcome of one {@link TransferJob} of a batch.
+ */
+public class JobResult {
+	private final TransferJob m_job;
+	private final Throwable m_cause;
+	private final long m_durationMs;
+
+	public JobResult(TransferJob job, Throwable cause, long durationMs) {
+		m_job = job;
+		m_cause = cause;
+		m_durationMs = durationMs;
+	}
+
+	public TransferJob getJob() {
+		return m_job;
+	}
+
+	public boolean succeeded() {
+		return m_cause == null;
+	}
+
+	public boolean failed() {
+		return m_cause != null;
+	}
+
+	/**
+	 * @return why the job failed, null if it succeeded.
+	 */
+	public Throwable cause() {
+		return m_cause;
+	}
+
+	/**
+	 * @return the time from the start of the transfer to its completion.
+	 */
+	public long getDurationMs() {
+		return m_durationMs;
+	}
+}
@@ -25,6 +25,7 @@
 package io.github.onemancrew.vertx.tftp;
 
 import io.github.onemancrew.vertx.tftp.protocol.SendFileProcess;
+import io.github.onemancrew.vertx.tftp.protocol.TransferProcess;
 
 /**
  * Project: vertx-tftp-client
@@ -32,19 +33,113 @@ import io.github.onemancrew.vertx.tftp.protocol.SendFileProcess;
  * Package: io.github.onemancrew.vertx.tftp
  * create by: Levi
  * create date: 12-02-2020
- * Last update by:
- * Last update date:
+ * Last update by: Levi
+ * Last update date: 18-10-2026
  **/
+/**
+ * A snapshot of the progress of an upload or a download.
+ * Progress is reported at most once per {@link TftpClientOptions#getProgressInterval()} and once more when the transfer
+ * completed. The total size is known for uploads of files and for downloads from servers supporting the tsize option.
+ */
 public class Progress {
-	private SendFileProcess m_sendFileProcess;
-	private int m_percentage;
+	private final TransferProcess m_process;
+	private final String m_fileName;
+	private final long m_bytes;
+	private final long m_totalBytes;
+	private final long m_elapsedMs;
+	private final double m_rate;
+	private final TransferStatistics m_statistics;
 
-	public Progress(SendFileProcess sendFileProcess, int percentage) {
-		m_sendFileProcess = sendFileProcess;
-		m_percentage = percentage;
+	public Progress(TransferProcess process, String fileName, long bytes, long totalBytes, long elapsedMs, double rate,
+					TransferStatistics statistics) {
+		m_process = process;
+		m_fileName = fileName;
+		m_bytes = bytes;
+		m_totalBytes = totalBytes;
+		m_elapsedMs = elapsedMs;
+		m_rate = rate;
+		m_statistics = statistics;
 	}
 
+	/**
+	 * @deprecated progress is reported for downloads too, use the getters of the progress instead.
+	 * @return the upload, null for a download.
+	 */
+	@Deprecated
 	public SendFileProcess getSendFileProcess() {
-		return m_sendFileProcess;
+		return m_process instanceof SendFileProcess ? (SendFileProcess) m_process : null;
+	}
+
+	public String getFileName() {
+		return m_fileName;
+	}
+
+	/**
+	 * @return the bytes acknowledged by the server for an upload, received for a download.
+	 */
+	public long getBytes() {
+		return m_bytes;
+	}
+
+	/**
+	 * @return the size of the file, -1 if unknown.
+	 */
+	public long getTotalBytes() {
+		return m_totalBytes;
+	}
+
+	/**
+	 * @return the percentage of the file transferred, -1 if the size is unknown.
+	 */
+	public int getPercentage() {
+		if (m_totalBytes < 0)
+			return -1;
+		return m_totalBytes == 0 ? 100 : (int) (m_bytes * 100 / m_totalBytes);
+	}
+
+	public long getElapsedMs() {
+		return m_elapsedMs;
+	}
+
+	/**
+	 * @return the throughput since the previous progress in bytes per second.
+	 */
+	public double getRate() {
+		return m_rate;
+	}
+
+	/**
+	 * @return the throughput since the start of the transfer in bytes per second.
+	 */
+	public double getAverageRate() {
+		return m_elapsedMs > 0 ? m_bytes * 1000.0 / m_elapsedMs : 0;
+	}
+
+	/**
+	 * @return the estimated milliseconds until the transfer completes at the average rate, -1 if unknown.
+	 */
+	public long getEtaMs() {
+		double rate = getAverageRate();
+		if (m_totalBytes < 0 || rate <= 0)
+			return -1;
+		return (long) (Math.max(m_totalBytes - m_bytes, 0) * 1000 / rate);
+	}
+
+	public long getRetransmittedPackets() {
+		return m_statistics.getRetransmittedPackets();
+	}
+
+	/**
+	 * @return the round trip time and retransmission statistics of the transfer so far.
+	 */
+	public TransferStatistics getStatistics() {
+		return m_statistics;
+	}
+
+	@Override
+	public String toString() {
+		return "Progress{file=" + m_fileName + ", bytes=" + m_bytes + "/" + m_totalBytes + ", rate=" + (long) m_rate
+				+ "B/s, averageRate=" + (long) getAverageRate() + "B/s, eta=" + getEtaMs() + "ms, retransmitted="
+				+ getRetransmittedPackets() + "}";
 	}
 }
@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.vertx.core.net.SocketAddress;
+
+/**
+ * Project: vertx-tftp-client
+ * File: ServerHealth.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Load and health of one server of a {@link TftpServerPool}.
+ * The round trip time and the error rate are moving averages over the recent transfers. A server that failed
+ * {@link #FAILURES_BEFORE_QUARANTINE} transfers in a row is not given new transfers for {@link #QUARANTINE_MS}, then
+ * it is tried again and the next failure puts it back in quarantine.
+ */
+class ServerHealth {
+	static final int FAILURES_BEFORE_QUARANTINE = 3;
+	static final long QUARANTINE_MS = 30_000;
+	/**
+	 * Weight of the last transfer in the moving averages.
+	 */
+	private static final double GAIN = 0.2;
+	/**
+	 * How much more a server that fails every transfer costs than a server that never fails.
+	 */
+	private static final double ERROR_PENALTY = 4;
+	/**
+	 * Round trip time of a server that was not measured yet, or of a server on the local host.
+	 */
+	private static final double MIN_RTT_MS = 1;
+
+	private final SocketAddress m_address;
+	private final TftpClient m_client;
+	private int m_inFlight;
+	private double m_rtt;
+	private double m_errorRate;
+	private int m_consecutiveFailures;
+	private long m_quarantinedUntil;
+
+	ServerHealth(SocketAddress address, TftpClient client) {
+		m_address = address;
+		m_client = client;
+		m_client.statisticsHandler(this::sampled);
+	}
+
+	SocketAddress getAddress() {
+		return m_address;
+	}
+
+	TftpClient getClient() {
+		return m_client;
+	}
+
+	synchronized boolean isHealthy(long now) {
+		return now >= m_quarantinedUntil;
+	}
+
+	synchronized long getQuarantinedUntil() {
+		return m_quarantinedUntil;
+	}
+
+	/**
+	 * The expected cost of one more transfer: the round trip time scaled by the transfers already running and by
+	 * the error rate. A server that was not measured yet looks close, so it gets a transfer and is measured.
+	 */
+	synchronized double cost() {
+		return Math.max(m_rtt, MIN_RTT_MS) * (m_inFlight + 1) * (1 + ERROR_PENALTY * m_errorRate);
+	}
+
+	synchronized void started() {
+		m_inFlight++;
+	}
+
+	synchronized void completed(boolean failed, long now) {
+		m_inFlight--;
+		m_errorRate += GAIN * ((failed ? 1 : 0) - m_errorRate);
+		if (!failed) {
+			m_consecutiveFailures = 0;
+			return;
+		}
+		if (++m_consecutiveFailures >= FAILURES_BEFORE_QUARANTINE)
+			m_quarantinedUntil = now + QUARANTINE_MS;
+	}
+
+	/**
+	 * A transfer stopped because another server answered first, it says nothing about this server.
+	 */
+	synchronized void cancelled() {
+		m_inFlight--;
+	}
+
+	private synchronized void sampled(TransferStatistics statistics) {
+		if (statistics.getRttSamples() == 0)
+			return;
+		m_rtt = m_rtt == 0 ? statistics.getSmoothedRtt() : m_rtt + GAIN * (statistics.getSmoothedRtt() - m_rtt);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return m_address + " inFlight=" + m_inFlight + " rtt=" + m_rtt + "ms errorRate=" + m_errorRate
+				+ (m_quarantinedUntil > System.currentTimeMillis() ? " quarantined" : "");
+	}
+}
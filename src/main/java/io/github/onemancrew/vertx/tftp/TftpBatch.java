@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.github.onemancrew.vertx.tftp.protocol.transport.Transport;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TftpBatch.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Runs many transfers with many servers under a global and a per server concurrency limit.
+ * A job starts as soon as a running one completes, the servers with waiting jobs take turns so one server with many
+ * files does not hold back the others. All the transfers of a batch share one transport.
+ */
+public class TftpBatch {
+	private final Vertx m_vertx;
+	private final TftpClientOptions m_clientOptions;
+	private final BatchOptions m_batchOptions;
+	private final Transport m_transport;
+	private final TransferShards m_shards;
+	private final Map<String, TftpClient> m_clients = new HashMap<>();
+
+	public TftpBatch(Vertx vertx, TftpClientOptions clientOptions, BatchOptions batchOptions) {
+		m_vertx = vertx;
+		m_clientOptions = new TftpClientOptions(clientOptions);
+		m_batchOptions = new BatchOptions(batchOptions);
+		m_transport = TftpClient.createTransport(vertx, m_clientOptions);
+		m_shards = TftpClient.createShards(vertx, m_clientOptions);
+	}
+
+	/**
+	 * Run the jobs, the handler is called once every job completed.
+	 * @param jobs the files to transfer.
+	 * @param handler called with the result of every job, failed jobs do not fail the batch.
+	 */
+	public void run(List<TransferJob> jobs, Handler<AsyncResult<BatchResult>> handler) {
+		Context context = m_vertx.getOrCreateContext();
+		context.runOnContext(v -> new Run(jobs, handler).pump());
+	}
+
+	/**
+	 * Close the shared sockets and shards of the batch, see {@link TftpClientOptions#setSocketPoolSize(int)}.
+	 */
+	public void close(Handler<AsyncResult<Void>> handler) {
+		TftpClient.close(m_transport, m_shards, handler);
+	}
+
+	private TftpClient client(TransferJob job) {
+		synchronized (m_clients) {
+			return m_clients.computeIfAbsent(job.getServer(),
+					server -> new TftpClient(m_vertx, job.getHost(), job.getPort(), m_clientOptions, m_transport, m_shards));
+		}
+	}
+
+	private class Run {
+		private final List<TransferJob> m_jobs;
+		private final Handler<AsyncResult<BatchResult>> m_handler;
+		private final JobResult[] m_results;
+		private final Map<String, ServerQueue> m_servers = new HashMap<>();
+		/**
+		 * Servers with waiting jobs and a free slot, in turn order.
+		 */
+		private final ArrayDeque<ServerQueue> m_ready = new ArrayDeque<>();
+		private final long m_startMs = System.currentTimeMillis();
+		private int m_running;
+		private int m_completed;
+
+		Run(List<TransferJob> jobs, Handler<AsyncResult<BatchResult>> handler) {
+			m_jobs = new ArrayList<>(jobs);
+			m_handler = handler;
+			m_results = new JobResult[m_jobs.size()];
+			for (int i = 0; i < m_jobs.size(); i++) {
+				ServerQueue server = m_servers.computeIfAbsent(m_jobs.get(i).getServer(), key -> new ServerQueue());
+				if (server.m_waiting.isEmpty())
+					m_ready.add(server);
+				server.m_waiting.add(i);
+			}
+		}
+
+		void pump() {
+			if (m_completed == m_jobs.size()) {
+				m_handler.handle(Future.succeededFuture(
+						new BatchResult(Arrays.asList(m_results), System.currentTimeMillis() - m_startMs)));
+				return;
+			}
+			while (m_running < m_batchOptions.getMaxConcurrency() && !m_ready.isEmpty()) {
+				ServerQueue server = m_ready.poll();
+				int index = server.m_waiting.poll();
+				server.m_running++;
+				m_running++;
+				if (server.hasSlot())
+					m_ready.add(server);
+				start(server, index);
+			}
+		}
+
+		private void start(ServerQueue server, int index) {
+			TransferJob job = m_jobs.get(index);
+			long startMs = System.currentTimeMillis();
+			Handler<AsyncResult<Void>> done = result -> {
+				m_results[index] = new JobResult(job, result.failed() ? result.cause() : null,
+						System.currentTimeMillis() - startMs);
+				boolean wasReady = server.hasSlot();
+				server.m_running--;
+				m_running--;
+				m_completed++;
+				if (!wasReady && server.hasSlot())
+					m_ready.add(server);
+				pump();
+			};
+			try {
+				TftpClient client = client(job);
+				if (job.getDirection() == TransferJob.Direction.UPLOAD)
+					client.upload(job.getLocalPath(), job.getRemoteName(), progress -> {}, done);
+				else
+					client.downloadFile(job.getRemoteName(), job.getLocalPath(), done);
+			} catch (RuntimeException e) {
+				done.handle(Future.failedFuture(e));
+			}
+		}
+
+		private class ServerQueue {
+			private final ArrayDeque<Integer> m_waiting = new ArrayDeque<>();
+			private int m_running;
+
+			boolean hasSlot() {
+				return !m_waiting.isEmpty() && m_running < m_batchOptions.getMaxConcurrencyPerServer();
+			}
+		}
+	}
+}
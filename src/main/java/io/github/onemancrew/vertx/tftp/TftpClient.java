@@ -24,9 +24,27 @@
 
 package io.github.onemancrew.vertx.tftp;
 
+import io.github.onemancrew.vertx.tftp.digest.TransferDigest;
 import io.github.onemancrew.vertx.tftp.protocol.DownloadFileProcess;
+import io.github.onemancrew.vertx.tftp.protocol.DownloadRace;
 import io.github.onemancrew.vertx.tftp.protocol.SendFileProcess;
+import io.github.onemancrew.vertx.tftp.protocol.TransferProcess;
+import io.github.onemancrew.vertx.tftp.protocol.TransferSizeProbe;
+import io.github.onemancrew.vertx.tftp.protocol.exception.DigestMismatchException;
+import io.github.onemancrew.vertx.tftp.protocol.stream.AsyncFileBlockSink;
+import io.github.onemancrew.vertx.tftp.protocol.stream.AsyncFileBlockSource;
+import io.github.onemancrew.vertx.tftp.protocol.stream.BlockSink;
+import io.github.onemancrew.vertx.tftp.protocol.stream.BlockSource;
+import io.github.onemancrew.vertx.tftp.protocol.stream.DigestBlockSink;
+import io.github.onemancrew.vertx.tftp.protocol.stream.DigestBlockSource;
+import io.github.onemancrew.vertx.tftp.protocol.stream.ReadStreamBlockSource;
+import io.github.onemancrew.vertx.tftp.protocol.stream.WriteStreamBlockSink;
+import io.github.onemancrew.vertx.tftp.protocol.transport.DedicatedTransport;
+import io.github.onemancrew.vertx.tftp.protocol.transport.ImpairedTransport;
+import io.github.onemancrew.vertx.tftp.protocol.transport.SocketPoolTransport;
+import io.github.onemancrew.vertx.tftp.protocol.transport.Transport;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
@@ -34,8 +52,10 @@ import io.vertx.core.buffer.Buffer;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
 import io.github.onemancrew.vertx.tftp.Progress;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.nio.ByteOrder;
@@ -60,8 +80,14 @@ public class TftpClient {
 	private static Logger log = LoggerFactory.getLogger(TftpClient.class);
 	private final String m_host;
 	private final int m_port;
+	private final TftpClientOptions m_options;
 	private Vertx m_vertx;
 	private ByteOrder m_byteOrder=ByteOrder.BIG_ENDIAN;
+	private final Transport m_transport;
+	private final TransferShards m_shards;
+	private Handler<TransferStatistics> m_statisticsHandler;
+	private DownloadCache m_cache;
+	private final DownloadFlights m_flights;
 
 	/**
 	 * Create a ftp client which connects to the specified host and port.
@@ -70,9 +96,80 @@ public class TftpClient {
 	 * @param port the port on the TFTP server.
 	 */
 	public TftpClient(Vertx vertx, String host, int port) {
+		this(vertx, host, port, new TftpClientOptions());
+	}
+
+	/**
+	 * Create a ftp client which connects to the specified host and port.
+	 * @param vertx the vertx instance to use for creating connections.
+	 * @param host the host where the TFTP server is running.
+	 * @param port the port on the TFTP server.
+	 * @param options the options used to negotiate the transfers.
+	 */
+	public TftpClient(Vertx vertx, String host, int port, TftpClientOptions options) {
+		this(vertx, host, port, new TftpClientOptions(options), null, null);
+	}
+
+	/**
+	 * Create a client that opens its transfers with a transport and shards shared with other clients.
+	 */
+	TftpClient(Vertx vertx, String host, int port, TftpClientOptions options, Transport transport, TransferShards shards) {
 		this.m_vertx = vertx;
 		this.m_host = host;
 		this.m_port = port;
+		this.m_options = options;
+		this.m_transport = transport != null ? transport : createTransport(vertx, options);
+		this.m_shards = shards != null ? shards : createShards(vertx, options);
+		this.m_flights = options.isCoalesceDownloads() ? new DownloadFlights(vertx, options) : null;
+	}
+
+	static Transport createTransport(Vertx vertx, TftpClientOptions options) {
+		Transport transport = options.getSocketPoolSize() > 0 ? new SocketPoolTransport(vertx, options)
+				: new DedicatedTransport(vertx, options);
+		return options.getImpairment() != null ? new ImpairedTransport(vertx, transport, options.getImpairment())
+				: transport;
+	}
+
+	/**
+	 * Serve the downloads to files from a cache of the files already downloaded from the server.
+	 * @param cache the cache, may be shared with other clients, null to always download.
+	 */
+	public TftpClient setDownloadCache(DownloadCache cache) {
+		m_cache = cache;
+		return this;
+	}
+
+	/**
+	 * @return the address of the server, host:port.
+	 */
+	String getServer() {
+		return m_host + ":" + m_port;
+	}
+
+	/**
+	 * Set a handler called with the statistics of each transfer of the client once it completed or failed.
+	 */
+	void statisticsHandler(Handler<TransferStatistics> handler) {
+		m_statisticsHandler = handler;
+	}
+
+	private void prepare(TransferProcess process) {
+		process.setTransport(m_transport);
+		process.setStatisticsHandler(m_statisticsHandler);
+	}
+
+	/**
+	 * @return a progress handler that hops back to the context of the caller, for a transfer run on a shard.
+	 */
+	private Handler<Progress> onCaller(Handler<Progress> progress) {
+		if (progress == null)
+			return null;
+		Context caller = m_vertx.getOrCreateContext();
+		return event -> caller.runOnContext(v -> progress.handle(event));
+	}
+
+	static TransferShards createShards(Vertx vertx, TftpClientOptions options) {
+		return options.isSharded() ? new TransferShards(vertx, options.getShardCount()) : null;
 	}
 
 	/**
@@ -82,11 +179,54 @@ public class TftpClient {
 	 * @param handler callback handler that is called when the list is completed.
 	 */
 	public void upload(String filePath, Handler<Progress> progress, Handler<AsyncResult<Void>> handler) {
-		m_vertx.fileSystem().readFile(filePath,(result)->{
+		upload(filePath, Paths.get(filePath).getFileName().toString(), progress, handler);
+	}
+
+	/**
+	 * Perform upload of the file under another name.
+	 * @param filePath the file path.
+	 * @param remoteName the file name on the server.
+	 * @param progress a progress handler that is called for each part that is recieved.
+	 * @param handler callback handler that is called when the upload is completed.
+	 */
+	public void upload(String filePath, String remoteName, Handler<Progress> progress, Handler<AsyncResult<Void>> handler) {
+		if (m_shards != null) {
+			Handler<Progress> callerProgress = onCaller(progress);
+			m_shards.run(done -> startUpload(filePath, remoteName, null, callerProgress, done), handler);
+		}
+		else
+			startUpload(filePath, remoteName, null, progress, handler);
+	}
+
+	/**
+	 * Perform upload of a file and compute its digest as the blocks are read, without reading the file again.
+	 * When the digest has an expected value and the file does not match it, the server gets an ERROR instead of the
+	 * last block and the upload fails with a {@link DigestMismatchException}.
+	 * @param filePath the file path.
+	 * @param remoteName the file name on the server.
+	 * @param digest the digest of this upload, see {@link TransferDigest#setExpectedHex(String)}.
+	 * @param progress a progress handler, may be null.
+	 * @param handler called with the completed digest when the upload is completed.
+	 */
+	public void upload(String filePath, String remoteName, TransferDigest digest, Handler<Progress> progress,
+					   Handler<AsyncResult<TransferDigest>> handler) {
+		Handler<AsyncResult<Void>> done = result -> handler.handle(result.map(digest));
+		if (m_shards != null) {
+			Handler<Progress> callerProgress = onCaller(progress);
+			m_shards.run(shard -> startUpload(filePath, remoteName, digest, callerProgress, shard), done);
+		}
+		else
+			startUpload(filePath, remoteName, digest, progress, done);
+	}
+
+	private void startUpload(String filePath, String remoteName, TransferDigest digest, Handler<Progress> progress,
+							 Handler<AsyncResult<Void>> handler) {
+		AsyncFileBlockSource.open(m_vertx, filePath, m_options.getReadAheadBlocks(), (result)->{
 			if(result.succeeded()){
-				String fileName= Paths.get(filePath).getFileName().toString();
-				SendFileProcess process = new SendFileProcess(m_vertx, m_byteOrder, m_host, m_port, fileName, result.result(), progress, handler);
-				process.send(generateRandomPort());
+				BlockSource source = digest == null ? result.result() : new DigestBlockSource(result.result(), digest);
+				SendFileProcess process = new SendFileProcess(m_vertx, m_byteOrder, m_host, m_port, remoteName, source, m_options, progress, handler);
+				prepare(process);
+				process.send();
 			}
 			else
 			{
@@ -96,6 +236,23 @@ public class TftpClient {
 		});
 	}
 
+	/**
+	 * Perform upload of a stream.
+	 * The stream is paused while the server is slower than the stream, so nothing is buffered without limit.
+	 * The upload replaces the handlers of the stream, a failure of the stream fails the upload.
+	 * The upload runs on the context of the caller even when the client is sharded, the context of the stream.
+	 * @param remoteName the file name on the server.
+	 * @param source the content of the file.
+	 * @param progress a progress handler that is called for each part that is recieved.
+	 * @param handler callback handler that is called when the upload is completed.
+	 */
+	public void upload(String remoteName, ReadStream<Buffer> source, Handler<Progress> progress, Handler<AsyncResult<Void>> handler) {
+		BlockSource blockSource = new ReadStreamBlockSource(source, m_options.getReadAheadBlocks());
+		SendFileProcess process = new SendFileProcess(m_vertx, m_byteOrder, m_host, m_port, remoteName, blockSource, m_options, progress, handler);
+		prepare(process);
+		process.send();
+	}
+
 	/**
 	 * Perform Download of  file.
 	 * @param fileName the file name.
@@ -103,9 +260,185 @@ public class TftpClient {
 	 * @param handler callback handler that is called when the list is completed.
 	 */
 	public void download(String fileName, String dstFolder, Handler<AsyncResult<Void>> handler) {
-		DownloadFileProcess process = new DownloadFileProcess(m_vertx, m_byteOrder, m_host, m_port,dstFolder, fileName, handler);
-		process.download(generateRandomPort());
+		if (m_cache != null || m_flights != null)
+			downloadFile(fileName, dstFolder + File.separator + fileName, handler);
+		else if (m_shards != null)
+			m_shards.run(done -> startDownload(fileName, dstFolder, done), handler);
+		else
+			startDownload(fileName, dstFolder, handler);
+	}
+
+	private void startDownload(String fileName, String dstFolder, Handler<AsyncResult<Void>> handler) {
+		DownloadFileProcess process = new DownloadFileProcess(m_vertx, m_byteOrder, m_host, m_port,dstFolder, fileName, m_options, handler);
+		prepare(process);
+		process.download();
+	}
+
+	/**
+	 * Perform Download of a file to a local path.
+	 * @param remoteName the file name on the server.
+	 * @param filePath the path the file is written to.
+	 * @param handler callback handler that is called when the download is completed.
+	 */
+	public void downloadFile(String remoteName, String filePath, Handler<AsyncResult<Void>> handler) {
+		if (m_cache != null)
+			m_cache.download(this, remoteName, filePath, handler);
+		else
+			downloadUncached(remoteName, filePath, null, handler);
+	}
+
+	/**
+	 * Perform Download of a file to a local path and report its progress.
+	 * The download asks the server the size of the file with the tsize option. It is not served from the cache nor
+	 * coalesced with other downloads.
+	 * @param remoteName the file name on the server.
+	 * @param filePath the path the file is written to.
+	 * @param progress a progress handler, see {@link TftpClientOptions#setProgressInterval(long)}.
+	 * @param handler callback handler that is called when the download is completed.
+	 */
+	public void downloadFile(String remoteName, String filePath, Handler<Progress> progress,
+							 Handler<AsyncResult<Void>> handler) {
+		if (m_shards != null) {
+			Handler<Progress> callerProgress = onCaller(progress);
+			m_shards.run(done -> startDownloadFile(remoteName, filePath, null, null, callerProgress, done), handler);
+		}
+		else
+			startDownloadFile(remoteName, filePath, null, null, progress, handler);
+	}
+
+	/**
+	 * Perform Download of a file to a local path and compute its digest as the blocks arrive, without reading the
+	 * file again. When the digest has an expected value and the file does not match it, the download fails with a
+	 * {@link DigestMismatchException}, an atomic download (see {@link TftpClientOptions#setAtomicDownload(boolean)})
+	 * discards its temporary file and leaves the destination untouched.
+	 * The download is not served from the cache nor coalesced with other downloads.
+	 * @param remoteName the file name on the server.
+	 * @param filePath the path the file is written to.
+	 * @param digest the digest of this download, see {@link TransferDigest#setExpectedHex(String)}.
+	 * @param progress a progress handler, may be null.
+	 * @param handler called with the completed digest when the download is completed.
+	 */
+	public void downloadFile(String remoteName, String filePath, TransferDigest digest, Handler<Progress> progress,
+							 Handler<AsyncResult<TransferDigest>> handler) {
+		Handler<AsyncResult<Void>> done = result -> handler.handle(result.map(digest));
+		if (m_shards != null) {
+			Handler<Progress> callerProgress = onCaller(progress);
+			m_shards.run(shard -> startDownloadFile(remoteName, filePath, null, digest, callerProgress, shard), done);
+		}
+		else
+			startDownloadFile(remoteName, filePath, null, digest, progress, done);
+	}
+
+	/**
+	 * Ask the server the size of a file with the tsize option (RFC 2349), the transfer is aborted before the
+	 * first block.
+	 * @param remoteName the file name on the server.
+	 * @param handler called with the size in bytes, -1 if the server does not support the option.
+	 */
+	public void transferSize(String remoteName, Handler<AsyncResult<Long>> handler) {
+		TransferSizeProbe probe = new TransferSizeProbe(m_vertx, m_byteOrder, m_host, m_port, remoteName, m_options, handler);
+		prepare(probe);
+		probe.probe();
+	}
+
+	/**
+	 * Perform Download of a file to a local path, racing downloads of the same file from other servers.
+	 * The download cache is not used.
+	 */
+	void downloadUncached(String remoteName, String filePath, DownloadRace race, Handler<AsyncResult<Void>> handler) {
+		if (race == null && m_flights != null)
+			m_flights.downloadFile(this, remoteName, filePath, handler);
+		else if (m_shards != null)
+			m_shards.run(done -> startDownloadFile(remoteName, filePath, race, null, null, done), handler);
+		else
+			startDownloadFile(remoteName, filePath, race, null, null, handler);
 	}
+
+	private void startDownloadFile(String remoteName, String filePath, DownloadRace race, TransferDigest digest,
+								   Handler<Progress> progress, Handler<AsyncResult<Void>> handler) {
+		AsyncFileBlockSink.open(m_vertx, filePath, m_options.isAtomicDownload(), m_options.isFsyncOnComplete(),
+				DownloadFileProcess.writeQueueSize(m_options), (result)->{
+			if(result.succeeded()){
+				BlockSink sink = digest == null ? result.result() : new DigestBlockSink(result.result(), digest);
+				DownloadFileProcess process = new DownloadFileProcess(m_vertx, m_byteOrder, m_host, m_port, remoteName, sink, m_options, handler);
+				prepare(process);
+				process.setRace(race);
+				process.setProgressHandler(progress);
+				process.download();
+			}
+			else
+			{
+				log.error(result.cause());
+				handler.handle(Future.failedFuture(result.cause()));
+			}
+		});
+	}
+
+	/**
+	 * Perform Download of a file into a stream.
+	 * Blocks are not acknowledged while the write queue of the stream is full, so a slow stream throttles the server.
+	 * The stream is ended when the download succeeded. The download replaces the exception handler of the stream, a
+	 * failure of the stream fails the download.
+	 * The download runs on the context of the caller even when the client is sharded, the context of the stream.
+	 * @param remoteName the file name on the server.
+	 * @param sink the stream the content of the file is written to.
+	 * @param handler callback handler that is called when the download is completed.
+	 */
+	public void download(String remoteName, WriteStream<Buffer> sink, Handler<AsyncResult<Void>> handler) {
+		if (m_flights != null)
+			m_flights.download(this, remoteName, sink, handler);
+		else
+			downloadToSink(remoteName, new WriteStreamBlockSink(sink), handler);
+	}
+
+	/**
+	 * Perform Download of a file into a stream and report its progress, the download is not coalesced.
+	 * Like the other stream downloads it runs on the context of the caller even when the client is sharded.
+	 * @param remoteName the file name on the server.
+	 * @param sink the stream the content of the file is written to.
+	 * @param progress a progress handler, see {@link TftpClientOptions#setProgressInterval(long)}.
+	 * @param handler callback handler that is called when the download is completed.
+	 */
+	public void download(String remoteName, WriteStream<Buffer> sink, Handler<Progress> progress,
+						 Handler<AsyncResult<Void>> handler) {
+		DownloadFileProcess process = new DownloadFileProcess(m_vertx, m_byteOrder, m_host, m_port, remoteName,
+				new WriteStreamBlockSink(sink), m_options, handler);
+		prepare(process);
+		process.setProgressHandler(progress);
+		process.download();
+	}
+
+	/**
+	 * Perform Download of a file into a sink, on the context of the caller.
+	 */
+	void downloadToSink(String remoteName, BlockSink sink, Handler<AsyncResult<Void>> handler) {
+		DownloadFileProcess process = new DownloadFileProcess(m_vertx, m_byteOrder, m_host, m_port, remoteName, sink, m_options, handler);
+		prepare(process);
+		process.download();
+	}
+
+	/**
+	 * Close the shared sockets and undeploy the shards of the client, only needed when
+	 * {@link TftpClientOptions#setSocketPoolSize(int)} or {@link TftpClientOptions#setSharded(boolean)} is set.
+	 * @param handler called once the sockets are closed.
+	 */
+	public void close(Handler<AsyncResult<Void>> handler) {
+		close(m_transport, m_shards, handler);
+	}
+
+	static void close(Transport transport, TransferShards shards, Handler<AsyncResult<Void>> handler) {
+		if (shards == null) {
+			transport.close(handler);
+			return;
+		}
+		shards.close(undeployed -> transport.close(closed ->
+				handler.handle(undeployed.failed() ? undeployed : closed)));
+	}
+
+	/**
+	 * @deprecated transfers bind port 0 and let the kernel pick a free port, this guess races with other processes.
+	 */
+	@Deprecated
 	public static int generateRandomPort() {
 		ServerSocket s = null;
 		try {
@@ -0,0 +1,478 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.github.onemancrew.vertx.tftp.congestion.CongestionControl;
+import io.github.onemancrew.vertx.tftp.metrics.TftpMetrics;
+import io.github.onemancrew.vertx.tftp.pacing.BandwidthLimiter;
+import io.github.onemancrew.vertx.tftp.protocol.enums.TransferOption;
+import io.github.onemancrew.vertx.tftp.protocol.message.DataMessage;
+import io.github.onemancrew.vertx.tftp.protocol.transport.ImpairmentProfile;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TftpClientOptions.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Options used to configure a {@link TftpClient}.
+ */
+public class TftpClientOptions {
+	/**
+	 * Largest block that fits an Ethernet frame without IP fragmentation (1500 - 20 IP - 8 UDP - 4 TFTP).
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1468;
+
+	public static final int DEFAULT_WINDOW_SIZE = 1;
+	/**
+	 * Block numbers are 16 bits, a window must stay below half of them so an old duplicate is never taken for a
+	 * block ahead of the window.
+	 */
+	public static final int MAX_WINDOW_SIZE = 32767;
+	public static final int DEFAULT_READ_AHEAD_BLOCKS = 8;
+	public static final boolean DEFAULT_ATOMIC_DOWNLOAD = true;
+	public static final boolean DEFAULT_FSYNC_ON_COMPLETE = false;
+	/**
+	 * Retransmission timeout used until the first round trip time was measured, as in RFC 6298.
+	 */
+	public static final long DEFAULT_INITIAL_RETRANSMIT_TIMEOUT = 1000;
+	public static final long DEFAULT_MIN_RETRANSMIT_TIMEOUT = 100;
+	public static final long DEFAULT_MAX_RETRANSMIT_TIMEOUT = 10000;
+	public static final double DEFAULT_RETRANSMIT_JITTER = 0.1;
+	/**
+	 * The time the first releases gave up after, 4 sends 3 seconds apart.
+	 */
+	public static final long DEFAULT_IDLE_TIMEOUT = 12000;
+	/**
+	 * The retransmission timeout of common servers, e.g. tftpd-hpa.
+	 */
+	public static final long DEFAULT_PEER_RETRANSMIT_TIMEOUT = 1000;
+	public static final int DEFAULT_SOCKET_POOL_SIZE = 0;
+	public static final boolean DEFAULT_SHARDED = false;
+	public static final int DEFAULT_SHARD_COUNT = Runtime.getRuntime().availableProcessors();
+	public static final boolean DEFAULT_COALESCE_DOWNLOADS = false;
+	public static final long DEFAULT_PROGRESS_INTERVAL = 250;
+
+	private int m_blockSize;
+	private int m_windowSize;
+	private int m_readAheadBlocks;
+	private boolean m_atomicDownload;
+	private boolean m_fsyncOnComplete;
+	private long m_initialRetransmitTimeout;
+	private long m_minRetransmitTimeout;
+	private long m_maxRetransmitTimeout;
+	private double m_retransmitJitter;
+	private long m_idleTimeout;
+	private long m_peerRetransmitTimeout;
+	private int m_socketPoolSize;
+	private boolean m_sharded;
+	private int m_shardCount;
+	private boolean m_coalesceDownloads;
+	private long m_progressInterval;
+	private TftpMetrics m_metrics;
+	private ImpairmentProfile m_impairment;
+	private BandwidthLimiter m_bandwidthLimiter;
+	private CongestionControl m_congestionControl;
+	private ByteBufAllocator m_bufferAllocator;
+
+	public TftpClientOptions() {
+		m_blockSize = DEFAULT_BLOCK_SIZE;
+		m_windowSize = DEFAULT_WINDOW_SIZE;
+		m_readAheadBlocks = DEFAULT_READ_AHEAD_BLOCKS;
+		m_atomicDownload = DEFAULT_ATOMIC_DOWNLOAD;
+		m_fsyncOnComplete = DEFAULT_FSYNC_ON_COMPLETE;
+		m_initialRetransmitTimeout = DEFAULT_INITIAL_RETRANSMIT_TIMEOUT;
+		m_minRetransmitTimeout = DEFAULT_MIN_RETRANSMIT_TIMEOUT;
+		m_maxRetransmitTimeout = DEFAULT_MAX_RETRANSMIT_TIMEOUT;
+		m_retransmitJitter = DEFAULT_RETRANSMIT_JITTER;
+		m_idleTimeout = DEFAULT_IDLE_TIMEOUT;
+		m_peerRetransmitTimeout = DEFAULT_PEER_RETRANSMIT_TIMEOUT;
+		m_socketPoolSize = DEFAULT_SOCKET_POOL_SIZE;
+		m_sharded = DEFAULT_SHARDED;
+		m_shardCount = DEFAULT_SHARD_COUNT;
+		m_coalesceDownloads = DEFAULT_COALESCE_DOWNLOADS;
+		m_progressInterval = DEFAULT_PROGRESS_INTERVAL;
+		m_metrics = TftpMetrics.NONE;
+		m_congestionControl = CongestionControl.FIXED;
+		m_bufferAllocator = PooledByteBufAllocator.DEFAULT;
+	}
+
+	public TftpClientOptions(TftpClientOptions other) {
+		m_blockSize = other.m_blockSize;
+		m_windowSize = other.m_windowSize;
+		m_readAheadBlocks = other.m_readAheadBlocks;
+		m_atomicDownload = other.m_atomicDownload;
+		m_fsyncOnComplete = other.m_fsyncOnComplete;
+		m_initialRetransmitTimeout = other.m_initialRetransmitTimeout;
+		m_minRetransmitTimeout = other.m_minRetransmitTimeout;
+		m_maxRetransmitTimeout = other.m_maxRetransmitTimeout;
+		m_retransmitJitter = other.m_retransmitJitter;
+		m_idleTimeout = other.m_idleTimeout;
+		m_peerRetransmitTimeout = other.m_peerRetransmitTimeout;
+		m_socketPoolSize = other.m_socketPoolSize;
+		m_sharded = other.m_sharded;
+		m_shardCount = other.m_shardCount;
+		m_coalesceDownloads = other.m_coalesceDownloads;
+		m_progressInterval = other.m_progressInterval;
+		m_metrics = other.m_metrics;
+		m_impairment = other.m_impairment != null ? new ImpairmentProfile(other.m_impairment) : null;
+		m_bandwidthLimiter = other.m_bandwidthLimiter;
+		m_congestionControl = other.m_congestionControl;
+		m_bufferAllocator = other.m_bufferAllocator;
+	}
+
+	public int getBlockSize() {
+		return m_blockSize;
+	}
+
+	/**
+	 * Set the block size requested with the blksize option (RFC 2348).
+	 * The transfer falls back to 512 bytes blocks when the server ignores the option.
+	 * @param blockSize the block size, between 8 and 65464 bytes.
+	 */
+	public TftpClientOptions setBlockSize(int blockSize) {
+		if (!TransferOption.BLOCK_SIZE.isValid(blockSize))
+			throw new IllegalArgumentException("blockSize must be between " + TransferOption.BLOCK_SIZE.getMin()
+					+ " and " + DataMessage.MAX_BLOCK_SIZE);
+		m_blockSize = blockSize;
+		return this;
+	}
+
+	public int getWindowSize() {
+		return m_windowSize;
+	}
+
+	/**
+	 * Set the number of blocks sent before waiting for an ACK, requested with the windowsize option (RFC 7440).
+	 * A larger window keeps high latency links busy; the transfer falls back to lock-step (1) when the
+	 * server ignores the option.
+	 * The option allows 65535 blocks, the client asks for at most {@link #MAX_WINDOW_SIZE} because the 16 bits block
+	 * numbers only tell a block ahead from a block behind within half of their range.
+	 * @param windowSize the window size, between 1 and {@link #MAX_WINDOW_SIZE} blocks.
+	 */
+	public TftpClientOptions setWindowSize(int windowSize) {
+		if (windowSize < TransferOption.WINDOW_SIZE.getMin() || windowSize > MAX_WINDOW_SIZE)
+			throw new IllegalArgumentException("windowSize must be between " + TransferOption.WINDOW_SIZE.getMin()
+					+ " and " + MAX_WINDOW_SIZE);
+		m_windowSize = windowSize;
+		return this;
+	}
+
+	public int getReadAheadBlocks() {
+		return m_readAheadBlocks;
+	}
+
+	/**
+	 * Set the number of blocks an upload reads from the file before they are sent.
+	 * An upload holds at most window size + read ahead blocks in memory.
+	 * @param readAheadBlocks the number of blocks, 0 to read each block when it is sent.
+	 */
+	public TftpClientOptions setReadAheadBlocks(int readAheadBlocks) {
+		if (readAheadBlocks < 0)
+			throw new IllegalArgumentException("readAheadBlocks must be >= 0");
+		m_readAheadBlocks = readAheadBlocks;
+		return this;
+	}
+
+	public boolean isAtomicDownload() {
+		return m_atomicDownload;
+	}
+
+	/**
+	 * Write downloads to a temporary file in the destination folder, renamed to the file name once the download
+	 * completed. When disabled the blocks are written straight to the destination file.
+	 */
+	public TftpClientOptions setAtomicDownload(boolean atomicDownload) {
+		m_atomicDownload = atomicDownload;
+		return this;
+	}
+
+	public boolean isFsyncOnComplete() {
+		return m_fsyncOnComplete;
+	}
+
+	/**
+	 * Force a downloaded file to the storage device before the download completes.
+	 */
+	public TftpClientOptions setFsyncOnComplete(boolean fsyncOnComplete) {
+		m_fsyncOnComplete = fsyncOnComplete;
+		return this;
+	}
+
+	public long getInitialRetransmitTimeout() {
+		return m_initialRetransmitTimeout;
+	}
+
+	/**
+	 * Set the retransmission timeout used before the round trip time to the server was measured.
+	 * @param initialRetransmitTimeout the timeout in milliseconds.
+	 */
+	public TftpClientOptions setInitialRetransmitTimeout(long initialRetransmitTimeout) {
+		if (initialRetransmitTimeout <= 0)
+			throw new IllegalArgumentException("initialRetransmitTimeout must be > 0");
+		m_initialRetransmitTimeout = initialRetransmitTimeout;
+		return this;
+	}
+
+	public long getMinRetransmitTimeout() {
+		return m_minRetransmitTimeout;
+	}
+
+	/**
+	 * Set the lower bound of the retransmission timeout computed from the round trip time.
+	 * @param minRetransmitTimeout the timeout in milliseconds.
+	 */
+	public TftpClientOptions setMinRetransmitTimeout(long minRetransmitTimeout) {
+		if (minRetransmitTimeout <= 0)
+			throw new IllegalArgumentException("minRetransmitTimeout must be > 0");
+		m_minRetransmitTimeout = minRetransmitTimeout;
+		return this;
+	}
+
+	public long getMaxRetransmitTimeout() {
+		return m_maxRetransmitTimeout;
+	}
+
+	/**
+	 * Set the upper bound of the retransmission timeout, including the exponential backoff after a timeout.
+	 * @param maxRetransmitTimeout the timeout in milliseconds.
+	 */
+	public TftpClientOptions setMaxRetransmitTimeout(long maxRetransmitTimeout) {
+		if (maxRetransmitTimeout <= 0)
+			throw new IllegalArgumentException("maxRetransmitTimeout must be > 0");
+		m_maxRetransmitTimeout = maxRetransmitTimeout;
+		return this;
+	}
+
+	public long getIdleTimeout() {
+		return m_idleTimeout;
+	}
+
+	/**
+	 * Set how long a transfer waits for the server before it fails with a
+	 * {@link io.github.onemancrew.vertx.tftp.protocol.exception.TimeoutException}, the last packet is retransmitted
+	 * meanwhile with the backoff of the retransmission timeout. Independent of the measured round trip time, so a
+	 * short outage of a fast link is survived like on a slow one.
+	 * @param idleTimeout the time without an answer in milliseconds.
+	 */
+	public TftpClientOptions setIdleTimeout(long idleTimeout) {
+		if (idleTimeout <= 0)
+			throw new IllegalArgumentException("idleTimeout must be > 0");
+		m_idleTimeout = idleTimeout;
+		return this;
+	}
+
+	public long getPeerRetransmitTimeout() {
+		return m_peerRetransmitTimeout;
+	}
+
+	/**
+	 * Set how long the server waits for the next packet before it sends its last packet again. A congestion window
+	 * smaller than the negotiated window pauses the transfer between windows, the pause is kept below half of this
+	 * timeout so the server does not retransmit; on a link with a long round trip time the effective window is then
+	 * larger than the congestion window.
+	 * @param peerRetransmitTimeout the timeout of the server in milliseconds.
+	 */
+	public TftpClientOptions setPeerRetransmitTimeout(long peerRetransmitTimeout) {
+		if (peerRetransmitTimeout <= 0)
+			throw new IllegalArgumentException("peerRetransmitTimeout must be > 0");
+		m_peerRetransmitTimeout = peerRetransmitTimeout;
+		return this;
+	}
+
+	public double getRetransmitJitter() {
+		return m_retransmitJitter;
+	}
+
+	/**
+	 * Set the random part added to each retransmission timeout, so that transfers that lost packets at the same
+	 * time do not retransmit in lock-step.
+	 * @param retransmitJitter the fraction of the timeout, between 0 and 1.
+	 */
+	public TftpClientOptions setRetransmitJitter(double retransmitJitter) {
+		if (retransmitJitter < 0 || retransmitJitter > 1)
+			throw new IllegalArgumentException("retransmitJitter must be between 0 and 1");
+		m_retransmitJitter = retransmitJitter;
+		return this;
+	}
+
+	public int getSocketPoolSize() {
+		return m_socketPoolSize;
+	}
+
+	/**
+	 * Share a few sockets per event loop between the transfers instead of binding a socket for each transfer.
+	 * Packets are dispatched to the transfers by the address and port of the server; the sockets stay bound until
+	 * {@link TftpClient#close(io.vertx.core.Handler)} is called.
+	 * @param socketPoolSize the number of sockets of each event loop, 0 to bind a socket for each transfer.
+	 */
+	public TftpClientOptions setSocketPoolSize(int socketPoolSize) {
+		if (socketPoolSize < 0)
+			throw new IllegalArgumentException("socketPoolSize must be >= 0");
+		m_socketPoolSize = socketPoolSize;
+		return this;
+	}
+
+	public boolean isSharded() {
+		return m_sharded;
+	}
+
+	/**
+	 * Spread the file transfers of the client over a few verticles, each pinned to its own event loop, instead of
+	 * running them on the context of the caller. The completion and progress handlers are still called on the context
+	 * of the caller.
+	 * Stream transfers always run on the context of the caller, which owns the stream.
+	 * @param sharded true to run the transfers on {@link #getShardCount()} verticles.
+	 */
+	public TftpClientOptions setSharded(boolean sharded) {
+		m_sharded = sharded;
+		return this;
+	}
+
+	public int getShardCount() {
+		return m_shardCount;
+	}
+
+	/**
+	 * Set the number of verticles the transfers are spread over when {@link #setSharded(boolean)} is set.
+	 * @param shardCount the number of verticles, one per core by default.
+	 */
+	public TftpClientOptions setShardCount(int shardCount) {
+		if (shardCount < 1)
+			throw new IllegalArgumentException("shardCount must be >= 1");
+		m_shardCount = shardCount;
+		return this;
+	}
+
+	public boolean isCoalesceDownloads() {
+		return m_coalesceDownloads;
+	}
+
+	/**
+	 * Download a file once for all the downloads of it asked for while it is in flight.
+	 * The file is spooled to a temporary file and copied to every destination; streams get the blocks as they
+	 * arrive when they joined before the first block on the context of the first download, a slow stream then
+	 * throttles all of them. Coalesced downloads are not spread over shards.
+	 */
+	public TftpClientOptions setCoalesceDownloads(boolean coalesceDownloads) {
+		m_coalesceDownloads = coalesceDownloads;
+		return this;
+	}
+
+	public long getProgressInterval() {
+		return m_progressInterval;
+	}
+
+	/**
+	 * Set the minimum time between two progress events of a transfer, the last event is always reported.
+	 * @param progressInterval the interval in milliseconds, 0 to report every block.
+	 */
+	public TftpClientOptions setProgressInterval(long progressInterval) {
+		if (progressInterval < 0)
+			throw new IllegalArgumentException("progressInterval must be >= 0");
+		m_progressInterval = progressInterval;
+		return this;
+	}
+
+	public TftpMetrics getMetrics() {
+		return m_metrics;
+	}
+
+	/**
+	 * Set the metrics the transfers report to, e.g. a {@link io.github.onemancrew.vertx.tftp.metrics.SimpleTftpMetrics}
+	 * shared by all clients. Nothing is recorded by default.
+	 */
+	public TftpClientOptions setMetrics(TftpMetrics metrics) {
+		if (metrics == null)
+			throw new IllegalArgumentException("metrics must not be null, use TftpMetrics.NONE");
+		m_metrics = metrics;
+		return this;
+	}
+
+	public CongestionControl getCongestionControl() {
+		return m_congestionControl;
+	}
+
+	/**
+	 * Set how windowed transfers adapt their rate to losses and delay, e.g. an
+	 * {@link io.github.onemancrew.vertx.tftp.congestion.AimdCongestionControl}.
+	 * The negotiated window is always used by default.
+	 */
+	public TftpClientOptions setCongestionControl(CongestionControl congestionControl) {
+		if (congestionControl == null)
+			throw new IllegalArgumentException("congestionControl must not be null, use CongestionControl.FIXED");
+		m_congestionControl = congestionControl;
+		return this;
+	}
+
+	public ByteBufAllocator getBufferAllocator() {
+		return m_bufferAllocator;
+	}
+
+	/**
+	 * Set the allocator of the encoded packets, each packet is allocated as a direct buffer and released once it was
+	 * sent and no longer needed for a retransmission. The pooled allocator of Netty is used by default.
+	 */
+	public TftpClientOptions setBufferAllocator(ByteBufAllocator bufferAllocator) {
+		if (bufferAllocator == null)
+			throw new IllegalArgumentException("bufferAllocator must not be null");
+		m_bufferAllocator = bufferAllocator;
+		return this;
+	}
+
+	public BandwidthLimiter getBandwidthLimiter() {
+		return m_bandwidthLimiter;
+	}
+
+	/**
+	 * Pace the blocks of the uploads with the token buckets of a limiter, shared by the clients that should stay
+	 * together under its global rate.
+	 * @param bandwidthLimiter the limiter, null to send blocks as fast as the window allows (the default).
+	 */
+	public TftpClientOptions setBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+		m_bandwidthLimiter = bandwidthLimiter;
+		return this;
+	}
+
+	public ImpairmentProfile getImpairment() {
+		return m_impairment;
+	}
+
+	/**
+	 * Simulate a bad link under the transfers with an {@link io.github.onemancrew.vertx.tftp.protocol.transport.ImpairedTransport},
+	 * for tests and benchmarks on loopback.
+	 * @param impairment the link conditions, null for none (the default).
+	 */
+	public TftpClientOptions setImpairment(ImpairmentProfile impairment) {
+		m_impairment = impairment;
+		return this;
+	}
+}
@@ -0,0 +1,284 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.github.onemancrew.vertx.tftp.protocol.DownloadRace;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TftpError;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TimeoutException;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TransferCancelledException;
+import io.github.onemancrew.vertx.tftp.protocol.transport.Transport;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.net.SocketAddress;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TftpServerPool.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * A client of several mirrored TFTP servers.
+ * Each transfer goes to the healthy server with the lowest expected cost, see {@link ServerHealth}. When the server
+ * times out or answers with an error the transfer is started again on the next server, until every server was tried.
+ * With a {@link HedgingPolicy} a download whose first block is late is requested from a second server as well, the
+ * server that sends a block first keeps the download.
+ */
+public class TftpServerPool {
+	private static Logger log = LoggerFactory.getLogger(TftpServerPool.class);
+	private final Vertx m_vertx;
+	private final TftpClientOptions m_options;
+	private final List<ServerHealth> m_servers = new ArrayList<>();
+	private volatile HedgingPolicy m_hedging;
+	private final Transport m_transport;
+	private final TransferShards m_shards;
+
+	/**
+	 * Create a client of the servers.
+	 * @param vertx the vertx instance to use for creating connections.
+	 * @param servers the address and port of every server, they all serve the same files.
+	 * @param options the options used to negotiate the transfers.
+	 */
+	public TftpServerPool(Vertx vertx, List<SocketAddress> servers, TftpClientOptions options) {
+		if (servers.isEmpty())
+			throw new IllegalArgumentException("servers must not be empty");
+		m_vertx = vertx;
+		m_options = new TftpClientOptions(options);
+		m_transport = TftpClient.createTransport(vertx, m_options);
+		m_shards = TftpClient.createShards(vertx, m_options);
+		for (SocketAddress server : servers)
+			m_servers.add(new ServerHealth(server,
+					new TftpClient(vertx, server.host(), server.port(), m_options, m_transport, m_shards)));
+	}
+
+	/**
+	 * Hedge the downloads to files whose first block is late. Only downloads written to a temporary file are hedged,
+	 * see {@link TftpClientOptions#setAtomicDownload(boolean)}, so both downloads can write at the same time.
+	 * @param hedging the policy, null to wait for the first server until it times out.
+	 */
+	public TftpServerPool setHedgingPolicy(HedgingPolicy hedging) {
+		m_hedging = hedging;
+		return this;
+	}
+
+	/**
+	 * Perform upload of the file.
+	 * @see TftpClient#upload(String, Handler, Handler)
+	 */
+	public void upload(String filePath, Handler<Progress> progress, Handler<AsyncResult<Void>> handler) {
+		upload(filePath, Paths.get(filePath).getFileName().toString(), progress, handler);
+	}
+
+	/**
+	 * Perform upload of the file under another name.
+	 * @see TftpClient#upload(String, String, Handler, Handler)
+	 */
+	public void upload(String filePath, String remoteName, Handler<Progress> progress, Handler<AsyncResult<Void>> handler) {
+		transfer((client, done) -> client.upload(filePath, remoteName, progress, done), new ArrayList<>(), handler);
+	}
+
+	/**
+	 * Perform Download of file.
+	 * @see TftpClient#download(String, String, Handler)
+	 */
+	public void download(String fileName, String dstFolder, Handler<AsyncResult<Void>> handler) {
+		downloadFile(fileName, dstFolder + File.separator + fileName, handler);
+	}
+
+	/**
+	 * Perform Download of a file to a local path.
+	 * @see TftpClient#downloadFile(String, String, Handler)
+	 */
+	public void downloadFile(String remoteName, String filePath, Handler<AsyncResult<Void>> handler) {
+		HedgingPolicy hedging = m_hedging;
+		if (hedging == null || !m_options.isAtomicDownload() || m_servers.size() == 1) {
+			transfer((client, done) -> client.downloadFile(remoteName, filePath, done), new ArrayList<>(), handler);
+			return;
+		}
+		// the downloads of the race, their results and the hedge timer all run on one context
+		Context context = m_vertx.getOrCreateContext();
+		context.runOnContext(v -> new HedgedDownload(remoteName, filePath, hedging, new ArrayList<>(), handler).start());
+	}
+
+	/**
+	 * Close the shared sockets and shards of the servers.
+	 * @see TftpClient#close(Handler)
+	 */
+	public void close(Handler<AsyncResult<Void>> handler) {
+		TftpClient.close(m_transport, m_shards, handler);
+	}
+
+	private void transfer(BiConsumer<TftpClient, Handler<AsyncResult<Void>>> transfer, List<ServerHealth> tried,
+						  Handler<AsyncResult<Void>> handler) {
+		ServerHealth server = select(tried);
+		tried.add(server);
+		transfer.accept(server.getClient(), result -> {
+			server.completed(result.failed() && isUnreachable(result.cause()), System.currentTimeMillis());
+			if (result.failed() && isServerFailure(result.cause()) && tried.size() < m_servers.size()) {
+				log.info("transfer failed on " + server.getAddress() + " (" + result.cause() + "), fail over");
+				transfer(transfer, tried, handler);
+			} else {
+				handler.handle(result);
+			}
+		});
+	}
+
+	/**
+	 * Pick the healthy server with the lowest cost that was not tried yet, or the one that leaves quarantine first
+	 * when none of them is healthy.
+	 */
+	private synchronized ServerHealth select(List<ServerHealth> tried) {
+		long now = System.currentTimeMillis();
+		ServerHealth best = null;
+		ServerHealth recovering = null;
+		for (ServerHealth server : m_servers) {
+			if (tried.contains(server))
+				continue;
+			if (!server.isHealthy(now)) {
+				if (recovering == null || server.getQuarantinedUntil() < recovering.getQuarantinedUntil())
+					recovering = server;
+			} else if (best == null || server.cost() < best.cost()) {
+				best = server;
+			}
+		}
+		ServerHealth selected = best != null ? best : recovering;
+		selected.started();
+		return selected;
+	}
+
+	/**
+	 * @return true if another server may succeed where this one failed: the server did not answer or answered with
+	 * an error, e.g. a mirror missing the file. Local errors, e.g. a missing file to upload, fail on every server.
+	 */
+	private static boolean isServerFailure(Throwable cause) {
+		return isUnreachable(cause) || cause instanceof TftpError;
+	}
+
+	/**
+	 * @return true if the server did not answer, only this counts against its health; an error answered by the
+	 * server is about the file.
+	 */
+	private static boolean isUnreachable(Throwable cause) {
+		return cause instanceof TimeoutException || cause instanceof IOException;
+	}
+
+	/**
+	 * A download that is requested from another server when its first block is late.
+	 */
+	private class HedgedDownload {
+		private final String m_remoteName;
+		private final String m_filePath;
+		private final HedgingPolicy m_hedging;
+		private final List<ServerHealth> m_tried;
+		private final Handler<AsyncResult<Void>> m_handler;
+		private final DownloadRace m_race = new DownloadRace();
+		private int m_running;
+		private boolean m_hedged;
+		private boolean m_done;
+		private Throwable m_failure;
+		private long m_timerId;
+
+		HedgedDownload(String remoteName, String filePath, HedgingPolicy hedging, List<ServerHealth> tried,
+					   Handler<AsyncResult<Void>> handler) {
+			m_remoteName = remoteName;
+			m_filePath = filePath;
+			m_hedging = hedging;
+			m_tried = tried;
+			m_handler = handler;
+		}
+
+		void start() {
+			request();
+			if (m_tried.size() < m_servers.size())
+				m_timerId = m_vertx.setTimer(Math.max(m_hedging.getDelayMs(), 1), id -> hedge());
+		}
+
+		private void hedge() {
+			if (m_done || m_running == 0 || m_race.isDecided() || m_tried.size() == m_servers.size())
+				return;
+			log.info("first block of " + m_remoteName + " is late, request it from another server");
+			m_hedged = true;
+			request();
+		}
+
+		private void request() {
+			ServerHealth server = select(m_tried);
+			m_tried.add(server);
+			m_running++;
+			server.getClient().downloadUncached(m_remoteName, m_filePath, m_race, result -> completed(server, result));
+		}
+
+		private void completed(ServerHealth server, AsyncResult<Void> result) {
+			m_running--;
+			if (result.failed() && result.cause() instanceof TransferCancelledException) {
+				server.cancelled();
+			} else {
+				server.completed(result.failed() && isUnreachable(result.cause()), System.currentTimeMillis());
+				if (result.failed())
+					m_failure = result.cause();
+			}
+			if (m_done)
+				return;
+			if (result.succeeded()) {
+				m_done = true;
+				m_vertx.cancelTimer(m_timerId);
+				// a hedged race measures the fastest of two servers, it would pull the percentile down
+				if (!m_hedged)
+					m_hedging.record(m_race.getFirstBlockMs());
+				m_handler.handle(result);
+				return;
+			}
+			if (m_running > 0)
+				return;
+			m_done = true;
+			m_vertx.cancelTimer(m_timerId);
+			if (isServerFailure(m_failure) && m_tried.size() < m_servers.size()) {
+				log.info("download of " + m_remoteName + " failed (" + m_failure + "), fail over");
+				new HedgedDownload(m_remoteName, m_filePath, m_hedging, m_tried, m_handler).start();
+			} else {
+				m_handler.handle(Future.failedFuture(m_failure));
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return m_servers.toString();
+	}
+}
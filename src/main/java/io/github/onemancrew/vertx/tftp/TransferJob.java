@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TransferJob.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * A file to upload to or download from a server, run by {@link TftpBatch}.
+ */
+public class TransferJob {
+	public enum Direction {
+		UPLOAD,
+		DOWNLOAD
+	}
+
+	private final String m_host;
+	private final int m_port;
+	private final String m_remoteName;
+	private final String m_localPath;
+	private final Direction m_direction;
+
+	public TransferJob(String host, int port, String remoteName, String localPath, Direction direction) {
+		m_host = host;
+		m_port = port;
+		m_remoteName = remoteName;
+		m_localPath = localPath;
+		m_direction = direction;
+	}
+
+	public static TransferJob upload(String host, int port, String localPath, String remoteName) {
+		return new TransferJob(host, port, remoteName, localPath, Direction.UPLOAD);
+	}
+
+	public static TransferJob download(String host, int port, String remoteName, String localPath) {
+		return new TransferJob(host, port, remoteName, localPath, Direction.DOWNLOAD);
+	}
+
+	public String getHost() {
+		return m_host;
+	}
+
+	public int getPort() {
+		return m_port;
+	}
+
+	public String getRemoteName() {
+		return m_remoteName;
+	}
+
+	public String getLocalPath() {
+		return m_localPath;
+	}
+
+	public Direction getDirection() {
+		return m_direction;
+	}
+
+	/**
+	 * @return host:port of the server, the key of the per server concurrency limit.
+	 */
+	public String getServer() {
+		return m_host + ":" + m_port;
+	}
+
+	@Override
+	public String toString() {
+		return m_direction + " " + m_remoteName + " " + getServer() + " " + m_localPath;
+	}
+}
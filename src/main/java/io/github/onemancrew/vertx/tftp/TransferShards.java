@@ -0,0 +1,204 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TransferShards.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Spreads transfers over verticles deployed on different event loops.
+ * A transfer runs entirely on the context of the verticle it is given to, the least loaded one with ties broken
+ * round robin, and its result is handed back on the context of the caller. The verticles are deployed with the
+ * first transfer. Once closed, transfers are refused.
+ */
+class TransferShards {
+	private final Vertx m_vertx;
+	private final int m_count;
+	private final AtomicIntegerArray m_active;
+	private final AtomicInteger m_next = new AtomicInteger();
+	private final List<Handler<AsyncResult<Void>>> m_waiting = new ArrayList<>();
+	private volatile Context[] m_contexts;
+	private boolean m_deploying;
+	private volatile boolean m_closed;
+	private String m_deploymentId;
+
+	TransferShards(Vertx vertx, int count) {
+		m_vertx = vertx;
+		m_count = count;
+		m_active = new AtomicIntegerArray(count);
+	}
+
+	/**
+	 * Run a transfer on one of the shards.
+	 * @param transfer starts the transfer on the context of the shard and calls the given handler when it completes.
+	 * @param handler called with the result of the transfer on the context of the caller.
+	 */
+	void run(Handler<Handler<AsyncResult<Void>>> transfer, Handler<AsyncResult<Void>> handler) {
+		Context caller = m_vertx.getOrCreateContext();
+		if (m_closed) {
+			caller.runOnContext(v -> handler.handle(Future.failedFuture(new IllegalStateException("closed"))));
+			return;
+		}
+		deployed(deployed -> {
+			if (deployed.failed()) {
+				caller.runOnContext(v -> handler.handle(Future.failedFuture(deployed.cause())));
+				return;
+			}
+			Context[] contexts = m_contexts;
+			if (contexts == null) {
+				caller.runOnContext(v -> handler.handle(Future.failedFuture(new IllegalStateException("closed"))));
+				return;
+			}
+			int shard = pick();
+			m_active.incrementAndGet(shard);
+			contexts[shard].runOnContext(v -> transfer.handle(result -> {
+				m_active.decrementAndGet(shard);
+				caller.runOnContext(v2 -> handler.handle(result));
+			}));
+		});
+	}
+
+	/**
+	 * @return the number of transfers running on each shard.
+	 */
+	int[] getActiveTransfers() {
+		int[] active = new int[m_count];
+		for (int i = 0; i < m_count; i++)
+			active[i] = m_active.get(i);
+		return active;
+	}
+
+	private int pick() {
+		int start = Math.floorMod(m_next.getAndIncrement(), m_count);
+		int best = start;
+		for (int i = 1; i < m_count; i++) {
+			int shard = (start + i) % m_count;
+			if (m_active.get(shard) < m_active.get(best))
+				best = shard;
+		}
+		return best;
+	}
+
+	private void deployed(Handler<AsyncResult<Void>> handler) {
+		if (m_contexts != null) {
+			handler.handle(Future.succeededFuture());
+			return;
+		}
+		synchronized (this) {
+			if (m_contexts == null) {
+				m_waiting.add(handler);
+				if (!m_deploying) {
+					m_deploying = true;
+					deploy();
+				}
+				return;
+			}
+		}
+		handler.handle(Future.succeededFuture());
+	}
+
+	private void deploy() {
+		List<Context> contexts = new ArrayList<>();
+		DeploymentOptions options = new DeploymentOptions().setInstances(m_count);
+		m_vertx.deployVerticle(() -> new ShardVerticle(contexts), options, result -> {
+			List<Handler<AsyncResult<Void>>> waiting;
+			boolean closed;
+			synchronized (this) {
+				m_deploying = false;
+				closed = m_closed;
+				if (result.succeeded() && !closed) {
+					m_deploymentId = result.result();
+					synchronized (contexts) {
+						m_contexts = contexts.toArray(new Context[0]);
+					}
+				}
+				waiting = new ArrayList<>(m_waiting);
+				m_waiting.clear();
+			}
+			AsyncResult<Void> deployed = result.succeeded() ? Future.succeededFuture() : Future.failedFuture(result.cause());
+			if (closed && result.succeeded()) {
+				// closed while deploying, the verticles are not used
+				m_vertx.undeploy(result.result(), undeployed -> {});
+				deployed = Future.failedFuture(new IllegalStateException("closed"));
+			}
+			AsyncResult<Void> done = deployed;
+			waiting.forEach(handler -> handler.handle(done));
+		});
+	}
+
+	/**
+	 * Undeploy the verticles, transfers still running on them are stopped with them and later ones fail.
+	 * @param handler called once the verticles are undeployed.
+	 */
+	void close(Handler<AsyncResult<Void>> handler) {
+		String deploymentId;
+		synchronized (this) {
+			m_closed = true;
+			deploymentId = m_deploymentId;
+			m_deploymentId = null;
+			m_contexts = null;
+		}
+		if (deploymentId == null)
+			handler.handle(Future.succeededFuture());
+		else
+			m_vertx.undeploy(deploymentId, handler);
+	}
+
+	/**
+	 * Only pins an event loop context, the transfers are started on it by {@link TransferShards}.
+	 */
+	private static class ShardVerticle extends AbstractVerticle {
+		private final List<Context> m_contexts;
+
+		ShardVerticle(List<Context> contexts) {
+			m_contexts = contexts;
+		}
+
+		@Override
+		public void start() {
+			synchronized (m_contexts) {
+				m_contexts.add(context);
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TransferStatistics.java
+ * Package: io.github.onemancrew.vertx.tftp
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Snapshot of the round trip time estimation and retransmissions of a transfer.
+ */
+public class TransferStatistics {
+	private final double m_smoothedRtt;
+	private final double m_rttVariance;
+	private final long m_retransmitTimeout;
+	private final long m_rttSamples;
+	private final long m_timeouts;
+	private final long m_retransmittedPackets;
+	private final long m_duplicateBlocks;
+	private final long m_duplicateAcks;
+	private final long m_reAcks;
+	private final long m_suppressedDuplicates;
+
+	public TransferStatistics(double smoothedRtt, double rttVariance, long retransmitTimeout, long rttSamples,
+							  long timeouts, long retransmittedPackets, long duplicateBlocks, long duplicateAcks,
+							  long reAcks, long suppressedDuplicates) {
+		m_smoothedRtt = smoothedRtt;
+		m_rttVariance = rttVariance;
+		m_retransmitTimeout = retransmitTimeout;
+		m_rttSamples = rttSamples;
+		m_timeouts = timeouts;
+		m_retransmittedPackets = retransmittedPackets;
+		m_duplicateBlocks = duplicateBlocks;
+		m_duplicateAcks = duplicateAcks;
+		m_reAcks = reAcks;
+		m_suppressedDuplicates = suppressedDuplicates;
+	}
+
+	/**
+	 * @return the smoothed round trip time (SRTT) in milliseconds, 0 before the first sample.
+	 */
+	public double getSmoothedRtt() {
+		return m_smoothedRtt;
+	}
+
+	/**
+	 * @return the round trip time variation (RTTVAR) in milliseconds.
+	 */
+	public double getRttVariance() {
+		return m_rttVariance;
+	}
+
+	/**
+	 * @return the current retransmission timeout (RTO) in milliseconds, before jitter.
+	 */
+	public long getRetransmitTimeout() {
+		return m_retransmitTimeout;
+	}
+
+	public long getRttSamples() {
+		return m_rttSamples;
+	}
+
+	/**
+	 * @return how many times the retransmission timeout expired.
+	 */
+	public long getTimeouts() {
+		return m_timeouts;
+	}
+
+	/**
+	 * @return how many packets were sent again, after a timeout or a gap reported by the other side.
+	 */
+	public long getRetransmittedPackets() {
+		return m_retransmittedPackets;
+	}
+
+	/**
+	 * @return how many DATA blocks were received more than once, by a download.
+	 */
+	public long getDuplicateBlocks() {
+		return m_duplicateBlocks;
+	}
+
+	/**
+	 * @return how many ACKs acknowledged no new block, for an upload.
+	 */
+	public long getDuplicateAcks() {
+		return m_duplicateAcks;
+	}
+
+	/**
+	 * @return how many ACKs a download sent again because the server sent a block again.
+	 */
+	public long getReAcks() {
+		return m_reAcks;
+	}
+
+	/**
+	 * @return how many duplicates were not answered, to keep one loss from multiplying the packets of both sides.
+	 */
+	public long getSuppressedDuplicates() {
+		return m_suppressedDuplicates;
+	}
+
+	@Override
+	public String toString() {
+		return "TransferStatistics{srtt=" + m_smoothedRtt + "ms, rttvar=" + m_rttVariance + "ms, rto="
+				+ m_retransmitTimeout + "ms, samples=" + m_rttSamples + ", timeouts=" + m_timeouts
+				+ ", retransmitted=" + m_retransmittedPackets + ", duplicateBlocks=" + m_duplicateBlocks
+				+ ", duplicateAcks=" + m_duplicateAcks + ", reAcks=" + m_reAcks + ", suppressed="
+				+ m_suppressedDuplicates + "}";
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.congestion;
+
+/**
+ * Project: vertx-tftp-client
+ * File: AimdCongestionControl.java
+ * Package: io.github.onemancrew.vertx.tftp.congestion
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Additive increase, multiplicative decrease in the manner of TCP Reno (RFC 5681): the window starts small, doubles
+ * every round trip until the first loss, then grows by one block per window of clean acknowledgements. A gap shrinks it
+ * by the decrease factor, a timeout restarts it from one block.
+ * With a delay threshold the window also shrinks when the round trip time rises that far above the lowest one seen,
+ * before the queue of the bottleneck overflows.
+ */
+public class AimdCongestionControl implements CongestionControl {
+	public static final int DEFAULT_INITIAL_WINDOW = 2;
+	public static final double DEFAULT_DECREASE_FACTOR = 0.5;
+
+	private volatile int m_initialWindow = DEFAULT_INITIAL_WINDOW;
+	private volatile double m_decreaseFactor = DEFAULT_DECREASE_FACTOR;
+	private volatile double m_delayThreshold;
+
+	public int getInitialWindow() {
+		return m_initialWindow;
+	}
+
+	public AimdCongestionControl setInitialWindow(int initialWindow) {
+		if (initialWindow < 1)
+			throw new IllegalArgumentException("initialWindow must be >= 1");
+		m_initialWindow = initialWindow;
+		return this;
+	}
+
+	public double getDecreaseFactor() {
+		return m_decreaseFactor;
+	}
+
+	/**
+	 * Set the factor the window is multiplied by on a loss.
+	 */
+	public AimdCongestionControl setDecreaseFactor(double decreaseFactor) {
+		if (!(decreaseFactor > 0 && decreaseFactor < 1))
+			throw new IllegalArgumentException("decreaseFactor must be between 0 and 1");
+		m_decreaseFactor = decreaseFactor;
+		return this;
+	}
+
+	public double getDelayThreshold() {
+		return m_delayThreshold;
+	}
+
+	/**
+	 * Shrink the window when the smoothed round trip time exceeds the lowest one by this fraction, e.g. 0.5.
+	 * @param delayThreshold the fraction, 0 to only react to losses (the default).
+	 */
+	public AimdCongestionControl setDelayThreshold(double delayThreshold) {
+		if (delayThreshold < 0)
+			throw new IllegalArgumentException("delayThreshold must not be negative");
+		m_delayThreshold = delayThreshold;
+		return this;
+	}
+
+	@Override
+	public CongestionWindow newWindow(int maxWindow) {
+		return new AimdWindow(maxWindow, Math.min(m_initialWindow, maxWindow), m_decreaseFactor, m_delayThreshold);
+	}
+
+	private static class AimdWindow implements CongestionWindow {
+		private final int m_maxWindow;
+		private final double m_decreaseFactor;
+		private final double m_delayThreshold;
+		private double m_window;
+		private double m_slowStartThreshold;
+		private long m_minRttNanos = Long.MAX_VALUE;
+		private double m_smoothedRttNanos;
+		/**
+		 * Blocks acknowledged since the last decrease, the window is not decreased twice in one round trip.
+		 */
+		private double m_ackedSinceDecrease;
+
+		AimdWindow(int maxWindow, int initialWindow, double decreaseFactor, double delayThreshold) {
+			m_maxWindow = maxWindow;
+			m_decreaseFactor = decreaseFactor;
+			m_delayThreshold = delayThreshold;
+			m_window = initialWindow;
+			m_slowStartThreshold = maxWindow;
+			m_ackedSinceDecrease = initialWindow;
+		}
+
+		@Override
+		public double getWindow() {
+			return m_window;
+		}
+
+		@Override
+		public void onAcked(int blocks, long rttNanos) {
+			m_ackedSinceDecrease += blocks;
+			if (rttNanos > 0) {
+				m_minRttNanos = Math.min(m_minRttNanos, rttNanos);
+				m_smoothedRttNanos = m_smoothedRttNanos == 0 ? rttNanos
+						: m_smoothedRttNanos + (rttNanos - m_smoothedRttNanos) / 8;
+				if (m_delayThreshold > 0 && m_smoothedRttNanos > m_minRttNanos * (1 + m_delayThreshold)) {
+					decrease();
+					return;
+				}
+			}
+			if (m_window < m_slowStartThreshold)
+				m_window += blocks;
+			else
+				m_window += blocks / m_window;
+			m_window = Math.min(m_window, m_maxWindow);
+		}
+
+		@Override
+		public void onLoss() {
+			decrease();
+		}
+
+		@Override
+		public void onTimeout() {
+			m_slowStartThreshold = Math.max(m_window * m_decreaseFactor, 1);
+			m_window = 1;
+			m_ackedSinceDecrease = 0;
+		}
+
+		private void decrease() {
+			if (m_ackedSinceDecrease < m_window)
+				return;
+			m_slowStartThreshold = Math.max(m_window * m_decreaseFactor, 1);
+			m_window = m_slowStartThreshold;
+			m_ackedSinceDecrease = 0;
+		}
+	}
+}
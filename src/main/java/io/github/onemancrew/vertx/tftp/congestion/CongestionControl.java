@@ -0,0 +1,52 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.congestion;
+
+/**
+ * Project: vertx-tftp-client
+ * File: CongestionControl.java
+ * Package: io.github.onemancrew.vertx.tftp.congestion
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Creates the {@link CongestionWindow} of each windowed transfer, set with
+ * {@link io.github.onemancrew.vertx.tftp.TftpClientOptions#setCongestionControl(CongestionControl)}.
+ * Implementations are shared by all the transfers of the clients and must be thread safe, the windows they create
+ * are only used from the context of their transfer.
+ */
+public interface CongestionControl {
+	/**
+	 * Always use the negotiated window, the default.
+	 */
+	CongestionControl FIXED = FixedWindow::new;
+
+	/**
+	 * @param maxWindow the window negotiated with the server (RFC 7440), 1 for lock-step transfers.
+	 */
+	CongestionWindow newWindow(int maxWindow);
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.congestion;
+
+/**
+ * Project: vertx-tftp-client
+ * File: CongestionWindow.java
+ * Package: io.github.onemancrew.vertx.tftp.congestion
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * The congestion state of one transfer. RFC 7440 receivers acknowledge once per negotiated window, so a window
+ * smaller than the negotiated one is applied as a pause between windows that gives the same rate as
+ * {@link #getWindow()} blocks per round trip.
+ */
+public interface CongestionWindow {
+	/**
+	 * @return the effective window in blocks, between 1 and the negotiated window.
+	 */
+	double getWindow();
+
+	/**
+	 * Blocks were acknowledged without a loss.
+	 * @param blocks the number of blocks.
+	 * @param rttNanos the round trip time measured with the acknowledgement, -1 if it was not measured.
+	 */
+	void onAcked(int blocks, long rttNanos);
+
+	/**
+	 * The other side reported a gap in a window, the missing blocks are sent again at once.
+	 */
+	void onLoss();
+
+	/**
+	 * Nothing was received before the retransmission timeout.
+	 */
+	void onTimeout();
+}
@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.digest;
+
+import java.util.zip.Checksum;
+
+/**
+ * Project: vertx-tftp-client
+ * File: Crc32c.java
+ * Package: io.github.onemancrew.vertx.tftp.digest
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * CRC-32C (Castagnoli, RFC 3720) computed 8 bytes at a time with sliced tables.
+ * java.util.zip.CRC32C is used instead when the runtime has it (Java 9 and later).
+ */
+final class Crc32c implements Checksum {
+	private static final int POLYNOMIAL = 0x82F63B78;
+	private static final int[][] TABLES = new int[8][256];
+
+	static {
+		for (int n = 0; n < 256; n++) {
+			int crc = n;
+			for (int k = 0; k < 8; k++)
+				crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+			TABLES[0][n] = crc;
+		}
+		for (int n = 0; n < 256; n++)
+			for (int t = 1; t < 8; t++)
+				TABLES[t][n] = (TABLES[t - 1][n] >>> 8) ^ TABLES[0][TABLES[t - 1][n] & 0xff];
+	}
+
+	private int m_crc = 0xffffffff;
+
+	/**
+	 * @return the CRC-32C of the runtime when there is one, else this implementation.
+	 */
+	static Checksum create() {
+		try {
+			return (Checksum) Class.forName("java.util.zip.CRC32C").getConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new Crc32c();
+		}
+	}
+
+	@Override
+	public void update(int b) {
+		m_crc = (m_crc >>> 8) ^ TABLES[0][(m_crc ^ b) & 0xff];
+	}
+
+	@Override
+	public void update(byte[] b, int off, int len) {
+		int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+		int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+		int crc = m_crc;
+		int end = off + len;
+		while (end - off >= 8) {
+			crc ^= (b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16 | (b[off + 3] & 0xff) << 24;
+			int high = (b[off + 4] & 0xff) | (b[off + 5] & 0xff) << 8 | (b[off + 6] & 0xff) << 16 | (b[off + 7] & 0xff) << 24;
+			crc = t7[crc & 0xff] ^ t6[(crc >>> 8) & 0xff] ^ t5[(crc >>> 16) & 0xff] ^ t4[crc >>> 24]
+					^ t3[high & 0xff] ^ t2[(high >>> 8) & 0xff] ^ t1[(high >>> 16) & 0xff] ^ t0[high >>> 24];
+			off += 8;
+		}
+		while (off < end)
+			crc = (crc >>> 8) ^ t0[(crc ^ b[off++]) & 0xff];
+		m_crc = crc;
+	}
+
+	@Override
+	public long getValue() {
+		return ~m_crc & 0xffffffffL;
+	}
+
+	@Override
+	public void reset() {
+		m_crc = 0xffffffff;
+	}
+}
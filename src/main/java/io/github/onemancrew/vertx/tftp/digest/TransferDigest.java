@@ -0,0 +1,235 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.digest;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.Checksum;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TransferDigest.java
+ * Package: io.github.onemancrew.vertx.tftp.digest
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Digest of the content of one transfer, updated with each block as it passes in order so the file does not have to
+ * be read again to be verified.
+ * When an expected value is set the transfer fails if the content does not match it, a download is then discarded
+ * and an upload is aborted before its last block.
+ * An instance is used by one transfer only.
+ */
+public class TransferDigest {
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final int SCRATCH_SIZE = 8192;
+
+	private final String m_algorithm;
+	private final Checksum m_checksum;
+	private final MessageDigest m_digest;
+	private byte[] m_expected;
+	private byte[] m_value;
+	private byte[] m_scratch;
+	private long m_length;
+
+	private TransferDigest(String algorithm, Checksum checksum, MessageDigest digest) {
+		m_algorithm = algorithm;
+		m_checksum = checksum;
+		m_digest = digest;
+	}
+
+	/**
+	 * @return a CRC-32C digest, its value is the 4 bytes of the checksum in big endian order.
+	 */
+	public static TransferDigest crc32c() {
+		return new TransferDigest("CRC32C", Crc32c.create(), null);
+	}
+
+	/**
+	 * @return a SHA-256 digest.
+	 */
+	public static TransferDigest sha256() {
+		return of("SHA-256");
+	}
+
+	/**
+	 * @param algorithm the name of a {@link MessageDigest} algorithm.
+	 * @return a digest of the algorithm.
+	 * @throws IllegalArgumentException when the algorithm is not available.
+	 */
+	public static TransferDigest of(String algorithm) {
+		try {
+			return of(MessageDigest.getInstance(algorithm));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalArgumentException("digest algorithm not available: " + algorithm, e);
+		}
+	}
+
+	/**
+	 * @param digest a fresh message digest, it is updated by the transfer.
+	 * @return a digest computed by the message digest.
+	 */
+	public static TransferDigest of(MessageDigest digest) {
+		if (digest == null)
+			throw new IllegalArgumentException("digest must not be null");
+		return new TransferDigest(digest.getAlgorithm(), null, digest);
+	}
+
+	/**
+	 * Fail the transfer when its digest is not this value.
+	 * @param expected the expected value, null to only compute the digest.
+	 */
+	public TransferDigest setExpected(byte[] expected) {
+		m_expected = expected == null ? null : expected.clone();
+		return this;
+	}
+
+	/**
+	 * Fail the transfer when its digest is not this value.
+	 * @param hex the expected value in hexadecimal, as in a manifest or a sha256sum file.
+	 */
+	public TransferDigest setExpectedHex(String hex) {
+		if (hex == null)
+			return setExpected(null);
+		if (hex.length() % 2 != 0)
+			throw new IllegalArgumentException("odd number of hex digits: " + hex);
+		byte[] expected = new byte[hex.length() / 2];
+		for (int i = 0; i < expected.length; i++) {
+			int high = Character.digit(hex.charAt(i * 2), 16);
+			int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+			if (high < 0 || low < 0)
+				throw new IllegalArgumentException("not a hex digest: " + hex);
+			expected[i] = (byte) (high << 4 | low);
+		}
+		m_expected = expected;
+		return this;
+	}
+
+	public byte[] getExpected() {
+		return m_expected == null ? null : m_expected.clone();
+	}
+
+	public String getAlgorithm() {
+		return m_algorithm;
+	}
+
+	/**
+	 * @return the bytes of content the digest was updated with.
+	 */
+	public long getLength() {
+		return m_length;
+	}
+
+	/**
+	 * Update the digest with the next bytes of the content.
+	 */
+	public void update(Buffer data) {
+		if (m_value != null)
+			throw new IllegalStateException("digest already completed");
+		ByteBuf buf = data.getByteBuf();
+		int length = buf.readableBytes();
+		m_length += length;
+		if (buf.hasArray()) {
+			update(buf.array(), buf.arrayOffset() + buf.readerIndex(), length);
+		} else if (m_digest != null) {
+			m_digest.update(buf.nioBuffer());
+		} else {
+			// direct buffers are copied in chunks, Checksum only takes arrays before Java 9
+			if (m_scratch == null)
+				m_scratch = new byte[SCRATCH_SIZE];
+			for (int offset = 0; offset < length; offset += m_scratch.length) {
+				int chunk = Math.min(m_scratch.length, length - offset);
+				buf.getBytes(buf.readerIndex() + offset, m_scratch, 0, chunk);
+				update(m_scratch, 0, chunk);
+			}
+		}
+	}
+
+	private void update(byte[] bytes, int offset, int length) {
+		if (m_digest != null)
+			m_digest.update(bytes, offset, length);
+		else
+			m_checksum.update(bytes, offset, length);
+	}
+
+	/**
+	 * Complete the digest once the last block passed, further calls keep the value.
+	 * @return the value of the digest.
+	 */
+	public byte[] complete() {
+		if (m_value == null) {
+			if (m_digest != null) {
+				m_value = m_digest.digest();
+			} else {
+				long crc = m_checksum.getValue();
+				m_value = new byte[] { (byte) (crc >>> 24), (byte) (crc >>> 16), (byte) (crc >>> 8), (byte) crc };
+			}
+			m_scratch = null;
+		}
+		return m_value.clone();
+	}
+
+	public boolean isComplete() {
+		return m_value != null;
+	}
+
+	/**
+	 * @return the value of the digest, null until the transfer completed.
+	 */
+	public byte[] getValue() {
+		return m_value == null ? null : m_value.clone();
+	}
+
+	/**
+	 * @return the value of the digest in lower case hexadecimal, null until the transfer completed.
+	 */
+	public String getHex() {
+		if (m_value == null)
+			return null;
+		char[] hex = new char[m_value.length * 2];
+		for (int i = 0; i < m_value.length; i++) {
+			hex[i * 2] = HEX[(m_value[i] >> 4) & 0xf];
+			hex[i * 2 + 1] = HEX[m_value[i] & 0xf];
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * @return true when no value is expected or the completed digest is the expected value.
+	 */
+	public boolean matches() {
+		return m_expected == null || (m_value != null && MessageDigest.isEqual(m_expected, m_value));
+	}
+
+	@Override
+	public String toString() {
+		return m_algorithm + ":" + (m_value == null ? "incomplete" : getHex());
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Project: vertx-tftp-client
+ * File: LatencyHistogram.java
+ * Package: io.github.onemancrew.vertx.tftp.metrics
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * A lock free histogram of durations with one bucket per power of two nanoseconds.
+ * Recording adds to striped counters and does not allocate; percentiles are the upper bound of their bucket, so
+ * they are accurate to a factor of two.
+ */
+public class LatencyHistogram {
+	private static final int BUCKETS = 64;
+	private final LongAdder[] m_buckets = new LongAdder[BUCKETS];
+	private final LongAdder m_sum = new LongAdder();
+	private final LongAccumulator m_max = new LongAccumulator(Math::max, 0);
+
+	public LatencyHistogram() {
+		for (int i = 0; i < BUCKETS; i++)
+			m_buckets[i] = new LongAdder();
+	}
+
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		m_buckets[bucket(nanos)].increment();
+		m_sum.add(nanos);
+		m_max.accumulate(nanos);
+	}
+
+	/**
+	 * @return the bucket of values in [2^(i-1), 2^i), bucket 0 holds 0.
+	 */
+	private static int bucket(long nanos) {
+		return nanos == 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos);
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (LongAdder bucket : m_buckets)
+			count += bucket.sum();
+		return count;
+	}
+
+	public long getTotalNanos() {
+		return m_sum.sum();
+	}
+
+	public long getMaxNanos() {
+		return m_max.get();
+	}
+
+	public double getMeanNanos() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) getTotalNanos() / count;
+	}
+
+	/**
+	 * @param percentile between 0 and 100.
+	 * @return the upper bound of the bucket holding the percentile, 0 if nothing was recorded.
+	 */
+	public long getPercentileNanos(double percentile) {
+		long[] counts = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = m_buckets[i].sum();
+			count += counts[i];
+		}
+		if (count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.min(i == 0 ? 0 : (1L << i) - 1, getMaxNanos());
+		}
+		return getMaxNanos();
+	}
+}
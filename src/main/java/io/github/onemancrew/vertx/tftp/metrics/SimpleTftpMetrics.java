@@ -0,0 +1,181 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.metrics;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Project: vertx-tftp-client
+ * File: SimpleTftpMetrics.java
+ * Package: io.github.onemancrew.vertx.tftp.metrics
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Metrics kept in memory with striped counters, cheap enough to stay on for every packet.
+ * One instance can be shared by all the clients of an application and read from any thread.
+ */
+public class SimpleTftpMetrics implements TftpMetrics {
+	private static final int DIRECTIONS = TransferDirection.values().length;
+	private final LongAdder[] m_active = adders(DIRECTIONS);
+	private final LongAdder[] m_succeeded = adders(DIRECTIONS);
+	private final LongAdder[] m_failed = adders(DIRECTIONS);
+	private final LongAdder[] m_bytesSent = adders(DIRECTIONS);
+	private final LongAdder[] m_bytesReceived = adders(DIRECTIONS);
+	private final LatencyHistogram[] m_durations = new LatencyHistogram[DIRECTIONS];
+	private final LatencyHistogram m_rtt = new LatencyHistogram();
+	private final LongAdder m_retransmitted = new LongAdder();
+	private final LongAdder m_timeouts = new LongAdder();
+	private final LongAdder[] m_errors = adders(ErrorCode.values().length);
+
+	public SimpleTftpMetrics() {
+		for (int i = 0; i < DIRECTIONS; i++)
+			m_durations[i] = new LatencyHistogram();
+	}
+
+	private static LongAdder[] adders(int size) {
+		LongAdder[] adders = new LongAdder[size];
+		for (int i = 0; i < size; i++)
+			adders[i] = new LongAdder();
+		return adders;
+	}
+
+	@Override
+	public void transferStarted(TransferDirection direction) {
+		m_active[direction.ordinal()].increment();
+	}
+
+	@Override
+	public void transferEnded(TransferDirection direction, long durationNanos, boolean succeeded) {
+		m_active[direction.ordinal()].decrement();
+		(succeeded ? m_succeeded : m_failed)[direction.ordinal()].increment();
+		m_durations[direction.ordinal()].record(durationNanos);
+	}
+
+	@Override
+	public void bytesSent(TransferDirection direction, int bytes) {
+		m_bytesSent[direction.ordinal()].add(bytes);
+	}
+
+	@Override
+	public void bytesReceived(TransferDirection direction, int bytes) {
+		m_bytesReceived[direction.ordinal()].add(bytes);
+	}
+
+	@Override
+	public void rttSampled(long rttNanos) {
+		m_rtt.record(rttNanos);
+	}
+
+	@Override
+	public void retransmitted(int packets) {
+		m_retransmitted.add(packets);
+	}
+
+	@Override
+	public void timeout() {
+		m_timeouts.increment();
+	}
+
+	@Override
+	public void errorReceived(ErrorCode errorCode) {
+		m_errors[errorCode.ordinal()].increment();
+	}
+
+	public long getActiveTransfers(TransferDirection direction) {
+		return m_active[direction.ordinal()].sum();
+	}
+
+	public long getSucceededTransfers(TransferDirection direction) {
+		return m_succeeded[direction.ordinal()].sum();
+	}
+
+	public long getFailedTransfers(TransferDirection direction) {
+		return m_failed[direction.ordinal()].sum();
+	}
+
+	/**
+	 * @return the bytes written to the socket by the transfers, TFTP headers and retransmissions included.
+	 */
+	public long getBytesSent(TransferDirection direction) {
+		return m_bytesSent[direction.ordinal()].sum();
+	}
+
+	/**
+	 * @return the bytes received from the servers by the transfers, TFTP headers and duplicates included.
+	 */
+	public long getBytesReceived(TransferDirection direction) {
+		return m_bytesReceived[direction.ordinal()].sum();
+	}
+
+	/**
+	 * @return the durations of the completed and failed transfers.
+	 */
+	public LatencyHistogram getTransferDurations(TransferDirection direction) {
+		return m_durations[direction.ordinal()];
+	}
+
+	/**
+	 * @return the round trip times of the blocks.
+	 */
+	public LatencyHistogram getRtt() {
+		return m_rtt;
+	}
+
+	public long getRetransmittedPackets() {
+		return m_retransmitted.sum();
+	}
+
+	public long getTimeouts() {
+		return m_timeouts.sum();
+	}
+
+	/**
+	 * @return the ERROR packets received from the servers with this error code.
+	 */
+	public long getErrors(ErrorCode errorCode) {
+		return m_errors[errorCode.ordinal()].sum();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("SimpleTftpMetrics{");
+		for (TransferDirection direction : TransferDirection.values()) {
+			LatencyHistogram durations = getTransferDurations(direction);
+			sb.append(direction).append("={active=").append(getActiveTransfers(direction))
+					.append(", succeeded=").append(getSucceededTransfers(direction))
+					.append(", failed=").append(getFailedTransfers(direction))
+					.append(", sent=").append(getBytesSent(direction))
+					.append(", received=").append(getBytesReceived(direction))
+					.append(", p99=").append(durations.getPercentileNanos(99) / 1_000_000).append("ms}, ");
+		}
+		return sb.append("rttP50=").append(m_rtt.getPercentileNanos(50) / 1000).append("us, rttP99=")
+				.append(m_rtt.getPercentileNanos(99) / 1000).append("us, retransmitted=").append(getRetransmittedPackets())
+				.append(", timeouts=").append(getTimeouts()).append('}').toString();
+	}
+}
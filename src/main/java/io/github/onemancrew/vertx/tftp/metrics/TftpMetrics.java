@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.metrics;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TftpMetrics.java
+ * Package: io.github.onemancrew.vertx.tftp.metrics
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Receives the metrics of the transfers of the clients configured with
+ * {@link io.github.onemancrew.vertx.tftp.TftpClientOptions#setMetrics(TftpMetrics)}.
+ * The methods are called from the event loops of the transfers, for every packet, so an implementation must be
+ * thread safe, must not block and should not allocate.
+ */
+public interface TftpMetrics {
+	/**
+	 * Metrics that discard everything, the default.
+	 */
+	TftpMetrics NONE = new TftpMetrics() {};
+
+	/**
+	 * A transfer started, before its socket is opened: the duration of the transfer includes the wait for a socket.
+	 */
+	default void transferStarted(TransferDirection direction) {
+	}
+
+	/**
+	 * A started transfer completed or failed.
+	 * @param durationNanos the time since {@link #transferStarted(TransferDirection)}.
+	 */
+	default void transferEnded(TransferDirection direction, long durationNanos, boolean succeeded) {
+	}
+
+	/**
+	 * A packet of bytes was written to the socket, retransmissions included.
+	 */
+	default void bytesSent(TransferDirection direction, int bytes) {
+	}
+
+	/**
+	 * A packet of bytes was received from the server.
+	 */
+	default void bytesReceived(TransferDirection direction, int bytes) {
+	}
+
+	/**
+	 * The round trip time of a block, measured on packets that were not retransmitted.
+	 */
+	default void rttSampled(long rttNanos) {
+	}
+
+	/**
+	 * Packets were sent again, after a timeout or a gap reported by the server.
+	 */
+	default void retransmitted(int packets) {
+	}
+
+	/**
+	 * The answer to the last packet did not arrive before the retransmission timeout.
+	 */
+	default void timeout() {
+	}
+
+	/**
+	 * The server aborted a transfer with an ERROR packet.
+	 */
+	default void errorReceived(ErrorCode errorCode) {
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.metrics.micrometer;
+
+import io.github.onemancrew.vertx.tftp.metrics.TftpMetrics;
+import io.github.onemancrew.vertx.tftp.metrics.TransferDirection;
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Project: vertx-tftp-client
+ * File: MicrometerTftpMetrics.java
+ * Package: io.github.onemancrew.vertx.tftp.metrics.micrometer
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Reports the metrics of the transfers to a Micrometer {@link MeterRegistry}.
+ * micrometer-core is an optional dependency of this library, add it to the application to use this class.
+ * All meters are registered up front, recording a packet only looks up an array.
+ * <ul>
+ * <li>tftp.transfers.active (gauge), tftp.transfers.duration (timer, tags direction and outcome)</li>
+ * <li>tftp.bytes.sent and tftp.bytes.received (counters, tag direction)</li>
+ * <li>tftp.block.rtt (timer), tftp.retransmissions, tftp.timeouts and tftp.errors (counter, tag code)</li>
+ * </ul>
+ */
+public class MicrometerTftpMetrics implements TftpMetrics {
+	private static final int DIRECTIONS = TransferDirection.values().length;
+	private final LongAdder[] m_active = new LongAdder[DIRECTIONS];
+	private final Timer[] m_succeeded = new Timer[DIRECTIONS];
+	private final Timer[] m_failed = new Timer[DIRECTIONS];
+	private final Counter[] m_bytesSent = new Counter[DIRECTIONS];
+	private final Counter[] m_bytesReceived = new Counter[DIRECTIONS];
+	private final Timer m_rtt;
+	private final Counter m_retransmitted;
+	private final Counter m_timeouts;
+	private final Counter[] m_errors = new Counter[ErrorCode.values().length];
+
+	public MicrometerTftpMetrics(MeterRegistry registry) {
+		this(registry, Tags.empty());
+	}
+
+	/**
+	 * @param tags added to all the meters, e.g. the name of the client.
+	 */
+	public MicrometerTftpMetrics(MeterRegistry registry, Iterable<Tag> tags) {
+		for (TransferDirection direction : TransferDirection.values()) {
+			int i = direction.ordinal();
+			Tags directionTags = Tags.of(tags).and("direction", direction.name().toLowerCase());
+			m_active[i] = new LongAdder();
+			Gauge.builder("tftp.transfers.active", m_active[i], LongAdder::sum)
+					.tags(directionTags)
+					.description("Transfers in progress")
+					.register(registry);
+			m_succeeded[i] = transferTimer(registry, directionTags.and("outcome", "success"));
+			m_failed[i] = transferTimer(registry, directionTags.and("outcome", "failure"));
+			m_bytesSent[i] = Counter.builder("tftp.bytes.sent")
+					.tags(directionTags)
+					.baseUnit("bytes")
+					.description("Bytes written to the socket, headers and retransmissions included")
+					.register(registry);
+			m_bytesReceived[i] = Counter.builder("tftp.bytes.received")
+					.tags(directionTags)
+					.baseUnit("bytes")
+					.description("Bytes received from the servers, headers and duplicates included")
+					.register(registry);
+		}
+		m_rtt = Timer.builder("tftp.block.rtt")
+				.tags(tags)
+				.description("Round trip time of the blocks that were not retransmitted")
+				.publishPercentileHistogram()
+				.register(registry);
+		m_retransmitted = Counter.builder("tftp.retransmissions")
+				.tags(tags)
+				.baseUnit("packets")
+				.description("Packets sent again after a timeout or a gap reported by the server")
+				.register(registry);
+		m_timeouts = Counter.builder("tftp.timeouts")
+				.tags(tags)
+				.description("Retransmission timeouts")
+				.register(registry);
+		for (ErrorCode code : ErrorCode.values()) {
+			m_errors[code.ordinal()] = Counter.builder("tftp.errors")
+					.tags(Tags.of(tags).and("code", code.name().toLowerCase()))
+					.description("ERROR packets received from the servers")
+					.register(registry);
+		}
+	}
+
+	private static Timer transferTimer(MeterRegistry registry, Tags tags) {
+		return Timer.builder("tftp.transfers.duration")
+				.tags(tags)
+				.description("Duration of the completed and failed transfers")
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+
+	@Override
+	public void transferStarted(TransferDirection direction) {
+		m_active[direction.ordinal()].increment();
+	}
+
+	@Override
+	public void transferEnded(TransferDirection direction, long durationNanos, boolean succeeded) {
+		m_active[direction.ordinal()].decrement();
+		(succeeded ? m_succeeded : m_failed)[direction.ordinal()].record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void bytesSent(TransferDirection direction, int bytes) {
+		m_bytesSent[direction.ordinal()].increment(bytes);
+	}
+
+	@Override
+	public void bytesReceived(TransferDirection direction, int bytes) {
+		m_bytesReceived[direction.ordinal()].increment(bytes);
+	}
+
+	@Override
+	public void rttSampled(long rttNanos) {
+		m_rtt.record(rttNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void retransmitted(int packets) {
+		m_retransmitted.increment(packets);
+	}
+
+	@Override
+	public void timeout() {
+		m_timeouts.increment();
+	}
+
+	@Override
+	public void errorReceived(ErrorCode errorCode) {
+		m_errors[errorCode.ordinal()].increment();
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.pacing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Project: vertx-tftp-client
+ * File: BandwidthLimiter.java
+ * Package: io.github.onemancrew.vertx.tftp.pacing
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Limits the bandwidth the uploads use with token buckets at three levels: each transfer, each server and all the
+ * transfers sharing the limiter, usually all the clients of an application through
+ * {@link io.github.onemancrew.vertx.tftp.TftpClientOptions#setBandwidthLimiter(BandwidthLimiter)}.
+ * A block is sent once every bucket it goes through has its tokens. The rates can be changed at any time, the running
+ * transfers pick them up with their next block. The bucket of a server is dropped with the last transfer using it.
+ */
+public class BandwidthLimiter {
+	private final TokenBucket m_global;
+	private final Map<String, ServerBucket> m_servers = new HashMap<>();
+	private volatile long m_serverRate;
+	private volatile long m_transferRate;
+
+	public BandwidthLimiter() {
+		m_global = new TokenBucket(0);
+	}
+
+	public long getGlobalRate() {
+		return m_global.getRate();
+	}
+
+	/**
+	 * Set the rate of all the transfers together.
+	 * @param rate the rate in bytes per second, 0 for no limit (the default).
+	 */
+	public BandwidthLimiter setGlobalRate(long rate) {
+		m_global.setRate(rate);
+		return this;
+	}
+
+	public long getServerRate() {
+		return m_serverRate;
+	}
+
+	/**
+	 * Set the rate of the transfers to each server.
+	 * @param rate the rate in bytes per second, 0 for no limit (the default).
+	 */
+	public BandwidthLimiter setServerRate(long rate) {
+		if (rate < 0)
+			throw new IllegalArgumentException("rate must not be negative");
+		synchronized (m_servers) {
+			m_serverRate = rate;
+			for (ServerBucket server : m_servers.values())
+				server.m_bucket.setRate(rate);
+		}
+		return this;
+	}
+
+	public long getTransferRate() {
+		return m_transferRate;
+	}
+
+	/**
+	 * Set the rate of each transfer.
+	 * @param rate the rate in bytes per second, 0 for no limit (the default).
+	 */
+	public BandwidthLimiter setTransferRate(long rate) {
+		if (rate < 0)
+			throw new IllegalArgumentException("rate must not be negative");
+		m_transferRate = rate;
+		return this;
+	}
+
+	/**
+	 * The pacer of a new transfer to a server.
+	 */
+	public TransferPacer pacer(String host, int port) {
+		String key = host + ":" + port;
+		synchronized (m_servers) {
+			ServerBucket server = m_servers.computeIfAbsent(key, k -> new ServerBucket(m_serverRate));
+			server.m_transfers++;
+			return new TransferPacer(this, key, server.m_bucket);
+		}
+	}
+
+	/**
+	 * Called once by each pacer when its transfer ended.
+	 */
+	void release(String server) {
+		synchronized (m_servers) {
+			ServerBucket bucket = m_servers.get(server);
+			if (bucket != null && --bucket.m_transfers == 0)
+				m_servers.remove(server);
+		}
+	}
+
+	/**
+	 * @return the number of servers with a running transfer.
+	 */
+	int getServerCount() {
+		synchronized (m_servers) {
+			return m_servers.size();
+		}
+	}
+
+	TokenBucket global() {
+		return m_global;
+	}
+
+	private static class ServerBucket {
+		private final TokenBucket m_bucket;
+		private int m_transfers;
+
+		ServerBucket(long rate) {
+			m_bucket = new TokenBucket(rate);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.pacing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TokenBucket.java
+ * Package: io.github.onemancrew.vertx.tftp.pacing
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * A token bucket of bytes that refills at a rate and holds at most a burst. Sending takes tokens even when the bucket
+ * has not enough, the sender then waits until the debt is paid, so a rate change applies to the next packet.
+ * Thread safe, the bucket of a server or of a whole client is shared by the transfers of every event loop.
+ */
+public class TokenBucket {
+	/**
+	 * The burst is the bytes sent at the rate during this time, unless set.
+	 */
+	public static final long DEFAULT_BURST_MILLIS = 10;
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private long m_rate;
+	private long m_burst;
+	private boolean m_defaultBurst = true;
+	private double m_tokens;
+	private long m_lastRefillNanos;
+
+	/**
+	 * @param rate the rate in bytes per second, 0 for no limit.
+	 */
+	public TokenBucket(long rate) {
+		m_lastRefillNanos = System.nanoTime();
+		setRate(rate);
+		m_tokens = m_burst;
+	}
+
+	public synchronized long getRate() {
+		return m_rate;
+	}
+
+	/**
+	 * Change the rate, the tokens gathered at the previous rate are kept.
+	 * @param rate the rate in bytes per second, 0 for no limit.
+	 */
+	public synchronized TokenBucket setRate(long rate) {
+		if (rate < 0)
+			throw new IllegalArgumentException("rate must not be negative");
+		refill(System.nanoTime());
+		m_rate = rate;
+		if (m_defaultBurst)
+			m_burst = rate * DEFAULT_BURST_MILLIS / 1000;
+		return this;
+	}
+
+	public synchronized long getBurst() {
+		return m_burst;
+	}
+
+	/**
+	 * Set the most bytes sent back to back after the bucket was idle.
+	 */
+	public synchronized TokenBucket setBurst(long burst) {
+		if (burst < 0)
+			throw new IllegalArgumentException("burst must not be negative");
+		m_burst = burst;
+		m_defaultBurst = false;
+		m_tokens = Math.min(m_tokens, burst);
+		return this;
+	}
+
+	/**
+	 * Take the tokens of a packet.
+	 * @return the nanoseconds to wait before the packet is sent, 0 to send it now.
+	 */
+	public synchronized long reserve(int bytes) {
+		if (m_rate == 0)
+			return 0;
+		refill(System.nanoTime());
+		m_tokens -= bytes;
+		return m_tokens >= 0 ? 0 : (long) (-m_tokens * NANOS_PER_SECOND / m_rate);
+	}
+
+	private void refill(long now) {
+		if (m_rate > 0)
+			m_tokens = Math.min(m_burst, m_tokens + (now - m_lastRefillNanos) * (double) m_rate / NANOS_PER_SECOND);
+		m_lastRefillNanos = now;
+	}
+}
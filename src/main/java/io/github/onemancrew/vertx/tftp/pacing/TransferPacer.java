@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.pacing;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TransferPacer.java
+ * Package: io.github.onemancrew.vertx.tftp.pacing
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * The buckets one transfer takes its tokens from, only used from the context of the transfer.
+ */
+public class TransferPacer {
+	private final BandwidthLimiter m_limiter;
+	private final String m_serverKey;
+	private final TokenBucket m_server;
+	private final TokenBucket m_transfer;
+	private boolean m_released;
+
+	TransferPacer(BandwidthLimiter limiter, String serverKey, TokenBucket server) {
+		m_limiter = limiter;
+		m_serverKey = serverKey;
+		m_server = server;
+		m_transfer = new TokenBucket(limiter.getTransferRate());
+	}
+
+	/**
+	 * Take the tokens of a packet from the buckets of the transfer, of its server and of all the transfers.
+	 * @return the nanoseconds to wait before the packet is sent, 0 to send it now.
+	 */
+	public long reserve(int bytes) {
+		long rate = m_limiter.getTransferRate();
+		if (rate != m_transfer.getRate())
+			m_transfer.setRate(rate);
+		long wait = m_transfer.reserve(bytes);
+		wait = Math.max(wait, m_server.reserve(bytes));
+		return Math.max(wait, m_limiter.global().reserve(bytes));
+	}
+
+	/**
+	 * Called when the transfer ended, the limiter drops the bucket of the server after its last transfer.
+	 */
+	public void release() {
+		if (m_released)
+			return;
+		m_released = true;
+		m_limiter.release(m_serverKey);
+	}
+}
@@ -24,30 +24,28 @@
 
 package io.github.onemancrew.vertx.tftp.protocol;
 
-import io.github.onemancrew.vertx.tftp.Progress;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
 import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
 import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
-import io.github.onemancrew.vertx.tftp.protocol.exception.TftpError;
-import io.github.onemancrew.vertx.tftp.protocol.exception.TimeoutException;
-import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownErrorException;
+import io.github.onemancrew.vertx.tftp.protocol.enums.TransferOption;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TransferCancelledException;
 import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownOpcodeException;
 import io.github.onemancrew.vertx.tftp.protocol.message.AckMessage;
 import io.github.onemancrew.vertx.tftp.protocol.message.DataMessage;
 import io.github.onemancrew.vertx.tftp.protocol.message.ErrorMessage;
-import io.github.onemancrew.vertx.tftp.protocol.message.IBufferProtocol;
+import io.github.onemancrew.vertx.tftp.protocol.message.PacketReader;
 import io.github.onemancrew.vertx.tftp.protocol.message.request.ReadRequestMessage;
+import io.github.onemancrew.vertx.tftp.protocol.stream.AsyncFileBlockSink;
+import io.github.onemancrew.vertx.tftp.protocol.stream.BlockSink;
+import io.netty.buffer.ByteBuf;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.datagram.DatagramPacket;
-import io.vertx.core.datagram.DatagramSocket;
-import io.vertx.core.datagram.DatagramSocketOptions;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import java.io.File;
-import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
@@ -59,232 +57,292 @@ import java.nio.ByteOrder;
  * Last update by:
  * Last update date:
  **/
-public class DownloadFileProcess {
-    public static final int TIMEOUT_MS = 3000;
-    private static final int MAX_RETRIES = 3;
-    private static Logger log = LoggerFactory.getLogger(SendFileProcess.class);
-    private final String m_host;
+public class DownloadFileProcess extends TransferProcess {
+    private static final int WRITE_QUEUE_SIZE = 128 * 1024;
+    private static Logger log = LoggerFactory.getLogger(DownloadFileProcess.class);
     private final String m_workFolder;
-    private final String m_fileName;
-    private final Handler<AsyncResult<Void>> m_resultHandler;
-    private final Buffer m_buffer;
-    private int m_port;
-    private Vertx m_vertx;
-    private ByteOrder m_byteOrder = ByteOrder.nativeOrder();
-    private DatagramSocket m_socket;
+    private BlockSink m_sink;
     private DownloadStatus m_downloadStatus = DownloadStatus.INIT;
-    private int m_currBlock = 0;
-    private IBufferProtocol m_lastMsg;
-    private long m_lastSendTimeMs;
-    private int m_retries = 0;
-    private long m_timerID;
+    private long m_currBlock = 0;
+    private int m_windowBlocks = 0;
+    private boolean m_gapAcked = false;
+    private boolean m_ackPaused = false;
+    /**
+     * Round trip time measured with the first block of the window, -1 if it was not measured.
+     */
+    private long m_windowRttNanos = -1;
+    private DownloadRace m_race;
 
 
     public DownloadFileProcess(Vertx vertx, ByteOrder byteOrder, String hostDst, int portDst, String workFolder, String fileName, Handler<AsyncResult<Void>> handler) {
-        m_host = hostDst;
-        m_port = portDst;
-        m_vertx = vertx;
-        m_byteOrder = byteOrder;
-        m_fileName = fileName;
+        this(vertx, byteOrder, hostDst, portDst, workFolder, fileName, new TftpClientOptions(), handler);
+    }
+
+    public DownloadFileProcess(Vertx vertx, ByteOrder byteOrder, String hostDst, int portDst, String workFolder, String fileName,
+                               TftpClientOptions options, Handler<AsyncResult<Void>> handler) {
+        super(vertx, byteOrder, hostDst, portDst, fileName, options, handler);
         m_workFolder = workFolder;
-        m_resultHandler = handler;
-        m_buffer = Buffer.buffer();
 
     }
 
-    public void download(int port) {
-        m_socket = m_vertx.createDatagramSocket(new DatagramSocketOptions().setReuseAddress(true));
-        m_timerID = m_vertx.setPeriodic(500, new Handler<Long>() {
+    public DownloadFileProcess(Vertx vertx, ByteOrder byteOrder, String hostDst, int portDst, String fileName,
+                               BlockSink sink, TftpClientOptions options, Handler<AsyncResult<Void>> handler) {
+        super(vertx, byteOrder, hostDst, portDst, fileName, options, handler);
+        m_workFolder = null;
+        m_sink = sink;
 
-            @Override
-            public void handle(Long aLong) {
-                checkLastMsg();
-            }
-        });
-        m_socket.listen(port, "0.0.0.0", asyncResult -> {
-            if (asyncResult.succeeded()) {
-                startDownloadFile();
-                m_socket.handler(packet -> {
-                    handleMsg(packet);
-                });
-            } else {
-                handleError(asyncResult.cause());
-            }
-        });
     }
 
-    private void updateLastMsg(IBufferProtocol msg) {
-        m_lastMsg = msg;
-        m_lastSendTimeMs = System.currentTimeMillis();
-        m_retries = 0;
+    /**
+     * Race the download against downloads of the same file from other servers, see {@link DownloadRace}.
+     */
+    public void setRace(DownloadRace race) {
+        m_race = race;
     }
 
-    private void checkLastMsg() {
-        if (m_lastMsg == null)
+    public void download() {
+        if (m_sink != null) {
+            start();
             return;
-        long currTime = System.currentTimeMillis();
-        if (currTime - m_lastSendTimeMs > TIMEOUT_MS) {
-            if (m_retries < MAX_RETRIES) {
-                IBufferProtocol msg = m_lastMsg;
-                ByteBuffer buf = ByteBuffer.allocate(msg.getBufferSize());
-                m_socket.send(Buffer.buffer(buf.array()), m_port, m_host, datagramSocketAsyncResult -> {
-                    if (datagramSocketAsyncResult.failed())
-                        handleError(datagramSocketAsyncResult.cause());
-                    else {
-                        m_lastSendTimeMs = currTime;
-                        m_retries++;
-                        log.info("Resend last msg of file " + m_fileName + " to " + m_host);
-                    }
-
-                });
+        }
+        String file = m_workFolder + File.separator + m_fileName;
+        AsyncFileBlockSink.open(m_vertx, file, m_options.isAtomicDownload(), m_options.isFsyncOnComplete(),
+                writeQueueSize(m_options), result -> {
+            if (result.failed()) {
+                handleError(result.cause());
             } else {
-                handleError(new TimeoutException());
+                m_sink = result.result();
+                start();
             }
+        });
+    }
 
-        }
+    /**
+     * @return the write queue size of a file written by a download with the options.
+     */
+    public static int writeQueueSize(TftpClientOptions options) {
+        // a window of blocks can be written while the next one is received
+        return Math.max(WRITE_QUEUE_SIZE, 2 * options.getBlockSize() * options.getWindowSize());
     }
 
-    private void startDownloadFile() {
+    @Override
+    protected void startTransfer() {
         log.info("start Download File " + m_fileName + " to " + m_host);
         ReadRequestMessage msg = new ReadRequestMessage(m_fileName);
-        ByteBuffer buf = ByteBuffer.allocate(msg.getBufferSize());
-        buf.order(m_byteOrder);
-        msg.toBuffer(buf);
-
-        m_socket.send(Buffer.buffer(buf.array()), m_port, m_host, datagramSocketAsyncResult -> {
-            if (datagramSocketAsyncResult.failed())
-                handleError(datagramSocketAsyncResult.cause());
-            else {
-                updateLastMsg(msg);
-                m_downloadStatus = DownloadStatus.SEND_REQUEST;
-                log.info("Send Read request(RRQ) of file " + m_fileName + " to " + m_host);
-            }
+        addOptions(msg);
+        // the size of the file lets the progress tell the percentage and the time left
+        if (hasProgressHandler())
+            msg.addOption(TransferOption.TRANSFER_SIZE.getName(), "0");
+        if (m_race != null && !m_race.enter(this)) {
+            handleError(new TransferCancelledException("another server answered first"));
+            return;
+        }
+        ByteBuf packet = encode(msg);
+        updateLastMsg(packet);
+        m_downloadStatus = DownloadStatus.SEND_REQUEST;
 
+        sendPacket(packet, v -> {
+            log.info("Send Read request(RRQ) of file " + m_fileName + " to " + m_host);
         });
+        packet.release();
 
     }
 
-    private void handleError(Throwable cause) {
-        log.error("handleError: " + cause.getMessage());
-        close();
-        m_resultHandler.handle(Future.failedFuture(cause));
-    }
-
-    private void handleMsg(DatagramPacket packet) {
-        m_port = packet.sender().port();
-        byte[] bytes = packet.data().getBytes();
-        try {
-            Opcode opcode = Opcode.ValueOf(bytes[1]);
-            log.info("handle incoming OpCode:" + opcode);
-            switch (opcode) {
-                case DATA:
-                    handleData(bytes);
-                    break;
-                case ACK:
-                case ERROR:
-                case RRQ:
-                case WRQ:
-                    handleERRMsg(opcode, bytes);
-                    break;
-
-
-            }
-        } catch (UnknownOpcodeException e) {
-            handleError(e);
+    @Override
+    protected void handleMessage(Opcode opcode, PacketReader packet) throws UnknownOpcodeException {
+        switch (opcode) {
+            case DATA:
+                if (packet.hasBlockId())
+                    handleData(packet);
+                break;
+            case OACK:
+                handleOACK(packet);
+                break;
+            default:
+                break;
         }
-
     }
 
-    private void handleERRMsg(Opcode opcode, byte[] bytes) {
-        if (opcode == Opcode.ERROR) {
-            ByteBuffer buf = ByteBuffer.wrap(bytes);
-            buf.order(m_byteOrder);
-            ErrorMessage msg = new ErrorMessage(ErrorCode.NO_ERROR);
-            try {
-                msg.fromBuffer(buf);
-                handleError(new TftpError(msg));
-            } catch (UnknownOpcodeException e) {
-                handleError(e);
-            } catch (UnknownErrorException e) {
-                handleError(e);
-            }
-
-
+    private void handleOACK(PacketReader packet) throws UnknownOpcodeException {
+        if (m_downloadStatus != DownloadStatus.SEND_REQUEST)
+            return;
+        sampleLastPacketRtt();
+        // the server waits for ACK 0 before it sends the first block
+        if (acceptOptionAck(packet)) {
+            m_downloadStatus = DownloadStatus.OPTION_ACK;
+            sendAck(0, null);
         }
     }
 
-    private void handleData(byte[] bytes) throws UnknownOpcodeException {
-        ByteBuffer buf = ByteBuffer.wrap(bytes);
-        buf.order(m_byteOrder);
-        DataMessage msg = new DataMessage();
-        msg.fromBuffer(buf);
-        log.info("receive(file: " + m_fileName + " host:" + m_host + ") Data " + msg.getBlockId());
-        if (m_downloadStatus == DownloadStatus.SEND_REQUEST && msg.getBlockId() == 1) {
+    private void handleData(PacketReader packet) {
+        int blockId = packet.getBlockId();
+        if (log.isDebugEnabled())
+            log.debug("receive(file: " + m_fileName + " host:" + m_host + ") Data " + blockId);
+        boolean firstBlock = blockId == 1 && (m_downloadStatus == DownloadStatus.SEND_REQUEST
+                || m_downloadStatus == DownloadStatus.OPTION_ACK);
+        if (firstBlock && m_race != null && !m_race.claim(this))
+            return;
+        if (m_downloadStatus == DownloadStatus.SEND_REQUEST && blockId == 1) {
+            // the server ignored the options, fall back to RFC 1350 lock-step transfer
+            m_blockSize = DataMessage.BLOCK_SIZE;
+            m_windowSize = 1;
+            m_downloadStatus = DownloadStatus.DOWNLOADING_FILE;
+        } else if (m_downloadStatus == DownloadStatus.OPTION_ACK && blockId == 1) {
             m_downloadStatus = DownloadStatus.DOWNLOADING_FILE;
-            updateData(msg);
-        } else if (m_downloadStatus == DownloadStatus.DOWNLOADING_FILE && msg.getBlockId() == m_currBlock + 1) {
-            updateData(msg);
-        } else {
+        }
+        if (m_downloadStatus != DownloadStatus.DOWNLOADING_FILE)
+            return;
 
+        int distance = blockDistance(m_currBlock + 1, blockId);
+        if (distance == 0) {
+            updateData(packet);
+        } else if (distance < m_windowSize) {
+            if (!m_gapAcked) {
+                // a block of the window was lost, ACK the last block received in order so the server
+                // sends the window again from the missing block (RFC 7440)
+                m_gapAcked = true;
+                m_windowBlocks = 0;
+                congestion().onLoss();
+                if (!m_ackPaused)
+                    sendAck(m_currBlock, null);
+            }
+        } else if (m_ackPaused) {
+            m_recovery.duplicateBlockHeld();
+        } else if (m_recovery.duplicateBlock(m_currBlock, smoothedRtt())) {
+            // the server did not get the last ACK and sends the window again, the ACK restarts it after m_currBlock
+            m_windowBlocks = 0;
+            sendAck(m_currBlock, null);
         }
 
 
     }
 
-    private void updateData(DataMessage msg) {
-        m_currBlock = msg.getBlockId();
-        m_buffer.appendBytes(msg.getData());
-        sendAck(m_currBlock);
-        if (msg.isLast())
+    private void updateData(PacketReader packet) {
+        m_currBlock++;
+        m_gapAcked = false;
+        // the first block after an ACK measures the round trip time, the rest of the window does not
+        long rttNanos = sampleLastPacketRtt();
+        if (rttNanos >= 0)
+            m_windowRttNanos = rttNanos;
+        transferred(packet.getPayloadLength());
+        // the block is acknowledged without waiting for the disk write, the payload is a slice of the packet
+        m_sink.write(m_currBlock, m_blockSize, packet.getPayload(), written -> {
+            if (written.failed())
+                handleError(written.cause());
+        });
+        touch();
+        if (packet.getPayloadLength() < m_blockSize) {
             finishDownload();
+        } else if (++m_windowBlocks == m_windowSize) {
+            // ACK once per window
+            m_windowBlocks = 0;
+            congestion().onAcked(m_windowSize, m_windowRttNanos);
+            m_windowRttNanos = -1;
+            long pause = congestionPauseMillis();
+            if (m_sink.writeQueueFull())
+                pauseAck();
+            else if (pause > 0)
+                delayAck(pause);
+            else
+                sendAck(m_currBlock, null);
+        }
 
 
     }
 
-    private void finishDownload() {
-        String sep = File.separator;
-        String file = m_workFolder + sep + m_fileName;
-        m_vertx.fileSystem().writeFile(file, m_buffer, (result) -> {
-            if (result.failed()) {
-                handleError(result.cause());
-            } else {
-                log.info("write file (file: " + file + " host:" + m_host + ") ");
-                close();
-                m_resultHandler.handle(Future.succeededFuture());
-            }
+    /**
+     * Hold the ACK until the sink drained, the server waits for it before sending the next window.
+     */
+    private void pauseAck() {
+        m_ackPaused = true;
+        pauseTimeout();
+        m_sink.drainHandler(v -> {
+            m_sink.drainHandler(null);
+            m_ackPaused = false;
+            if (m_downloadStatus == DownloadStatus.DOWNLOADING_FILE)
+                sendAck(m_currBlock, null);
         });
     }
 
-    private void sendAck(int currBlock) {
-        AckMessage msg = new AckMessage(currBlock);
-        ByteBuffer buf = ByteBuffer.allocate(msg.getBufferSize());
-        buf.order(m_byteOrder);
-        msg.toBuffer(buf);
-
-        m_socket.send(Buffer.buffer(buf.array()), m_port, m_host, datagramSocketAsyncResult -> {
-            if (datagramSocketAsyncResult.failed())
-                handleError(datagramSocketAsyncResult.cause());
-            else {
-                updateLastMsg(msg);
-                log.info("Send Ack of file: " + m_fileName + " to: " + m_host + " BlockId: " + currBlock);
-            }
+    /**
+     * Hold the ACK for the congestion pause, the server sends the next window when it arrives.
+     */
+    private void delayAck(long pause) {
+        m_ackPaused = true;
+        pauseTimeout();
+        m_vertx.setTimer(pause, id -> {
+            m_ackPaused = false;
+            if (m_downloadStatus == DownloadStatus.DOWNLOADING_FILE && !isClosed())
+                sendAck(m_currBlock, null);
+        });
+    }
+
+    private void finishDownload() {
+        m_downloadStatus = DownloadStatus.END;
+        // the socket is closed once the last ACK was sent, the sink completes the file
+        sendAck(m_currBlock, v -> {
+            log.info("download (file: " + m_fileName + " host:" + m_host + ") completed");
+            close(Future.succeededFuture());
+        });
+    }
 
+    /**
+     * Stop a download that lost the race, the server is told with an ERROR if it already answered.
+     */
+    void cancel() {
+        m_context.runOnContext(v -> {
+            if (isClosed())
+                return;
+            TransferCancelledException cause = new TransferCancelledException("another server answered first");
+            if (hasServerAnswered())
+                send(new ErrorMessage(ErrorCode.NO_ERROR), sent -> handleError(cause));
+            else
+                handleError(cause);
         });
     }
 
+    private void sendAck(long currBlock, Handler<Void> onSent) {
+        AckMessage msg = new AckMessage(toBlockId(currBlock));
+        ByteBuf packet = encode(msg);
+        updateLastMsg(packet);
+        m_recovery.ackSent(currBlock);
+
+        sendPacket(packet, v -> {
+            log.info("Send Ack of file: " + m_fileName + " to: " + m_host + " BlockId: " + currBlock);
+            if (onSent != null)
+                onSent.handle(null);
+        });
+        packet.release();
+    }
 
-    private void close() {
-        m_socket.close();
-        m_vertx.cancelTimer(m_timerID);
+    @Override
+    protected void release(AsyncResult<Void> result, Handler<AsyncResult<Void>> handler) {
+        if (m_sink == null)
+            handler.handle(result);
+        else if (result.succeeded())
+            m_sink.end(handler);
+        else
+            m_sink.abort(aborted -> handler.handle(result));
+    }
 
+    @Override
+    protected void retransmit() {
+        if (m_downloadStatus == DownloadStatus.DOWNLOADING_FILE && !m_ackPaused) {
+            // the rest of the window did not arrive, ACK what was received so the server restarts from there
+            m_windowBlocks = 0;
+            countRetransmitted(1);
+            send(new AckMessage(toBlockId(m_currBlock)), null);
+        } else
+            super.retransmit();
     }
 
     private enum DownloadStatus {
         INIT,
         SEND_REQUEST,
+        OPTION_ACK,
         DOWNLOADING_FILE,
         END;
     }
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Project: vertx-tftp-client
+ * File: DownloadRace.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Downloads of the same file from several servers, the first one to receive a DATA block keeps going and the
+ * others are cancelled. The downloads may run on different contexts.
+ */
+public final class DownloadRace {
+	private final long m_startNanos = System.nanoTime();
+	private final List<DownloadFileProcess> m_entrants = new ArrayList<>();
+	private DownloadFileProcess m_winner;
+	private long m_firstBlockMs = -1;
+
+	/**
+	 * Join the race, once the transfer sent its request.
+	 * @return false if the race is already decided, the download must stop.
+	 */
+	synchronized boolean enter(DownloadFileProcess download) {
+		if (m_winner != null)
+			return false;
+		m_entrants.add(download);
+		return true;
+	}
+
+	/**
+	 * Called by a download with its first DATA block.
+	 * @return true if the download won the race, false if it must drop the block, it is being cancelled.
+	 */
+	synchronized boolean claim(DownloadFileProcess download) {
+		if (m_winner == null) {
+			m_winner = download;
+			m_firstBlockMs = (System.nanoTime() - m_startNanos) / 1_000_000;
+			for (DownloadFileProcess entrant : m_entrants) {
+				if (entrant != download)
+					entrant.cancel();
+			}
+			m_entrants.clear();
+		}
+		return m_winner == download;
+	}
+
+	public synchronized boolean isDecided() {
+		return m_winner != null;
+	}
+
+	/**
+	 * @return the milliseconds from the start of the race to the first DATA block, -1 until the race is decided.
+	 */
+	public synchronized long getFirstBlockMs() {
+		return m_firstBlockMs;
+	}
+}
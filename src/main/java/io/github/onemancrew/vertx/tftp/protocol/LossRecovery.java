@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Project: vertx-tftp-client
+ * File: LossRecovery.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Decides how a transfer answers the packets it receives twice, and counts them for {@link
+ * io.github.onemancrew.vertx.tftp.TransferStatistics}.
+ * A duplicate DATA block means the server did not get the last ACK, it is sent again, but at most once per round
+ * trip: a whole window sent again would otherwise be answered by as many ACKs, each starting the window again on the
+ * server. A duplicate ACK is only taken for a gap when it arrives at least half a round trip after the window was sent,
+ * an earlier one is a copy of the ACK that started the window and sending the window again for it would double every
+ * following window (the Sorcerer's Apprentice Syndrome of RFC 1123). Once the window was sent again for a gap, the
+ * same ACK only means it was lost again after two round trips. An ACK of new blocks that leaves later blocks in flight
+ * follows the same rule: within half a round trip of the send of the next block the server cannot have missed it, the
+ * ACK only closes a window the server counted differently.
+ */
+class LossRecovery {
+	/**
+	 * Shortest time between two ACKs of the same block, when the round trip time is still below it.
+	 */
+	private static final long MIN_REACK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private long m_lastAckBlock = -1;
+	private long m_goBackBlock = -1;
+	private long m_lastAckNanos;
+	private long m_duplicateBlocks;
+	private long m_duplicateAcks;
+	private long m_reAcks;
+	private long m_suppressed;
+
+	/**
+	 * An ACK of a block was sent.
+	 */
+	void ackSent(long block) {
+		m_lastAckBlock = block;
+		m_lastAckNanos = System.nanoTime();
+	}
+
+	/**
+	 * A DATA block that was already received arrived again.
+	 * @param lastBlock the last block received in order.
+	 * @param smoothedRttMs the smoothed round trip time.
+	 * @return true to send the ACK of lastBlock again.
+	 */
+	boolean duplicateBlock(long lastBlock, double smoothedRttMs) {
+		m_duplicateBlocks++;
+		long interval = Math.max(MIN_REACK_INTERVAL_NANOS, (long) (smoothedRttMs * 1_000_000));
+		if (m_lastAckBlock == lastBlock && System.nanoTime() - m_lastAckNanos < interval) {
+			m_suppressed++;
+			return false;
+		}
+		m_reAcks++;
+		return true;
+	}
+
+	/**
+	 * A DATA block arrived again while the ACK is held back on purpose.
+	 */
+	void duplicateBlockHeld() {
+		m_duplicateBlocks++;
+		m_suppressed++;
+	}
+
+	/**
+	 * An ACK acknowledged no new block.
+	 * @param block the acknowledged block.
+	 * @param blocksInFlight whether blocks after the acknowledged one were sent, a gap can only be reported then.
+	 * @param windowSentNanos when the first block of the window in flight was sent.
+	 * @param smoothedRttMs the smoothed round trip time.
+	 * @return true to send the window again from the block after the acknowledged one.
+	 */
+	boolean duplicateAck(long block, boolean blocksInFlight, long windowSentNanos, double smoothedRttMs) {
+		m_duplicateAcks++;
+		if (!blocksInFlight)
+			return false;
+		long rttNanos = (long) (smoothedRttMs * 1_000_000);
+		long wait = block == m_goBackBlock ? Math.max(2 * rttNanos, MIN_REACK_INTERVAL_NANOS) : rttNanos / 2;
+		if (System.nanoTime() - windowSentNanos < wait) {
+			m_suppressed++;
+			return false;
+		}
+		m_goBackBlock = block;
+		return true;
+	}
+
+	/**
+	 * An ACK acknowledged new blocks, but not every block sent.
+	 * @param block the acknowledged block.
+	 * @param nextSentNanos when the block after the acknowledged one was last sent.
+	 * @param smoothedRttMs the smoothed round trip time.
+	 * @return true to send the window again from the block after the acknowledged one.
+	 */
+	boolean partialAck(long block, long nextSentNanos, double smoothedRttMs) {
+		long rttNanos = (long) (smoothedRttMs * 1_000_000);
+		if (System.nanoTime() - nextSentNanos < rttNanos / 2)
+			return false;
+		m_goBackBlock = block;
+		return true;
+	}
+
+	/**
+	 * @return the DATA blocks received more than once.
+	 */
+	long getDuplicateBlocks() {
+		return m_duplicateBlocks;
+	}
+
+	/**
+	 * @return the ACKs that acknowledged no new block.
+	 */
+	long getDuplicateAcks() {
+		return m_duplicateAcks;
+	}
+
+	/**
+	 * @return the ACKs sent again in answer to a duplicate block.
+	 */
+	long getReAcks() {
+		return m_reAcks;
+	}
+
+	/**
+	 * @return the duplicates left unanswered, by the re-ACK rate limit or as copies of an earlier ACK.
+	 */
+	long getSuppressed() {
+		return m_suppressed;
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol;
+
+/**
+ * Project: vertx-tftp-client
+ * File: RttEstimator.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Smoothed round trip time and retransmission timeout of a transfer, computed as in RFC 6298.
+ * Callers only feed samples of packets that were sent once (Karn's algorithm).
+ */
+public class RttEstimator {
+	private static final double ALPHA = 1.0 / 8;
+	private static final double BETA = 1.0 / 4;
+	private static final int K = 4;
+
+	private final long m_minRto;
+	private final long m_maxRto;
+	private double m_srtt;
+	private double m_rttVar;
+	private long m_rto;
+	private long m_samples;
+
+	/**
+	 * @param initialRto the timeout used until the first sample, in milliseconds.
+	 * @param minRto the lower bound of the timeout, in milliseconds.
+	 * @param maxRto the upper bound of the timeout, in milliseconds.
+	 */
+	public RttEstimator(long initialRto, long minRto, long maxRto) {
+		m_minRto = minRto;
+		m_maxRto = Math.max(minRto, maxRto);
+		m_rto = clamp(initialRto);
+	}
+
+	/**
+	 * Add a round trip time measurement and recompute the timeout.
+	 * @param rttMs the round trip time in milliseconds.
+	 */
+	public void sample(double rttMs) {
+		if (m_samples == 0) {
+			m_srtt = rttMs;
+			m_rttVar = rttMs / 2;
+		} else {
+			m_rttVar = (1 - BETA) * m_rttVar + BETA * Math.abs(m_srtt - rttMs);
+			m_srtt = (1 - ALPHA) * m_srtt + ALPHA * rttMs;
+		}
+		m_samples++;
+		m_rto = clamp((long) Math.ceil(m_srtt + K * m_rttVar));
+	}
+
+	/**
+	 * Double the timeout after it expired, it is kept until the next sample.
+	 */
+	public void backoff() {
+		m_rto = clamp(m_rto * 2);
+	}
+
+	private long clamp(long rto) {
+		return Math.min(m_maxRto, Math.max(m_minRto, rto));
+	}
+
+	public double getSmoothedRtt() {
+		return m_srtt;
+	}
+
+	public double getRttVariance() {
+		return m_rttVar;
+	}
+
+	public long getRto() {
+		return m_rto;
+	}
+
+	public long getSamples() {
+		return m_samples;
+	}
+}
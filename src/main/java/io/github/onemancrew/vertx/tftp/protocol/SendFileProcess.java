@@ -25,29 +25,28 @@
 package io.github.onemancrew.vertx.tftp.protocol;
 
 import io.github.onemancrew.vertx.tftp.Progress;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.metrics.TransferDirection;
+import io.github.onemancrew.vertx.tftp.pacing.TransferPacer;
 import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
 import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
-import io.github.onemancrew.vertx.tftp.protocol.exception.TftpError;
-import io.github.onemancrew.vertx.tftp.protocol.exception.TimeoutException;
-import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownErrorException;
 import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownOpcodeException;
-import io.github.onemancrew.vertx.tftp.protocol.message.AckMessage;
 import io.github.onemancrew.vertx.tftp.protocol.message.DataMessage;
 import io.github.onemancrew.vertx.tftp.protocol.message.ErrorMessage;
-import io.github.onemancrew.vertx.tftp.protocol.message.IBufferProtocol;
+import io.github.onemancrew.vertx.tftp.protocol.message.PacketReader;
 import io.github.onemancrew.vertx.tftp.protocol.message.request.WriteRequestMessage;
+import io.github.onemancrew.vertx.tftp.protocol.stream.BlockSource;
+import io.github.onemancrew.vertx.tftp.protocol.stream.BufferBlockSource;
+import io.netty.buffer.ByteBuf;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.datagram.DatagramPacket;
-import io.vertx.core.datagram.DatagramSocket;
-import io.vertx.core.datagram.DatagramSocketOptions;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
-import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Project: vertx-tftp-client
@@ -58,221 +57,319 @@ import java.nio.ByteOrder;
  * Last update by:
  * Last update date:
  **/
-public class SendFileProcess {
-	public static final int TIMEOUT_MS = 3000;
-	private static final int MAX_RETRIES =3 ;
+public class SendFileProcess extends TransferProcess {
 	private static Logger log = LoggerFactory.getLogger(SendFileProcess.class);
-	private final String m_host;
-	private int m_port;
-	private final String m_fileName;
-	private final ByteBuffer m_buffer;
-	private final Handler<Progress> m_progressHandler;
-	private final Handler<AsyncResult<Void>> m_resultHandler;
-	private final int m_totalBlocks;
-	private Vertx m_vertx;
-	private ByteOrder m_byteOrder= ByteOrder.nativeOrder();
-	private DatagramSocket m_socket;
+	private static final int DATA_HEADER_SIZE=Opcode.getSizeInBytes()+DataMessage.BLOCK_ID_SIZE;
+	private final BlockSource m_source;
 	private SendStatus m_sendStatus=SendStatus.INIT;
-	private int m_currBlock=0;
-	private IBufferProtocol m_lastMsg;
-	private long m_lastSendTimeMs;
-	private int m_retries=0;
-	private long m_timerID;
+	private long m_totalBlocks=-1;
+	private long m_lastBlock=-1;
+	private long m_ackedBlock=0;
+	private long m_nextBlock=1;
+	private boolean m_reading;
+	private boolean m_sendingWindow;
+	private ByteBuf[] m_window;
+	/**
+	 * First send time of each block of the window, -1 once the block was sent again (Karn's algorithm).
+	 */
+	private long[] m_sentAt;
+	private final TransferPacer m_pacer;
+	/**
+	 * The next block while it waits for the tokens of the bandwidth limiter.
+	 */
+	private ByteBuf m_paced;
+	/**
+	 * The next window waits for the congestion pause.
+	 */
+	private boolean m_congestionPaused;
+	/**
+	 * When the first block of the window in flight was sent.
+	 */
+	private long m_windowSentNanos;
 
 
 	public SendFileProcess(Vertx vertx, ByteOrder byteOrder, String hostDst, int portDst, String fileName,
 						   Buffer buffer, Handler<Progress> progress, Handler<AsyncResult<Void>> handler) {
-		m_host = hostDst;
-		m_port = portDst;
-		m_vertx = vertx;
-		m_byteOrder=byteOrder;
-		m_fileName=fileName;
-		m_buffer=ByteBuffer.wrap(buffer.getBytes());
-		m_buffer.order(m_byteOrder);
-		m_progressHandler=progress;
-		m_resultHandler=handler;
-		m_totalBlocks=(buffer.length()/DataMessage.BLOCK_SIZE)+1;
-
+		this(vertx, byteOrder, hostDst, portDst, fileName, buffer, new TftpClientOptions(), progress, handler);
 	}
-	public void send(int port){
-		m_socket = m_vertx.createDatagramSocket(new DatagramSocketOptions().setReuseAddress(true));
-		m_timerID = m_vertx.setPeriodic(500, new Handler<Long>() {
 
-			@Override
-			public void handle(Long aLong) {
-				checkLastMsg();
-			}
-		});
-		m_socket.listen(port, "0.0.0.0", asyncResult -> {
-			if (asyncResult.succeeded()) {
-				startSendFile();
-				m_socket.handler(packet -> {
-					handleMsg(packet);
-				});
-			} else {
-				handleError(asyncResult.cause());
-			}
-		});
-	}
-	private void updateLastMsg(IBufferProtocol msg) {
-		m_lastMsg = msg;
-		m_lastSendTimeMs=System.currentTimeMillis();
-		m_retries=0;
+	public SendFileProcess(Vertx vertx, ByteOrder byteOrder, String hostDst, int portDst, String fileName,
+						   Buffer buffer, TftpClientOptions options, Handler<Progress> progress,
+						   Handler<AsyncResult<Void>> handler) {
+		this(vertx, byteOrder, hostDst, portDst, fileName, new BufferBlockSource(buffer), options, progress, handler);
 	}
 
-	private void checkLastMsg() {
-		if(m_lastMsg == null)
-			return;
-		long currTime = System.currentTimeMillis();
-		if(currTime-m_lastSendTimeMs> TIMEOUT_MS )
-		{
-			if (m_retries<MAX_RETRIES){
-				IBufferProtocol msg = m_lastMsg;
-				ByteBuffer buf=ByteBuffer.allocate(msg.getBufferSize());
-				m_socket.send(Buffer.buffer(buf.array()),m_port,m_host,datagramSocketAsyncResult -> {
-					if(datagramSocketAsyncResult.failed())
-						handleError(datagramSocketAsyncResult.cause());
-					else {
-						m_lastSendTimeMs=currTime;
-						m_retries++;
-						log.info("Resend last msg of file "+m_fileName+" to "+m_host);
-					}
-
-				});
-			}
-			else {
-				handleError(new TimeoutException());
-			}
+	public SendFileProcess(Vertx vertx, ByteOrder byteOrder, String hostDst, int portDst, String fileName,
+						   BlockSource source, TftpClientOptions options, Handler<Progress> progress,
+						   Handler<AsyncResult<Void>> handler) {
+		super(vertx, byteOrder, hostDst, portDst, fileName, options, handler);
+		m_source=source;
+		m_pacer=options.getBandwidthLimiter()!=null ? options.getBandwidthLimiter().pacer(hostDst, portDst) : null;
+		setProgressHandler(progress);
 
-		}
 	}
 
-	private void startSendFile() {
+	public void send(){
+		start();
+	}
+
+	@Override
+	protected void startTransfer() {
 		log.info("start Send File "+m_fileName+" to "+m_host);
 		WriteRequestMessage msg=new WriteRequestMessage(m_fileName);
-		ByteBuffer buf=ByteBuffer.allocate(msg.getBufferSize());
-		buf.order(m_byteOrder);
-		msg.toBuffer(buf);
-
-		m_socket.send(Buffer.buffer(buf.array()),m_port,m_host,datagramSocketAsyncResult -> {
-			if(datagramSocketAsyncResult.failed())
-				handleError(datagramSocketAsyncResult.cause());
-			else {
-				updateLastMsg(msg);
-				m_sendStatus = SendStatus.SEND_REQUEST;
-				log.info("Send Write request(WRQ) of file "+m_fileName+" to "+m_host);
-			}
+		addOptions(msg);
+		ByteBuf packet=encode(msg);
+		updateLastMsg(packet);
+		m_sendStatus = SendStatus.SEND_REQUEST;
 
+		sendPacket(packet, v -> {
+			log.info("Send Write request(WRQ) of file "+m_fileName+" to "+m_host);
 		});
+		packet.release();
 
 	}
 
-	private void handleError(Throwable cause) {
-		log.error("handleError: "+cause.getMessage());
-		close(Future.failedFuture(cause));
+	@Override
+	protected void handleMessage(Opcode opcode, PacketReader packet) throws UnknownOpcodeException {
+		switch (opcode) {
+			case ACK:
+				if(packet.hasBlockId())
+					handleACK(packet.getBlockId());
+				break;
+			case OACK:
+				handleOACK(packet);
+				break;
+			default:
+				break;
+		}
 	}
 
-	private void handleMsg(DatagramPacket packet) {
-		m_port=packet.sender().port();
-		byte[] bytes = packet.data().getBytes();
-		try {
-			Opcode opcode = Opcode.ValueOf(bytes[1]);
-			log.info("handle incoming OpCode:"+opcode);
-			switch (opcode) {
-				case ACK:
-					handleACK(bytes);
-					break;
-				case DATA:
-				case ERROR:
-				case RRQ:
-				case WRQ:
-					handleERRMsg(opcode,bytes);
-					break;
+	private void handleOACK(PacketReader packet) throws UnknownOpcodeException {
+		if(m_sendStatus!=SendStatus.SEND_REQUEST)
+			return;
+		// the OACK takes the place of ACK 0
+		sampleLastPacketRtt();
+		if(acceptOptionAck(packet))
+			startSendBlocks();
+	}
 
+	private void handleACK(int blockId) {
+		if(m_sendStatus==SendStatus.SEND_REQUEST && blockId==0){
+			// the server ignored the options, fall back to RFC 1350 lock-step transfer
+			m_blockSize=DataMessage.BLOCK_SIZE;
+			m_windowSize=1;
+			sampleLastPacketRtt();
+			log.info("receive(file: "+m_fileName+" host:"+m_host+") ACK "+blockId);
 
+			startSendBlocks();
+		}
+		else if(m_sendStatus==SendStatus.SENDING_FILE){
+			// ACKs are cumulative, map the 16 bits block id to the blocks in flight
+			long acked=m_ackedBlock+blockDistance(m_ackedBlock,blockId);
+			if(acked>=m_nextBlock)
+				return;
+			if(acked>m_ackedBlock){
+				long nextSentNanos=m_sentAt[windowIndex(acked+1)]>=0 ? m_sentAt[windowIndex(acked+1)] : m_windowSentNanos;
+				long rttNanos=sampleRtt(m_sentAt[windowIndex(acked)]);
+				congestion().onAcked((int)(acked-m_ackedBlock), rttNanos);
+				int ackedBytes=0;
+				for(long block=m_ackedBlock+1;block<=acked;block++){
+					ackedBytes+=m_window[windowIndex(block)].readableBytes()-DATA_HEADER_SIZE;
+					releaseBlock(block);
+				}
+				m_ackedBlock=acked;
+				if(log.isDebugEnabled())
+					log.debug("receive(file: "+m_fileName+" host:"+m_host+") ACK "+m_ackedBlock+"/"+m_totalBlocks);
+				transferred(ackedBytes);
+				if(m_ackedBlock==m_lastBlock){
+					m_sendStatus=SendStatus.END;
+					log.info("m_sendStatus=SendStatus.END");
+					close(Future.succeededFuture());
+				}
+				else if(m_nextBlock>acked+1 && m_recovery.partialAck(acked, nextSentNanos, smoothedRtt())){
+					// the server acknowledges the last block of each window, an earlier one is the last block it
+					// received before a gap: send again from the first missing block (RFC 7440)
+					congestion().onLoss();
+					resendWindow();
+					sendWindow();
+				}
+				else
+					sendNextWindow();
+			}
+			else if(m_recovery.duplicateAck(acked, m_windowSize>1 && m_nextBlock>acked+1, m_windowSentNanos,
+					smoothedRtt())){
+				// the server saw a gap in the window, send again from the first missing block (RFC 7440)
+				congestion().onLoss();
+				touch();
+				resendWindow();
 			}
-		} catch (UnknownOpcodeException e) {
-			handleError(e);
 		}
 
+
+
 	}
 
-	private void handleERRMsg(Opcode opcode, byte[] bytes) {
-		if (opcode == Opcode.ERROR) {
-			ByteBuffer buf=ByteBuffer.wrap(bytes);
-			buf.order(m_byteOrder);
-			ErrorMessage msg=new ErrorMessage(ErrorCode.NO_ERROR);
-			try {
-				msg.fromBuffer(buf);
-				handleError(new TftpError(msg));
-			} catch (UnknownOpcodeException e) {
-				handleError(e);
-			} catch (UnknownErrorException e) {
-				handleError(e);
-			}
+	@Override
+	protected long getTotalBytes() {
+		return m_source.size();
+	}
 
+	@Override
+	protected TransferDirection getDirection() {
+		return TransferDirection.UPLOAD;
+	}
 
-		}
+	private void startSendBlocks() {
+		if(m_source.size()>=0)
+			m_totalBlocks=(m_source.size()/m_blockSize)+1;
+		m_window=new ByteBuf[m_windowSize];
+		m_sentAt=new long[m_windowSize];
+		m_sendStatus=SendStatus.SENDING_FILE;
+		sendWindow();
 	}
 
-	private void handleACK(byte[] bytes) throws UnknownOpcodeException {
-		ByteBuffer buf=ByteBuffer.wrap(bytes);
-		buf.order(m_byteOrder);
-		AckMessage msg=new AckMessage();
-		msg.fromBuffer(buf);
-		if(m_sendStatus==SendStatus.SEND_REQUEST && msg.getBlockId()==0){
-			m_sendStatus=SendStatus.SENDING_FILE;
-			log.info("receive(file: "+m_fileName+" host:"+m_host+") ACK "+msg.getBlockId()+"/"+m_totalBlocks);
+	private int windowIndex(long block) {
+		return (int)(block%m_windowSize);
+	}
 
-			sendNextBlock();
-		}
-		else if(m_sendStatus==SendStatus.SENDING_FILE && msg.getBlockId()==m_currBlock){
-			m_progressHandler.handle(new Progress(this,m_currBlock/m_totalBlocks));
-			if(m_currBlock==m_totalBlocks){
-				m_sendStatus=SendStatus.END;
-				log.info("m_sendStatus=SendStatus.END");
-				close(Future.succeededFuture());
-//				m_resultHandler.handle(Future.succeededFuture());
-			}
-			else
-				sendNextBlock();
+	/**
+	 * Send the next window once the window in flight was acknowledged, after the congestion pause.
+	 */
+	private void sendNextWindow() {
+		long pause=m_nextBlock==m_ackedBlock+1 ? congestionPauseMillis() : 0;
+		if(pause<=0){
+			sendWindow();
+			return;
 		}
+		m_congestionPaused=true;
+		pauseTimeout();
+		m_vertx.setTimer(pause, id -> {
+			m_congestionPaused=false;
+			if(!isClosed())
+				sendWindow();
+		});
+	}
 
+	/**
+	 * Read and send new blocks until the window is full.
+	 * Blocks are read one at a time so they are sent in order, the source reads ahead to hide the latency.
+	 */
+	private void sendWindow() {
+		if(m_sendingWindow)
+			return;
+		m_sendingWindow=true;
+		while(!m_reading && m_paced==null && !m_congestionPaused && m_sendStatus==SendStatus.SENDING_FILE
+				&& (m_lastBlock<0 || m_nextBlock<=m_lastBlock) && m_nextBlock<=m_ackedBlock+m_windowSize){
+			long block=m_nextBlock;
+			m_reading=true;
+			m_source.read(block, m_blockSize, result -> {
+				m_reading=false;
+				if(result.failed())
+					abort(result.cause());
+				else
+					sendBlock(block, result.result());
+			});
+		}
+		m_sendingWindow=false;
+	}
 
+	/**
+	 * End the upload when a block cannot be read, the server is told so it does not wait for the rest of the file.
+	 */
+	private void abort(Throwable cause) {
+		if(m_sendStatus!=SendStatus.SENDING_FILE)
+			return;
+		m_sendStatus=SendStatus.END;
+		send(new ErrorMessage(ErrorCode.NO_ERROR), sent -> handleError(cause));
+	}
 
+	private void sendBlock(long block, Buffer data) {
+		if(m_sendStatus!=SendStatus.SENDING_FILE)
+			return;
+		ByteBuf packet=encodeData(block,data);
+		long wait=m_pacer!=null ? m_pacer.reserve(packet.readableBytes()) : 0;
+		int length=data.length();
+		if(wait>0){
+			// the block is not part of the window until it was sent, resendWindow must not send it early
+			m_paced=packet;
+			long waitMillis=Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait));
+			if(m_nextBlock==m_ackedBlock+1)
+				pauseTimeout(); // nothing in flight, waiting for tokens is not a lost packet
+			else
+				postponeTimeout(waitMillis); // the server acknowledges the window once it got the paced block too
+			m_vertx.setTimer(waitMillis, id -> {
+				if(m_paced!=packet)
+					return;
+				m_paced=null;
+				transmitBlock(block, length, packet);
+			});
+			return;
+		}
+		transmitBlock(block, length, packet);
 	}
 
-	private void sendNextBlock() {
-		int blockId=m_currBlock+1;
-		byte[] data;
-		if(m_buffer.remaining()>DataMessage.BLOCK_SIZE)
-			data=new byte[DataMessage.BLOCK_SIZE];
-		else
-			data=new byte[m_buffer.remaining()];
-		m_buffer.get(data);
-		DataMessage msg=new DataMessage(blockId,data);
-		ByteBuffer buf=ByteBuffer.allocate(msg.getBufferSize());
-		buf.order(m_byteOrder);
-		msg.toBuffer(buf);
-
-		m_socket.send(Buffer.buffer(buf.array()),m_port,m_host,datagramSocketAsyncResult -> {
-			if(datagramSocketAsyncResult.failed())
-				handleError(datagramSocketAsyncResult.cause());
-			else {
-				updateLastMsg(msg);
-				m_currBlock = blockId;
-				log.info("send (file: "+m_fileName+" host:"+m_host+") Block "+m_currBlock+"/"+m_totalBlocks);
-			}
+	private void transmitBlock(long block, int length, ByteBuf packet) {
+		if(length<m_blockSize)
+			m_lastBlock=block;
+		m_nextBlock=block+1;
+		// the window owns the packet until the block is acknowledged
+		m_window[windowIndex(block)]=packet;
+		m_sentAt[windowIndex(block)]=System.nanoTime();
+		if(block==m_ackedBlock+1)
+			m_windowSentNanos=m_sentAt[windowIndex(block)];
+		updateLastMsg(packet);
+
+		sendPacket(packet, v -> {
+			log.info("send (file: "+m_fileName+" host:"+m_host+") Block "+block+"/"+m_totalBlocks);
 		});
+		sendWindow();
 
 	}
-	private void close(AsyncResult<Void> result){
-		m_vertx.cancelTimer(m_timerID);
 
-		m_socket.close((r) -> {
-			m_resultHandler.handle(result);
-		});
+	/**
+	 * Send again every block of the window that was not acknowledged.
+	 */
+	private void resendWindow() {
+		m_windowSentNanos=System.nanoTime();
+		for(long block=m_ackedBlock+1;block<m_nextBlock;block++){
+			m_sentAt[windowIndex(block)]=-1;
+			sendPacket(m_window[windowIndex(block)], null);
+			// retransmissions use the bandwidth too, the next new block waits for them
+			if(m_pacer!=null)
+				m_pacer.reserve(m_window[windowIndex(block)].readableBytes());
+		}
+		countRetransmitted((int)(m_nextBlock-m_ackedBlock-1));
+	}
 
+	private void releaseBlock(long block) {
+		int index=windowIndex(block);
+		if(m_window[index]!=null){
+			m_window[index].release();
+			m_window[index]=null;
+		}
+	}
+
+	@Override
+	protected void release(AsyncResult<Void> result, Handler<AsyncResult<Void>> handler) {
+		if(m_paced!=null){
+			m_paced.release();
+			m_paced=null;
+		}
+		if(m_pacer!=null)
+			m_pacer.release();
+		if(m_window!=null){
+			for(long block=m_ackedBlock+1;block<m_nextBlock;block++)
+				releaseBlock(block);
+		}
+		m_source.close(closed -> handler.handle(result));
+	}
+
+	@Override
+	protected void retransmit() {
+		if(m_sendStatus==SendStatus.SENDING_FILE)
+			resendWindow();
+		else
+			super.retransmit();
 	}
 
 	private enum SendStatus {
@@ -0,0 +1,228 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TimerWheel.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Hashed timing wheel that tracks the retransmission deadlines of every transfer of an event loop.
+ * One wheel exists per event loop, shared by every {@link Context} of the loop since they all run on its thread; a
+ * worker context has a wheel of its own. A wheel is only used from its thread. Scheduling and cancelling a
+ * {@link Timeout} is O(1) and reuses the timeout, the wheel runs a single Vert.x timer while at least one
+ * timeout is pending and none otherwise.
+ * Ticks are counted on the monotonic clock, a step of the wall clock neither stalls nor fires the deadlines.
+ */
+public final class TimerWheel {
+	public static final long TICK_MS = 10;
+	private static final int WHEEL_SIZE = 512;
+	private static final String CONTEXT_KEY = TimerWheel.class.getName();
+	/**
+	 * The wheel of the event loop, an event loop is a single thread that lives as long as its Vert.x instance.
+	 */
+	private static final ThreadLocal<TimerWheel> LOOP_WHEEL = new ThreadLocal<>();
+	private static Logger log = LoggerFactory.getLogger(TimerWheel.class);
+
+	private final Vertx m_vertx;
+	private final Timeout[] m_slots = new Timeout[WHEEL_SIZE];
+	private final List<Timeout> m_expired = new ArrayList<>();
+	private final LongSupplier m_clock;
+	private final long m_startNanos;
+	private long m_tick;
+	private int m_pending;
+	private long m_timerID = -1;
+
+	private TimerWheel(Vertx vertx) {
+		this(vertx, System::nanoTime);
+	}
+
+	/**
+	 * @param clock the time in nanoseconds, only differences are used.
+	 */
+	TimerWheel(Vertx vertx, LongSupplier clock) {
+		m_vertx = vertx;
+		m_clock = clock;
+		m_startNanos = clock.getAsLong();
+	}
+
+	/**
+	 * @return the wheel of the event loop of the context, created on first use.
+	 */
+	public static TimerWheel get(Vertx vertx, Context context) {
+		if (context.isEventLoopContext() && ((ContextInternal) context).nettyEventLoop().inEventLoop()) {
+			TimerWheel wheel = LOOP_WHEEL.get();
+			if (wheel == null || wheel.m_vertx != vertx) {
+				wheel = new TimerWheel(vertx);
+				LOOP_WHEEL.set(wheel);
+			}
+			return wheel;
+		}
+		TimerWheel wheel = context.get(CONTEXT_KEY);
+		if (wheel == null) {
+			wheel = new TimerWheel(vertx);
+			context.put(CONTEXT_KEY, wheel);
+		}
+		return wheel;
+	}
+
+	public Timeout newTimeout(Handler<Void> handler) {
+		return new Timeout(handler);
+	}
+
+	/**
+	 * Schedule the timeout to expire in delayMs, replacing its previous deadline.
+	 */
+	public void schedule(Timeout timeout, long delayMs) {
+		unlink(timeout);
+		if (m_timerID == -1)
+			startTicking();
+		long ticks = Math.max(1, (delayMs + TICK_MS - 1) / TICK_MS);
+		timeout.m_deadlineTick = m_tick + ticks;
+		int slot = (int) (timeout.m_deadlineTick & (WHEEL_SIZE - 1));
+		timeout.m_slot = slot;
+		timeout.m_next = m_slots[slot];
+		if (m_slots[slot] != null)
+			m_slots[slot].m_prev = timeout;
+		m_slots[slot] = timeout;
+		m_pending++;
+	}
+
+	/**
+	 * Push the deadline of a pending timeout back by delayMs, a timeout that is not pending stays so.
+	 */
+	public void postpone(Timeout timeout, long delayMs) {
+		if (timeout.isPending())
+			schedule(timeout, (timeout.m_deadlineTick - m_tick) * TICK_MS + delayMs);
+	}
+
+	public void cancel(Timeout timeout) {
+		unlink(timeout);
+		if (m_pending == 0)
+			stopTicking();
+	}
+
+	private void unlink(Timeout timeout) {
+		if (timeout.m_slot < 0)
+			return;
+		if (timeout.m_prev != null)
+			timeout.m_prev.m_next = timeout.m_next;
+		else
+			m_slots[timeout.m_slot] = timeout.m_next;
+		if (timeout.m_next != null)
+			timeout.m_next.m_prev = timeout.m_prev;
+		timeout.m_prev = null;
+		timeout.m_next = null;
+		timeout.m_slot = -1;
+		m_pending--;
+	}
+
+	public int getPending() {
+		return m_pending;
+	}
+
+	private long currentTick() {
+		return (m_clock.getAsLong() - m_startNanos) / (TICK_MS * 1_000_000);
+	}
+
+	private void startTicking() {
+		m_tick = currentTick();
+		m_timerID = m_vertx.setPeriodic(TICK_MS, id -> advance());
+	}
+
+	private void stopTicking() {
+		if (m_timerID != -1) {
+			m_vertx.cancelTimer(m_timerID);
+			m_timerID = -1;
+		}
+	}
+
+	/**
+	 * Expire the timeouts of every tick elapsed since the last call, a late timer catches up at most one
+	 * revolution since every slot is then visited.
+	 */
+	void advance() {
+		long target = currentTick();
+		long steps = Math.min(target - m_tick, WHEEL_SIZE);
+		for (long i = 1; i <= steps; i++) {
+			for (Timeout timeout = m_slots[(int) ((m_tick + i) & (WHEEL_SIZE - 1))]; timeout != null; timeout = timeout.m_next) {
+				if (timeout.m_deadlineTick <= target)
+					m_expired.add(timeout);
+			}
+		}
+		m_tick = Math.max(m_tick, target);
+		// handlers may schedule or cancel any timeout, run them once the slots were walked
+		for (int i = 0; i < m_expired.size(); i++)
+			unlink(m_expired.get(i));
+		for (int i = 0; i < m_expired.size(); i++) {
+			Timeout timeout = m_expired.get(i);
+			// scheduled again by the handler of another timeout
+			if (timeout.isPending())
+				continue;
+			try {
+				timeout.m_handler.handle(null);
+			} catch (RuntimeException e) {
+				log.error("timeout handler failed", e);
+			}
+		}
+		m_expired.clear();
+		if (m_pending == 0)
+			stopTicking();
+	}
+
+	/**
+	 * A deadline owned by one transfer, scheduled again each time the transfer makes progress.
+	 */
+	public static final class Timeout {
+		private final Handler<Void> m_handler;
+		private Timeout m_prev;
+		private Timeout m_next;
+		private int m_slot = -1;
+		private long m_deadlineTick;
+
+		private Timeout(Handler<Void> handler) {
+			m_handler = handler;
+		}
+
+		public boolean isPending() {
+			return m_slot >= 0;
+		}
+	}
+}
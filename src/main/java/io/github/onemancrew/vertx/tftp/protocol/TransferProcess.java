@@ -0,0 +1,624 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol;
+
+import io.github.onemancrew.vertx.tftp.Progress;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.TransferStatistics;
+import io.github.onemancrew.vertx.tftp.congestion.CongestionWindow;
+import io.github.onemancrew.vertx.tftp.metrics.TftpMetrics;
+import io.github.onemancrew.vertx.tftp.metrics.TransferDirection;
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.TransferOption;
+import io.github.onemancrew.vertx.tftp.protocol.exception.OptionNegotiationException;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TftpError;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TimeoutException;
+import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownErrorException;
+import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownOpcodeException;
+import io.github.onemancrew.vertx.tftp.protocol.message.DataMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.ErrorMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.IBufferProtocol;
+import io.github.onemancrew.vertx.tftp.protocol.message.OptionAckMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.PacketReader;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.RequestMessage;
+import io.github.onemancrew.vertx.tftp.protocol.transport.DedicatedTransport;
+import io.github.onemancrew.vertx.tftp.protocol.transport.TransferChannel;
+import io.github.onemancrew.vertx.tftp.protocol.transport.Transport;
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramPacket;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TransferProcess.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Socket, retransmission and option negotiation logic shared by {@link SendFileProcess} and {@link DownloadFileProcess}.
+ */
+public abstract class TransferProcess {
+	/**
+	 * Block numbers are 16 bits on the wire and roll over to 0 after 65535.
+	 */
+	private static final int BLOCK_ID_MASK = 0xFFFF;
+	private static Logger log = LoggerFactory.getLogger(TransferProcess.class);
+	protected final String m_host;
+	protected int m_port;
+	/**
+	 * Whether the server answered, m_port is then its transfer identifier instead of its listen port.
+	 */
+	private boolean m_serverAnswered;
+	protected final String m_fileName;
+	protected final TftpClientOptions m_options;
+	protected final Vertx m_vertx;
+	protected ByteOrder m_byteOrder = ByteOrder.nativeOrder();
+	private Transport m_transport;
+	private TransferChannel m_channel;
+	private Handler<TransferStatistics> m_statisticsHandler;
+	private final TftpMetrics m_metrics;
+	private boolean m_started;
+	private Handler<Progress> m_progressHandler;
+	private final long m_progressIntervalNanos;
+	private long m_startNanos;
+	private long m_transferredBytes;
+	private long m_lastProgressNanos;
+	private long m_lastProgressBytes;
+	protected int m_blockSize = DataMessage.BLOCK_SIZE;
+	protected int m_windowSize = 1;
+	/**
+	 * Size of the file announced by the server with the tsize option (RFC 2349), -1 if unknown.
+	 */
+	protected long m_transferSize = -1;
+	private final Handler<AsyncResult<Void>> m_resultHandler;
+	private ByteBuf m_lastPacket;
+	/**
+	 * Send time of the last packet, -1 once it was sampled or retransmitted (Karn's algorithm).
+	 */
+	private long m_lastSendTimeNanos = -1;
+	private final RttEstimator m_rtt;
+	/**
+	 * Time of the last progress, the transfer fails when the server stays silent for the idle timeout after it.
+	 */
+	private long m_idleSinceNanos;
+	private TimerWheel m_timerWheel;
+	private TimerWheel.Timeout m_timeout;
+	private long m_timeouts;
+	private long m_retransmittedPackets;
+	private boolean m_closed;
+	private CongestionWindow m_congestion;
+	protected final LossRecovery m_recovery = new LossRecovery();
+	/**
+	 * The context the transfer runs on, set once it started.
+	 */
+	protected Context m_context;
+	private final PacketReader m_reader = new PacketReader();
+
+	protected TransferProcess(Vertx vertx, ByteOrder byteOrder, String hostDst, int portDst, String fileName,
+							  TftpClientOptions options, Handler<AsyncResult<Void>> handler) {
+		m_vertx = vertx;
+		m_byteOrder = byteOrder;
+		m_host = hostDst;
+		m_port = portDst;
+		m_fileName = fileName;
+		m_options = options;
+		m_resultHandler = handler;
+		m_transport = new DedicatedTransport(vertx, options);
+		m_rtt = new RttEstimator(options.getInitialRetransmitTimeout(), options.getMinRetransmitTimeout(),
+				options.getMaxRetransmitTimeout());
+		m_progressIntervalNanos = options.getProgressInterval() * 1_000_000;
+		m_metrics = options.getMetrics();
+	}
+
+	/**
+	 * @return the direction the metrics of the transfer are recorded under.
+	 */
+	protected TransferDirection getDirection() {
+		return TransferDirection.DOWNLOAD;
+	}
+
+	/**
+	 * Set the transport the transfer opens its channel with, a dedicated socket by default.
+	 */
+	public void setTransport(Transport transport) {
+		m_transport = transport;
+	}
+
+	/**
+	 * Set the handler of the progress events of the transfer, see {@link TftpClientOptions#setProgressInterval(long)}.
+	 */
+	public void setProgressHandler(Handler<Progress> handler) {
+		m_progressHandler = handler;
+	}
+
+	protected boolean hasProgressHandler() {
+		return m_progressHandler != null;
+	}
+
+	/**
+	 * Set a handler called with the statistics of the transfer once it completed or failed.
+	 */
+	public void setStatisticsHandler(Handler<TransferStatistics> handler) {
+		m_statisticsHandler = handler;
+	}
+
+	protected void start() {
+		// the channel, its handlers and the retransmission timeout all run on one context
+		Context context = m_vertx.getOrCreateContext();
+		context.runOnContext(v -> open(context));
+	}
+
+	private void open(Context context) {
+		m_context = context;
+		m_startNanos = System.nanoTime();
+		m_lastProgressNanos = m_startNanos;
+		if (!m_closed) {
+			m_started = true;
+			m_metrics.transferStarted(getDirection());
+		}
+		m_timerWheel = TimerWheel.get(m_vertx, context);
+		m_timeout = m_timerWheel.newTimeout(v -> checkLastMsg());
+		m_transport.open(m_host, opened -> {
+			if (opened.failed()) {
+				handleError(opened.cause());
+				return;
+			}
+			m_channel = opened.result();
+			if (m_closed) {
+				m_channel.close(closed -> {});
+				return;
+			}
+			m_channel.handler(this::handleMsg);
+			startTransfer();
+		});
+	}
+
+	/**
+	 * Send the RRQ/WRQ that opens the transfer.
+	 */
+	protected abstract void startTransfer();
+
+	/**
+	 * Handle an incoming ACK, DATA or OACK message.
+	 */
+	protected abstract void handleMessage(Opcode opcode, PacketReader packet) throws UnknownOpcodeException;
+
+	/**
+	 * Add the options this client wants to negotiate to the request.
+	 */
+	protected RequestMessage addOptions(RequestMessage msg) {
+		if (m_options.getBlockSize() != DataMessage.BLOCK_SIZE)
+			msg.addOption(TransferOption.BLOCK_SIZE.getName(), String.valueOf(m_options.getBlockSize()));
+		if (m_options.getWindowSize() != 1)
+			msg.addOption(TransferOption.WINDOW_SIZE.getName(), String.valueOf(m_options.getWindowSize()));
+		return msg;
+	}
+
+	/**
+	 * Apply the options acknowledged by the server.
+	 * An option the server answers with a value the client did not ask for terminates the transfer with an
+	 * ERROR (8) as required by RFC 2347.
+	 * @return true if the transfer can continue.
+	 */
+	protected boolean acceptOptionAck(PacketReader packet) throws UnknownOpcodeException {
+		ByteBuffer buf = packet.toByteBuffer();
+		buf.order(m_byteOrder);
+		OptionAckMessage msg = new OptionAckMessage();
+		msg.fromBuffer(buf);
+		String blockSize = msg.getOption(TransferOption.BLOCK_SIZE.getName());
+		if (blockSize != null) {
+			int value = parseOption(blockSize);
+			if (!TransferOption.BLOCK_SIZE.isValid(value) || value > m_options.getBlockSize()) {
+				rejectOption(TransferOption.BLOCK_SIZE, blockSize);
+				return false;
+			}
+			m_blockSize = value;
+		}
+		String transferSize = msg.getOption(TransferOption.TRANSFER_SIZE.getName());
+		if (transferSize != null) {
+			long value = parseSize(transferSize);
+			if (!TransferOption.TRANSFER_SIZE.isValid(value)) {
+				rejectOption(TransferOption.TRANSFER_SIZE, transferSize);
+				return false;
+			}
+			m_transferSize = value;
+		}
+		String windowSize = msg.getOption(TransferOption.WINDOW_SIZE.getName());
+		if (windowSize != null) {
+			int value = parseOption(windowSize);
+			if (!TransferOption.WINDOW_SIZE.isValid(value) || value > m_options.getWindowSize()) {
+				rejectOption(TransferOption.WINDOW_SIZE, windowSize);
+				return false;
+			}
+			m_windowSize = value;
+		}
+		log.info("receive(file: " + m_fileName + " host:" + m_host + ") OACK " + msg.getOptions());
+		return true;
+	}
+
+	private static long parseSize(String value) {
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static int parseOption(String value) {
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private void rejectOption(TransferOption option, String value) {
+		send(new ErrorMessage(ErrorCode.OPTION_NEGOTIATION_FAILED),
+				v -> handleError(new OptionNegotiationException(option.getName(), value)));
+	}
+
+	/**
+	 * Encode a message into a pooled direct buffer that the socket writes without copying.
+	 * The caller owns the returned packet and must release it.
+	 */
+	protected ByteBuf encode(IBufferProtocol msg) {
+		ByteBuf packet = m_options.getBufferAllocator().directBuffer(msg.getBufferSize());
+		msg.toByteBuf(packet);
+		return packet;
+	}
+
+	/**
+	 * Encode a DATA message, the block data is copied once into the pooled packet.
+	 * The caller owns the returned packet and must release it.
+	 */
+	protected ByteBuf encodeData(long block, Buffer data) {
+		ByteBuf packet = m_options.getBufferAllocator().directBuffer(DataMessage.getBufferSize(data.length()));
+		DataMessage.toByteBuf(packet, toBlockId(block), data.getByteBuf());
+		return packet;
+	}
+
+	/**
+	 * Encode and send a message to the server.
+	 * @param onSent called once the message was written to the socket, may be null.
+	 */
+	protected void send(IBufferProtocol msg, Handler<Void> onSent) {
+		ByteBuf packet = encode(msg);
+		sendPacket(packet, onSent);
+		packet.release();
+	}
+
+	/**
+	 * Send an encoded message to the server.
+	 * The packet is retained until the socket wrote it, so it can be sent again while a previous send is pending.
+	 * @param onSent called once the message was written to the socket, may be null.
+	 */
+	protected void sendPacket(ByteBuf packet, Handler<Void> onSent) {
+		packet.retain();
+		m_metrics.bytesSent(getDirection(), packet.readableBytes());
+		m_channel.send(Buffer.buffer(packet), m_port, datagramSocketAsyncResult -> {
+			packet.release();
+			if (datagramSocketAsyncResult.failed())
+				handleError(datagramSocketAsyncResult.cause());
+			else if (onSent != null)
+				onSent.handle(null);
+		});
+	}
+
+	/**
+	 * Remember the packet that waits for an answer, it is sent again when the answer does not arrive in time.
+	 * The packet is retained until it is replaced, the caller keeps its own reference.
+	 */
+	protected void updateLastMsg(ByteBuf packet) {
+		releaseLastPacket();
+		m_lastPacket = packet.retain();
+		m_lastSendTimeNanos = System.nanoTime();
+		touch();
+	}
+
+	private void releaseLastPacket() {
+		m_lastSendTimeNanos = -1;
+		if (m_lastPacket != null) {
+			m_lastPacket.release();
+			m_lastPacket = null;
+		}
+	}
+
+	/**
+	 * Restart the retransmission timeout after the transfer made progress.
+	 */
+	protected void touch() {
+		m_idleSinceNanos = System.nanoTime();
+		if (!m_closed)
+			m_timerWheel.schedule(m_timeout, nextTimeout());
+	}
+
+	/**
+	 * Measure the round trip time of the last packet, once, if it was not retransmitted.
+	 * @return the round trip time in nanoseconds, -1 if it was not measured.
+	 */
+	protected long sampleLastPacketRtt() {
+		long rttNanos = sampleRtt(m_lastSendTimeNanos);
+		m_lastSendTimeNanos = -1;
+		return rttNanos;
+	}
+
+	/**
+	 * Add a round trip time measurement of a packet sent at sendTimeNanos, ignored if negative.
+	 * @return the round trip time in nanoseconds, -1 if it was not measured.
+	 */
+	protected long sampleRtt(long sendTimeNanos) {
+		if (sendTimeNanos < 0)
+			return -1;
+		long rttNanos = System.nanoTime() - sendTimeNanos;
+		m_metrics.rttSampled(rttNanos);
+		m_rtt.sample(rttNanos / 1_000_000.0);
+		return rttNanos;
+	}
+
+	/**
+	 * @return the smoothed round trip time in milliseconds, 0 before the first sample.
+	 */
+	protected double smoothedRtt() {
+		return m_rtt.getSmoothedRtt();
+	}
+
+	/**
+	 * The congestion window of the transfer, created on first use once the window size was negotiated.
+	 */
+	protected CongestionWindow congestion() {
+		if (m_congestion == null)
+			m_congestion = m_options.getCongestionControl().newWindow(m_windowSize);
+		return m_congestion;
+	}
+
+	/**
+	 * How long to wait before the next window, so that windows of the negotiated size go at the rate of the
+	 * congestion window: the peer acknowledges once per negotiated window and would stall on a smaller one.
+	 * @return the pause in milliseconds, 0 to go on at once.
+	 */
+	protected long congestionPauseMillis() {
+		double window = congestion().getWindow();
+		if (window >= m_windowSize || m_rtt.getSamples() == 0)
+			return 0;
+		double pause = m_rtt.getSmoothedRtt() * (m_windowSize / window - 1);
+		// the peer retransmits when it waits for too long, the window is then effectively larger
+		return (long) Math.min(pause, m_options.getPeerRetransmitTimeout() / 2.0);
+	}
+
+	/**
+	 * Count packets sent again without waiting for the timeout, e.g. after a gap reported by the server.
+	 */
+	protected void countRetransmitted(int packets) {
+		m_retransmittedPackets += packets;
+		m_metrics.retransmitted(packets);
+	}
+
+	/**
+	 * Count bytes of the file acknowledged by the server or received from it, and report the progress once the
+	 * interval elapsed.
+	 */
+	protected void transferred(int bytes) {
+		m_transferredBytes += bytes;
+		if (m_progressHandler == null)
+			return;
+		long now = System.nanoTime();
+		if (now - m_lastProgressNanos >= m_progressIntervalNanos)
+			reportProgress(now);
+	}
+
+	private void reportProgress(long now) {
+		long intervalNanos = now - m_lastProgressNanos;
+		double rate = intervalNanos > 0 ? (m_transferredBytes - m_lastProgressBytes) * 1e9 / intervalNanos : 0;
+		m_lastProgressNanos = now;
+		m_lastProgressBytes = m_transferredBytes;
+		m_progressHandler.handle(new Progress(this, m_fileName, m_transferredBytes, getTotalBytes(),
+				(now - m_startNanos) / 1_000_000, rate, getStatistics()));
+	}
+
+	/**
+	 * @return the size of the file, -1 if unknown.
+	 */
+	protected long getTotalBytes() {
+		return m_transferSize;
+	}
+
+	/**
+	 * @return the size of the file announced by the server with the tsize option, -1 if unknown.
+	 */
+	public long getTransferSize() {
+		return m_transferSize;
+	}
+
+	public TransferStatistics getStatistics() {
+		return new TransferStatistics(m_rtt.getSmoothedRtt(), m_rtt.getRttVariance(), m_rtt.getRto(),
+				m_rtt.getSamples(), m_timeouts, m_retransmittedPackets, m_recovery.getDuplicateBlocks(),
+				m_recovery.getDuplicateAcks(), m_recovery.getReAcks(), m_recovery.getSuppressed());
+	}
+
+	private long nextTimeout() {
+		long rto = m_rtt.getRto();
+		double jitter = m_options.getRetransmitJitter();
+		if (jitter > 0)
+			rto += (long) (rto * jitter * ThreadLocalRandom.current().nextDouble());
+		return rto;
+	}
+
+
+	/**
+	 * Stop retransmitting the last packet, until the next call to {@link #updateLastMsg(ByteBuf)}.
+	 */
+	protected void pauseTimeout() {
+		releaseLastPacket();
+		m_timerWheel.cancel(m_timeout);
+	}
+
+	/**
+	 * Give the server delayMs more to answer, the time the transfer itself waits before sending is not a loss.
+	 */
+	protected void postponeTimeout(long delayMs) {
+		if (!m_closed)
+			m_timerWheel.postpone(m_timeout, delayMs);
+	}
+
+	/**
+	 * Called when the answer to the last packet did not arrive in time.
+	 */
+	protected void retransmit() {
+		countRetransmitted(1);
+		sendPacket(m_lastPacket, null);
+	}
+
+	private void checkLastMsg() {
+		if (m_lastPacket == null || m_closed)
+			return;
+		m_metrics.timeout();
+		if (m_congestion != null)
+			m_congestion.onTimeout();
+		long idleLeft = m_options.getIdleTimeout() - (System.nanoTime() - m_idleSinceNanos) / 1_000_000;
+		if (idleLeft > 0) {
+			m_timeouts++;
+			m_lastSendTimeNanos = -1;
+			m_rtt.backoff();
+			// the last retransmission waits at most until the idle timeout, not a whole backed off timeout
+			m_timerWheel.schedule(m_timeout, Math.min(nextTimeout(), idleLeft));
+			log.info("Resend last msg of file " + m_fileName + " to " + m_host + " rto " + m_rtt.getRto() + "ms");
+			retransmit();
+		} else {
+			handleError(new TimeoutException());
+		}
+	}
+
+	protected static int toBlockId(long block) {
+		return (int) (block & BLOCK_ID_MASK);
+	}
+
+	/**
+	 * @return how many blocks blockId is ahead of block, taking the 16 bits roll over into account.
+	 */
+	protected static int blockDistance(long block, int blockId) {
+		return (int) ((blockId - block) & BLOCK_ID_MASK);
+	}
+
+	protected void handleError(Throwable cause) {
+		log.error("handleError: " + cause.getMessage());
+		close(Future.failedFuture(cause));
+	}
+
+	private void handleMsg(DatagramPacket packet) {
+		m_port = packet.sender().port();
+		m_serverAnswered = true;
+		m_metrics.bytesReceived(getDirection(), packet.data().length());
+		PacketReader reader = m_reader.wrap(packet.data());
+		Opcode opcode = reader.getOpcode();
+		if (opcode == null) {
+			handleError(new UnknownOpcodeException((short) reader.getOpcodeValue()));
+			return;
+		}
+		if (log.isDebugEnabled())
+			log.debug("handle incoming OpCode:" + opcode);
+		try {
+			if (opcode == Opcode.ERROR)
+				handleERRMsg(reader);
+			else
+				handleMessage(opcode, reader);
+		} catch (UnknownOpcodeException e) {
+			handleError(e);
+		}
+
+	}
+
+	private void handleERRMsg(PacketReader packet) {
+		ByteBuffer buf = packet.toByteBuffer();
+		buf.order(m_byteOrder);
+		ErrorMessage msg = new ErrorMessage(ErrorCode.NO_ERROR);
+		try {
+			msg.fromBuffer(buf);
+			m_metrics.errorReceived(msg.getErrorCode());
+			handleError(new TftpError(msg));
+		} catch (UnknownOpcodeException e) {
+			handleError(e);
+		} catch (UnknownErrorException e) {
+			handleError(e);
+		}
+	}
+
+	/**
+	 * @return true once a packet of the server was received, the transfer is known to the server.
+	 */
+	protected boolean hasServerAnswered() {
+		return m_serverAnswered;
+	}
+
+	protected boolean isClosed() {
+		return m_closed;
+	}
+
+	protected void close(AsyncResult<Void> result) {
+		if (m_closed)
+			return;
+		m_closed = true;
+		if (m_timeout != null)
+			m_timerWheel.cancel(m_timeout);
+		releaseLastPacket();
+		if (m_started)
+			m_metrics.transferEnded(getDirection(), System.nanoTime() - m_startNanos, result.succeeded());
+		if (m_progressHandler != null && result.succeeded())
+			reportProgress(System.nanoTime());
+		if (m_statisticsHandler != null)
+			m_statisticsHandler.handle(getStatistics());
+
+		if (m_channel == null) {
+			release(result, m_resultHandler);
+			return;
+		}
+		m_channel.close((r) -> {
+			release(result, m_resultHandler);
+		});
+
+	}
+
+	/**
+	 * Release the resources of the transfer once the socket is closed.
+	 * @param result the outcome of the transfer.
+	 * @param handler called with the final outcome of the transfer.
+	 */
+	protected void release(AsyncResult<Void> result, Handler<AsyncResult<Void>> handler) {
+		handler.handle(result);
+	}
+}
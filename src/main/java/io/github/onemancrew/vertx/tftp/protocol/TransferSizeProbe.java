@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol;
+
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.TransferOption;
+import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownOpcodeException;
+import io.github.onemancrew.vertx.tftp.protocol.message.ErrorMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.PacketReader;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.ReadRequestMessage;
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import java.nio.ByteOrder;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TransferSizeProbe.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Asks the server the size of a file without downloading it.
+ * The read request carries only the tsize option (RFC 2349); the OACK of the server holds the size and the transfer
+ * is aborted with an ERROR (8) before the first block, as RFC 2347 allows. A server without option support answers
+ * with the first block, the probe is aborted the same way and the size is unknown.
+ */
+public class TransferSizeProbe extends TransferProcess {
+	private final Handler<AsyncResult<Long>> m_sizeHandler;
+	private boolean m_aborted;
+
+	/**
+	 * @param handler called with the size of the file, -1 if the server does not support the tsize option.
+	 */
+	public TransferSizeProbe(Vertx vertx, ByteOrder byteOrder, String hostDst, int portDst, String fileName,
+							 TftpClientOptions options, Handler<AsyncResult<Long>> handler) {
+		super(vertx, byteOrder, hostDst, portDst, fileName, options, null);
+		m_sizeHandler = handler;
+	}
+
+	public void probe() {
+		start();
+	}
+
+	@Override
+	protected void startTransfer() {
+		ReadRequestMessage msg = new ReadRequestMessage(m_fileName);
+		msg.addOption(TransferOption.TRANSFER_SIZE.getName(), "0");
+		ByteBuf packet = encode(msg);
+		updateLastMsg(packet);
+		sendPacket(packet, null);
+		packet.release();
+	}
+
+	@Override
+	protected void handleMessage(Opcode opcode, PacketReader packet) throws UnknownOpcodeException {
+		switch (opcode) {
+			case OACK:
+				sampleLastPacketRtt();
+				if (acceptOptionAck(packet))
+					abort();
+				break;
+			case DATA:
+				abort();
+				break;
+			default:
+				break;
+		}
+	}
+
+	@Override
+	protected void release(AsyncResult<Void> result, Handler<AsyncResult<Void>> handler) {
+		m_sizeHandler.handle(result.map(v -> m_transferSize));
+	}
+
+	private void abort() {
+		if (m_aborted)
+			return;
+		m_aborted = true;
+		pauseTimeout();
+		send(new ErrorMessage(ErrorCode.OPTION_NEGOTIATION_FAILED), v -> close(Future.succeededFuture()));
+	}
+}
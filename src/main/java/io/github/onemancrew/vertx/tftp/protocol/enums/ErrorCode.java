@@ -43,7 +43,8 @@ public enum ErrorCode {
 	ILLEGAL_TFTP_OPERATION((short)4,"Illegal TFTP operation."),
 	UNKNOWN_TRANSFER_ID((short)5,"Unknown transfer ID."),
 	FILE_ALREADY_EXISTS((short)6,"File already exists."),
-	NO_SUCH_USER((short)7,"No such user.");
+	NO_SUCH_USER((short)7,"No such user."),
+	OPTION_NEGOTIATION_FAILED((short)8,"Option negotiation failed.");
 
 	private final short error;
 	private final String description;
@@ -61,7 +62,7 @@ public enum ErrorCode {
 		return description;
 	}
 	public static ErrorCode ValueOf(short value) throws UnknownErrorException {
-		if (value >7 || value <0)
+		if (value >8 || value <0)
 			throw new UnknownErrorException(value);
 		switch (value) {
 			case 1: return ErrorCode.FILE_NOT_FOUND;
@@ -71,6 +72,7 @@ public enum ErrorCode {
 			case 5: return ErrorCode.UNKNOWN_TRANSFER_ID;
 			case 6: return ErrorCode.FILE_ALREADY_EXISTS;
 			case 7: return ErrorCode.NO_SUCH_USER;
+			case 8: return ErrorCode.OPTION_NEGOTIATION_FAILED;
 		}
 		return ErrorCode.NO_ERROR;
 
@@ -40,7 +40,8 @@ public enum Opcode {
 	WRQ((short)2),	// Write Request (WRQ)
 	DATA((short)3),	// Date (DATA)
 	ACK((short)4),	// Acknowledgment (ACK)
-	ERROR((short)5);	// Error (ERROR)
+	ERROR((short)5),	// Error (ERROR)
+	OACK((short)6);	// Option Acknowledgment (OACK), RFC 2347
 
 
 	private final short value;
@@ -52,17 +53,28 @@ public enum Opcode {
 	public short getValue() {
 		return value;
 	}
+	// opcodes indexed by value, the lookup on the receive path neither allocates nor throws
+	private static final Opcode[] BY_VALUE = new Opcode[OACK.value + 1];
+
+	static {
+		for (Opcode opcode : values())
+			BY_VALUE[opcode.value] = opcode;
+	}
+
 	public static Opcode ValueOf(short value) throws UnknownOpcodeException {
-		if (value >5 || value <1)
+		Opcode opcode = lookup(value);
+		if (opcode == null)
 			throw new UnknownOpcodeException(value);
-		switch (value) {
-			case 1: return Opcode.RRQ;
-			case 2: return Opcode.WRQ;
-			case 3: return Opcode.DATA;
-			case 4: return Opcode.ACK;
-			case 5: return Opcode.ERROR;
-		}
-		return null;
+		return opcode;
+	}
+
+	/**
+	 * @return the opcode of the value or null if the value is not a known opcode.
+	 */
+	public static Opcode lookup(int value) {
+		if (value < 0 || value >= BY_VALUE.length)
+			return null;
+		return BY_VALUE[value];
 	}
 	public static int getSizeInBytes(){
 		return 2;
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.enums;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TransferOption.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.enums
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+public enum TransferOption {
+	BLOCK_SIZE("blksize", 8, 65464),	// Blocksize Option, RFC 2348
+	WINDOW_SIZE("windowsize", 1, 65535),	// Windowsize Option, RFC 7440
+	TRANSFER_SIZE("tsize", 0, Long.MAX_VALUE);	// Transfer Size Option, RFC 2349
+
+	private final String name;
+	private final long min;
+	private final long max;
+
+	TransferOption(String name, long min, long max) {
+		this.name = name;
+		this.min = min;
+		this.max = max;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getMin() {
+		return min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public boolean isValid(long value) {
+		return value >= min && value <= max;
+	}
+
+	/**
+	 * Option names are case insensitive (RFC 2347).
+	 * @return the matching option or null when the option is not supported.
+	 */
+	public static TransferOption fromName(String name) {
+		for (TransferOption option : values()) {
+			if (option.name.equalsIgnoreCase(name))
+				return option;
+		}
+		return null;
+	}
+}
@@ -24,6 +24,7 @@
 
 package io.github.onemancrew.vertx.tftp.protocol.exception;
 
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
 import io.github.onemancrew.vertx.tftp.protocol.message.ErrorMessage;
 
 /**
@@ -32,13 +33,19 @@ import io.github.onemancrew.vertx.tftp.protocol.message.ErrorMessage;
  * Package: io.github.onemancrew.vertx.tftp.exception
  * create by: Levi
  * create date: 12-02-2020
- * Last update by:
- * Last update date:
+ * Last update by: Levi
+ * Last update date: 18-10-2026
  **/
 public class TftpError extends Exception {
+    private final ErrorCode errorCode;
 
     public TftpError(ErrorMessage error)
     {
         super("TFTP Error code:"+error.getErrorCode().getError()+" ErrorMessage: "+error.getErrorMessage());
+        errorCode = error.getErrorCode();
+    }
+
+    public ErrorCode getErrorCode() {
+        return errorCode;
     }
 }
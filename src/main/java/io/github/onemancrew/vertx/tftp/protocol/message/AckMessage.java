@@ -25,6 +25,7 @@
 package io.github.onemancrew.vertx.tftp.protocol.message;
 import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
 import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownOpcodeException;
+import io.netty.buffer.ByteBuf;
 import java.nio.ByteBuffer;
 
 /**
@@ -66,6 +67,12 @@ public class AckMessage implements IBufferProtocol{
 	}
 
 
+	@Override
+	public void toByteBuf(ByteBuf buf) {
+		buf.writeShort(m_opcode.getValue());
+		buf.writeShort(m_blockId);
+	}
+
 	@Override
 	public void fromBuffer(ByteBuffer buffer) throws UnknownOpcodeException {
 		m_opcode = Opcode.ValueOf(buffer.getShort());
@@ -26,6 +26,7 @@ package io.github.onemancrew.vertx.tftp.protocol.message;
 
 import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
 import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownOpcodeException;
+import io.netty.buffer.ByteBuf;
 import java.nio.ByteBuffer;
 
 /**
@@ -39,6 +40,7 @@ import java.nio.ByteBuffer;
  **/
 public class DataMessage implements IBufferProtocol {
 	public static final int BLOCK_SIZE = 512;
+	public static final int MAX_BLOCK_SIZE = 65464;
 	public static final int BLOCK_ID_SIZE = 2;
 
 	private Opcode m_opcode;
@@ -76,6 +78,29 @@ public class DataMessage implements IBufferProtocol {
 	}
 
 
+	@Override
+	public void toByteBuf(ByteBuf buf) {
+		buf.writeShort(m_opcode.getValue());
+		buf.writeShort(m_blockId);
+		buf.writeBytes(m_data);
+	}
+
+	/**
+	 * Encode a DATA message straight from a slice of the source, without building a DataMessage.
+	 * @param buf the buffer the message is written to, e.g. a pooled one.
+	 * @param blockId the block id.
+	 * @param data the block data, its reader index is not modified.
+	 */
+	public static void toByteBuf(ByteBuf buf, int blockId, ByteBuf data) {
+		buf.writeShort(Opcode.DATA.getValue());
+		buf.writeShort(blockId);
+		buf.writeBytes(data, data.readerIndex(), data.readableBytes());
+	}
+
+	public static int getBufferSize(int dataLength) {
+		return Opcode.getSizeInBytes()+ BLOCK_ID_SIZE+dataLength;
+	}
+
 	@Override
 	public void fromBuffer(ByteBuffer buffer) throws UnknownOpcodeException {
 		m_opcode = Opcode.ValueOf(buffer.getShort());
@@ -85,7 +110,11 @@ public class DataMessage implements IBufferProtocol {
 	}
 
 	public boolean isLast() {
-		return m_data.length<BLOCK_SIZE;
+		return isLast(BLOCK_SIZE);
+	}
+
+	public boolean isLast(int blockSize) {
+		return m_data.length<blockSize;
 	}
 
 	@Override
@@ -26,6 +26,7 @@ package io.github.onemancrew.vertx.tftp.protocol.message;
 
 import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownErrorException;
 import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownOpcodeException;
+import io.netty.buffer.ByteBuf;
 import java.nio.ByteBuffer;
 
 /**
@@ -43,4 +44,14 @@ public interface IBufferProtocol {
 	public void fromBuffer(ByteBuffer buffer) throws UnknownOpcodeException, UnknownErrorException;
 	public int getBufferSize();
 
+	/**
+	 * Encode the message at the writer index of a netty buffer, e.g. a pooled one, without an intermediate array.
+	 */
+	public default void toByteBuf(ByteBuf buf) {
+		int size = getBufferSize();
+		buf.ensureWritable(size);
+		toBuffer(buf.nioBuffer(buf.writerIndex(), size));
+		buf.writerIndex(buf.writerIndex() + size);
+	}
+
 }
@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.message;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownOpcodeException;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Project: vertx-tftp-client
+ * File: OptionAckMessage.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.message
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Option Acknowledgment (OACK) sent by the server in reply to a request that carries options.
+ *
+ * @see <a href="https://www.ietf.org/rfc/rfc2347.txt">TFTP Option Extension RFC</a>
+ */
+public class OptionAckMessage implements IBufferProtocol {
+	public static final int ZERO_BYTE = 1;
+
+	private Opcode m_opcode;
+	private final Map<String, String> m_options = new LinkedHashMap<>();
+
+	public OptionAckMessage() {
+		m_opcode = Opcode.OACK;
+	}
+
+	public OptionAckMessage(Map<String, String> options) {
+		m_opcode = Opcode.OACK;
+		m_options.putAll(options);
+	}
+
+	public Opcode getOpcode() {
+		return m_opcode;
+	}
+
+	public Map<String, String> getOptions() {
+		return Collections.unmodifiableMap(m_options);
+	}
+
+	/**
+	 * @return the acknowledged value of the option (matched case insensitive) or null when the server dropped it.
+	 */
+	public String getOption(String name) {
+		for (Map.Entry<String, String> option : m_options.entrySet()) {
+			if (option.getKey().equalsIgnoreCase(name))
+				return option.getValue();
+		}
+		return null;
+	}
+
+	@Override
+	public void toBuffer(ByteBuffer buffer) {
+		buffer.putShort(m_opcode.getValue());
+		for (Map.Entry<String, String> option : m_options.entrySet()) {
+			buffer.put(option.getKey().getBytes());
+			buffer.put((byte)0);
+			buffer.put(option.getValue().getBytes());
+			buffer.put((byte)0);
+		}
+	}
+
+	@Override
+	public void fromBuffer(ByteBuffer buffer) throws UnknownOpcodeException {
+		m_opcode = Opcode.ValueOf(buffer.getShort());
+		m_options.clear();
+		while (buffer.hasRemaining()) {
+			String name = readString(buffer);
+			if (!buffer.hasRemaining())
+				break;
+			m_options.put(name, readString(buffer));
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		while (buffer.hasRemaining()) {
+			byte b = buffer.get();
+			if (b == 0)
+				break;
+			out.write(b);
+		}
+		return new String(out.toByteArray());
+	}
+
+	@Override
+	public int getBufferSize() {
+		int size = Opcode.getSizeInBytes();
+		for (Map.Entry<String, String> option : m_options.entrySet()) {
+			size += option.getKey().getBytes().length + ZERO_BYTE + option.getValue().getBytes().length + ZERO_BYTE;
+		}
+		return size;
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.message;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.vertx.core.buffer.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Project: vertx-tftp-client
+ * File: PacketReader.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.message
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Flyweight view over a received packet, the fields are read in place from the datagram buffer.
+ * One reader is reused for every packet of a transfer, {@link #wrap(Buffer)} points it at the next one.
+ */
+public final class PacketReader {
+	private static final int OPCODE_OFFSET = 0;
+	private static final int BLOCK_ID_OFFSET = 2;
+	private static final int PAYLOAD_OFFSET = 4;
+
+	private Buffer m_packet;
+
+	public PacketReader wrap(Buffer packet) {
+		m_packet = packet;
+		return this;
+	}
+
+	public int length() {
+		return m_packet.length();
+	}
+
+	public int getOpcodeValue() {
+		return length() < BLOCK_ID_OFFSET ? -1 : m_packet.getUnsignedShort(OPCODE_OFFSET);
+	}
+
+	/**
+	 * @return the opcode of the packet or null if the packet is too short or the opcode is unknown.
+	 */
+	public Opcode getOpcode() {
+		return Opcode.lookup(getOpcodeValue());
+	}
+
+	/**
+	 * @return true if the packet is long enough to hold a block id, as DATA and ACK packets must.
+	 */
+	public boolean hasBlockId() {
+		return length() >= PAYLOAD_OFFSET;
+	}
+
+	public int getBlockId() {
+		return m_packet.getUnsignedShort(BLOCK_ID_OFFSET);
+	}
+
+	public int getPayloadLength() {
+		return length() - PAYLOAD_OFFSET;
+	}
+
+	/**
+	 * @return the data of a DATA packet, a slice that shares the memory of the packet.
+	 */
+	public Buffer getPayload() {
+		return m_packet.slice(PAYLOAD_OFFSET, length());
+	}
+
+	/**
+	 * View of the whole packet for the message classes, used for the rare OACK and ERROR packets.
+	 */
+	public ByteBuffer toByteBuffer() {
+		return m_packet.getByteBuf().nioBuffer();
+	}
+}
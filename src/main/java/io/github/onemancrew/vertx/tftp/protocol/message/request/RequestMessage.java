@@ -28,7 +28,11 @@ import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
 import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownErrorException;
 import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownOpcodeException;
 import io.github.onemancrew.vertx.tftp.protocol.message.IBufferProtocol;
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Project: vertx-tftp-client
@@ -36,8 +40,8 @@ import java.nio.ByteBuffer;
  * Package: io.github.onemancrew.vertx.tftp.message
  * create by: Levi
  * create date: 12-02-2020
- * Last update by:
- * Last update date:
+ * Last update by: Levi
+ * Last update date: 18-10-2026
  **/
 public  abstract class RequestMessage  implements IBufferProtocol {
 	public static final int ZERO_BYTE = 1;
@@ -45,6 +49,7 @@ public  abstract class RequestMessage  implements IBufferProtocol {
 	protected Opcode m_opcode;
 	private String m_filename;
 	private String m_mode;
+	private final Map<String, String> m_options = new LinkedHashMap<>();
 
 	public RequestMessage(String filename) {
 		m_filename = filename;
@@ -67,6 +72,31 @@ public  abstract class RequestMessage  implements IBufferProtocol {
 		return m_mode;
 	}
 
+	/**
+	 * Append an option (RFC 2347) after the mode string.
+	 * @param name the option name, e.g. "blksize".
+	 * @param value the requested option value.
+	 */
+	public RequestMessage addOption(String name, String value) {
+		m_options.put(name, value);
+		return this;
+	}
+
+	public Map<String, String> getOptions() {
+		return Collections.unmodifiableMap(m_options);
+	}
+
+	/**
+	 * @return the requested value of the option (matched case insensitive) or null when it was not requested.
+	 */
+	public String getOption(String name) {
+		for (Map.Entry<String, String> option : m_options.entrySet()) {
+			if (option.getKey().equalsIgnoreCase(name))
+				return option.getValue();
+		}
+		return null;
+	}
+
 	@Override
 	public void toBuffer(ByteBuffer buffer) {
 		buffer.putShort(m_opcode.getValue());
@@ -74,18 +104,47 @@ public  abstract class RequestMessage  implements IBufferProtocol {
 		buffer.put((byte)0);
 		buffer.put(m_mode.getBytes());
 		buffer.put((byte)0);
+		for (Map.Entry<String, String> option : m_options.entrySet()) {
+			buffer.put(option.getKey().getBytes());
+			buffer.put((byte)0);
+			buffer.put(option.getValue().getBytes());
+			buffer.put((byte)0);
+		}
 
 	}
 
 	@Override
 	public void fromBuffer(ByteBuffer buffer) throws UnknownOpcodeException, UnknownErrorException {
-		m_opcode = Opcode.ValueOf(buffer.get());
-		//TBD.......
+		m_opcode = Opcode.ValueOf(buffer.getShort());
+		m_filename = readString(buffer);
+		m_mode = readString(buffer);
+		m_options.clear();
+		while (buffer.hasRemaining()) {
+			String name = readString(buffer);
+			if (!buffer.hasRemaining())
+				break;
+			m_options.put(name, readString(buffer));
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		while (buffer.hasRemaining()) {
+			byte b = buffer.get();
+			if (b == 0)
+				break;
+			out.write(b);
+		}
+		return new String(out.toByteArray());
 	}
 
 	@Override
 	public int getBufferSize() {
-		return Opcode.getSizeInBytes()+ m_filename.length() + ZERO_BYTE+m_mode.length()+ ZERO_BYTE;
+		int size = Opcode.getSizeInBytes()+ m_filename.length() + ZERO_BYTE+m_mode.length()+ ZERO_BYTE;
+		for (Map.Entry<String, String> option : m_options.entrySet()) {
+			size += option.getKey().getBytes().length + ZERO_BYTE + option.getValue().getBytes().length + ZERO_BYTE;
+		}
+		return size;
 	}
 
 }
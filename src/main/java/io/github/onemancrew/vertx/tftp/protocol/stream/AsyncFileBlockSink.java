@@ -0,0 +1,190 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.OpenOptions;
+import java.io.File;
+import java.nio.file.FileSystems;
+
+/**
+ * Project: vertx-tftp-client
+ * File: AsyncFileBlockSink.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.stream
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Download blocks written straight to a file with positional writes.
+ * The blocks can be written to a temporary file in the destination folder which is renamed atomically once the
+ * download completed, so the destination never holds a partial file.
+ * The first failed write fails {@link #end(Handler)}, even when it completes after the last block was acknowledged.
+ */
+public class AsyncFileBlockSink implements BlockSink {
+	private static final String TEMP_SUFFIX = ".part";
+	/**
+	 * Temporary files are created owner only by default, these permissions are masked by the umask like any new file.
+	 */
+	public static final String TEMP_PERMS =
+			FileSystems.getDefault().supportedFileAttributeViews().contains("posix") ? "rw-rw-rw-" : null;
+	private final Vertx m_vertx;
+	private final AsyncFile m_file;
+	private final String m_path;
+	private final String m_writePath;
+	private final boolean m_fsync;
+	private int m_pendingWrites;
+	private Handler<Void> m_idleHandler;
+	private Throwable m_writeFailure;
+
+	AsyncFileBlockSink(Vertx vertx, AsyncFile file, String path, String writePath, boolean fsync) {
+		m_vertx = vertx;
+		m_file = file;
+		m_path = path;
+		m_writePath = writePath;
+		m_fsync = fsync;
+	}
+
+	/**
+	 * Open the destination file of a download.
+	 * @param atomicRename write to a temporary file renamed to path when the download completed.
+	 * @param fsync force the data to the storage device before the download completes.
+	 * @param writeQueueSize the number of bytes written to the file before the download stops acknowledging blocks.
+	 */
+	public static void open(Vertx vertx, String path, boolean atomicRename, boolean fsync, int writeQueueSize,
+							Handler<AsyncResult<BlockSink>> handler) {
+		if (!atomicRename) {
+			open(vertx, path, path, fsync, writeQueueSize, handler);
+			return;
+		}
+		File file = new File(path);
+		String dir = file.getAbsoluteFile().getParent();
+		vertx.fileSystem().createTempFile(dir, "." + file.getName() + ".", TEMP_SUFFIX, TEMP_PERMS, temp -> {
+			if (temp.failed())
+				handler.handle(Future.failedFuture(temp.cause()));
+			else
+				open(vertx, path, temp.result(), fsync, writeQueueSize, handler);
+		});
+	}
+
+	private static void open(Vertx vertx, String path, String writePath, boolean fsync, int writeQueueSize,
+							 Handler<AsyncResult<BlockSink>> handler) {
+		OpenOptions options = new OpenOptions().setRead(false).setWrite(true).setCreate(true).setTruncateExisting(true);
+		vertx.fileSystem().open(writePath, options, file -> {
+			if (file.failed()) {
+				handler.handle(Future.failedFuture(file.cause()));
+				return;
+			}
+			file.result().setWriteQueueMaxSize(writeQueueSize);
+			handler.handle(Future.succeededFuture(new AsyncFileBlockSink(vertx, file.result(), path, writePath, fsync)));
+		});
+	}
+
+	@Override
+	public void write(long block, int blockSize, Buffer data, Handler<AsyncResult<Void>> handler) {
+		m_pendingWrites++;
+		m_file.write(data, (block - 1) * blockSize, result -> {
+			m_pendingWrites--;
+			// the download may already be over when a write fails, end() reports it
+			if (result.failed() && m_writeFailure == null)
+				m_writeFailure = result.cause();
+			handler.handle(result);
+			if (m_pendingWrites == 0 && m_idleHandler != null) {
+				Handler<Void> idleHandler = m_idleHandler;
+				m_idleHandler = null;
+				idleHandler.handle(null);
+			}
+		});
+	}
+
+	@Override
+	public boolean writeQueueFull() {
+		return m_file.writeQueueFull();
+	}
+
+	@Override
+	public BlockSink drainHandler(Handler<Void> handler) {
+		m_file.drainHandler(handler);
+		return this;
+	}
+
+	private void whenIdle(Handler<Void> handler) {
+		if (m_pendingWrites == 0)
+			handler.handle(null);
+		else
+			m_idleHandler = handler;
+	}
+
+	@Override
+	public void end(Handler<AsyncResult<Void>> handler) {
+		// the file is forced once every write completed, flush does not wait for them
+		whenIdle(v -> {
+			if (m_writeFailure != null)
+				abort(aborted -> handler.handle(Future.failedFuture(m_writeFailure)));
+			else if (m_fsync)
+				m_file.flush(flushed -> {
+					if (flushed.failed())
+						abort(aborted -> handler.handle(flushed));
+					else
+						closeAndRename(handler);
+				});
+			else
+				closeAndRename(handler);
+		});
+	}
+
+	private void closeAndRename(Handler<AsyncResult<Void>> handler) {
+		m_file.close(closed -> {
+			if (closed.failed() || m_writePath.equals(m_path)) {
+				handler.handle(closed);
+				return;
+			}
+			CopyOptions options = new CopyOptions().setReplaceExisting(true).setAtomicMove(true);
+			m_vertx.fileSystem().move(m_writePath, m_path, options, moved -> {
+				if (moved.failed())
+					m_vertx.fileSystem().delete(m_writePath, deleted -> handler.handle(moved));
+				else
+					handler.handle(moved);
+			});
+		});
+	}
+
+	@Override
+	public void abort(Handler<AsyncResult<Void>> handler) {
+		m_file.close(closed -> {
+			if (m_writePath.equals(m_path))
+				handler.handle(closed);
+			else
+				m_vertx.fileSystem().delete(m_writePath, handler);
+		});
+	}
+}
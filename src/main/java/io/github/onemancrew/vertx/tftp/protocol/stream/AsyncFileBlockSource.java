@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Project: vertx-tftp-client
+ * File: AsyncFileBlockSource.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.stream
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Upload blocks read from a file on demand with positional reads.
+ * Up to readAhead blocks after the requested one are read in advance, so the memory used by an upload does not
+ * depend on the size of the file.
+ */
+public class AsyncFileBlockSource implements BlockSource {
+	private final AsyncFile m_file;
+	private final long m_size;
+	private final int m_readAhead;
+	private final Map<Long, AsyncResult<Buffer>> m_readBlocks = new HashMap<>();
+	private long m_nextRead = 1;
+	private long m_waitingBlock = -1;
+	private Handler<AsyncResult<Buffer>> m_waitingHandler;
+
+	public AsyncFileBlockSource(AsyncFile file, long size, int readAhead) {
+		m_file = file;
+		m_size = size;
+		m_readAhead = readAhead;
+	}
+
+	/**
+	 * Open a file for reading.
+	 * @param readAhead the number of blocks read in advance.
+	 */
+	public static void open(Vertx vertx, String path, int readAhead, Handler<AsyncResult<BlockSource>> handler) {
+		vertx.fileSystem().props(path, props -> {
+			if (props.failed()) {
+				handler.handle(Future.failedFuture(props.cause()));
+				return;
+			}
+			vertx.fileSystem().open(path, new OpenOptions().setRead(true).setWrite(false).setCreate(false), file -> {
+				if (file.failed())
+					handler.handle(Future.failedFuture(file.cause()));
+				else
+					handler.handle(Future.succeededFuture(
+							new AsyncFileBlockSource(file.result(), props.result().size(), readAhead)));
+			});
+		});
+	}
+
+	@Override
+	public long size() {
+		return m_size;
+	}
+
+	@Override
+	public void read(long block, int blockSize, Handler<AsyncResult<Buffer>> handler) {
+		AsyncResult<Buffer> result = m_readBlocks.remove(block);
+		if (result == null) {
+			m_waitingBlock = block;
+			m_waitingHandler = handler;
+		}
+		readAhead(block, blockSize);
+		if (result != null)
+			handler.handle(result);
+	}
+
+	private void readAhead(long block, int blockSize) {
+		m_nextRead = Math.max(m_nextRead, block);
+		// the last block starts at the end of the file when the size is a multiple of the block size
+		while (m_nextRead <= block + m_readAhead && (m_nextRead - 1) * blockSize <= m_size) {
+			long readBlock = m_nextRead++;
+			long position = (readBlock - 1) * blockSize;
+			int length = (int) Math.min(blockSize, m_size - position);
+			if (length == 0) {
+				completeRead(readBlock, Future.succeededFuture(Buffer.buffer(0)));
+				continue;
+			}
+			m_file.read(Buffer.buffer(length), 0, position, length, result -> completeRead(readBlock, result));
+		}
+	}
+
+	private void completeRead(long block, AsyncResult<Buffer> result) {
+		if (m_waitingHandler != null && m_waitingBlock == block) {
+			Handler<AsyncResult<Buffer>> handler = m_waitingHandler;
+			m_waitingHandler = null;
+			m_waitingBlock = -1;
+			handler.handle(result);
+		} else {
+			m_readBlocks.put(block, result);
+		}
+	}
+
+	@Override
+	public void close(Handler<AsyncResult<Void>> handler) {
+		m_readBlocks.clear();
+		m_file.close(handler);
+	}
+}
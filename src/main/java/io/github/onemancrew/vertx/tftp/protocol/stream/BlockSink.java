@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Project: vertx-tftp-client
+ * File: BlockSink.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.stream
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Receives the blocks of a download.
+ * Blocks are written in order, the download stops acknowledging blocks while the write queue is full so that a
+ * slow sink throttles the server.
+ */
+public interface BlockSink {
+
+	/**
+	 * Write a block of the download, the download does not wait for the write to complete.
+	 * @param block the block number, starting at 1.
+	 * @param blockSize the negotiated block size, the block starts at offset (block-1)*blockSize.
+	 * @param data the block data.
+	 * @param handler called when the block was written.
+	 */
+	void write(long block, int blockSize, Buffer data, Handler<AsyncResult<Void>> handler);
+
+	/**
+	 * @return true when the download should stop acknowledging blocks until the drain handler is called.
+	 */
+	boolean writeQueueFull();
+
+	/**
+	 * Set the handler called once the write queue is no longer full.
+	 */
+	BlockSink drainHandler(Handler<Void> handler);
+
+	/**
+	 * Complete the download once the last block was written.
+	 */
+	void end(Handler<AsyncResult<Void>> handler);
+
+	/**
+	 * Discard the download after a failure.
+	 */
+	void abort(Handler<AsyncResult<Void>> handler);
+}
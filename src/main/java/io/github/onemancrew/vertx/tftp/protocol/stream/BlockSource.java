@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Project: vertx-tftp-client
+ * File: BlockSource.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.stream
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Supplies the blocks of an upload.
+ * Blocks are read in order and each block is read once, the upload keeps the blocks in flight until they are
+ * acknowledged.
+ */
+public interface BlockSource {
+
+	/**
+	 * @return the size of the upload in bytes, or -1 when it is not known up front.
+	 */
+	long size();
+
+	/**
+	 * Read a block of the upload.
+	 * @param block the block number, starting at 1.
+	 * @param blockSize the negotiated block size.
+	 * @param handler called with the block data, a block shorter than blockSize (possibly empty) is the last one.
+	 */
+	void read(long block, int blockSize, Handler<AsyncResult<Buffer>> handler);
+
+	/**
+	 * Release the resources of the source once the upload ended.
+	 */
+	void close(Handler<AsyncResult<Void>> handler);
+}
@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Project: vertx-tftp-client
+ * File: BufferBlockSource.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.stream
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Upload blocks sliced from a buffer already held in memory.
+ */
+public class BufferBlockSource implements BlockSource {
+	private final Buffer m_buffer;
+
+	public BufferBlockSource(Buffer buffer) {
+		m_buffer = buffer;
+	}
+
+	@Override
+	public long size() {
+		return m_buffer.length();
+	}
+
+	@Override
+	public void read(long block, int blockSize, Handler<AsyncResult<Buffer>> handler) {
+		int offset = (int) Math.min((block - 1) * blockSize, m_buffer.length());
+		int end = Math.min(offset + blockSize, m_buffer.length());
+		handler.handle(Future.succeededFuture(m_buffer.slice(offset, end)));
+	}
+
+	@Override
+	public void close(Handler<AsyncResult<Void>> handler) {
+		handler.handle(Future.succeededFuture());
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.github.onemancrew.vertx.tftp.digest.TransferDigest;
+import io.github.onemancrew.vertx.tftp.protocol.exception.DigestMismatchException;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Project: vertx-tftp-client
+ * File: DigestBlockSink.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.stream
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Updates a digest with the blocks of a download before they are written to another sink.
+ * The download is aborted instead of ended when the digest is not the expected one.
+ */
+public class DigestBlockSink implements BlockSink {
+	private final BlockSink m_sink;
+	private final TransferDigest m_digest;
+	private long m_nextBlock = 1;
+
+	public DigestBlockSink(BlockSink sink, TransferDigest digest) {
+		m_sink = sink;
+		m_digest = digest;
+	}
+
+	@Override
+	public void write(long block, int blockSize, Buffer data, Handler<AsyncResult<Void>> handler) {
+		if (block != m_nextBlock) {
+			handler.handle(Future.failedFuture(new IllegalStateException("block " + block + " written out of order, expected " + m_nextBlock)));
+			return;
+		}
+		m_nextBlock++;
+		m_digest.update(data);
+		m_sink.write(block, blockSize, data, handler);
+	}
+
+	@Override
+	public boolean writeQueueFull() {
+		return m_sink.writeQueueFull();
+	}
+
+	@Override
+	public BlockSink drainHandler(Handler<Void> handler) {
+		m_sink.drainHandler(handler);
+		return this;
+	}
+
+	@Override
+	public void end(Handler<AsyncResult<Void>> handler) {
+		m_digest.complete();
+		if (m_digest.matches())
+			m_sink.end(handler);
+		else
+			m_sink.abort(aborted -> handler.handle(Future.failedFuture(new DigestMismatchException(m_digest))));
+	}
+
+	@Override
+	public void abort(Handler<AsyncResult<Void>> handler) {
+		m_sink.abort(handler);
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.github.onemancrew.vertx.tftp.digest.TransferDigest;
+import io.github.onemancrew.vertx.tftp.protocol.exception.DigestMismatchException;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Project: vertx-tftp-client
+ * File: DigestBlockSource.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.stream
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Updates a digest with the blocks of an upload as they are read from another source.
+ * The digest is completed with the last block, the read of the last block fails when the digest is not the expected
+ * one: the upload sends an ERROR instead of the last block, so the server drops the file it received so far.
+ */
+public class DigestBlockSource implements BlockSource {
+	private final BlockSource m_source;
+	private final TransferDigest m_digest;
+	private long m_nextBlock = 1;
+
+	public DigestBlockSource(BlockSource source, TransferDigest digest) {
+		m_source = source;
+		m_digest = digest;
+	}
+
+	@Override
+	public long size() {
+		return m_source.size();
+	}
+
+	@Override
+	public void read(long block, int blockSize, Handler<AsyncResult<Buffer>> handler) {
+		m_source.read(block, blockSize, result -> {
+			if (result.failed() || block != m_nextBlock) {
+				handler.handle(result);
+				return;
+			}
+			m_nextBlock++;
+			Buffer data = result.result();
+			m_digest.update(data);
+			if (data.length() < blockSize) {
+				m_digest.complete();
+				if (!m_digest.matches()) {
+					handler.handle(Future.failedFuture(new DigestMismatchException(m_digest)));
+					return;
+				}
+			}
+			handler.handle(result);
+		});
+	}
+
+	@Override
+	public void close(Handler<AsyncResult<Void>> handler) {
+		m_source.close(handler);
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import java.util.ArrayDeque;
+
+/**
+ * Project: vertx-tftp-client
+ * File: ReadStreamBlockSource.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.stream
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Upload blocks cut from a read stream.
+ * The stream is paused as soon as readAhead blocks are buffered, so a fast producer is throttled by the server.
+ * The source takes over the handlers of the stream, a failure of the stream fails the upload.
+ */
+public class ReadStreamBlockSource implements BlockSource {
+	private final ReadStream<Buffer> m_stream;
+	private final int m_readAhead;
+	private final ArrayDeque<Buffer> m_chunks = new ArrayDeque<>();
+	private long m_buffered;
+	private int m_blockSize;
+	private boolean m_paused;
+	private boolean m_ended;
+	private Throwable m_failure;
+	private Handler<AsyncResult<Buffer>> m_readHandler;
+
+	public ReadStreamBlockSource(ReadStream<Buffer> stream, int readAhead) {
+		m_stream = stream;
+		m_readAhead = readAhead;
+		m_stream.pause();
+		m_paused = true;
+		m_stream.exceptionHandler(this::handleException);
+		m_stream.endHandler(v -> {
+			m_ended = true;
+			deliver();
+		});
+		m_stream.handler(this::handleData);
+	}
+
+	@Override
+	public long size() {
+		return -1;
+	}
+
+	@Override
+	public void read(long block, int blockSize, Handler<AsyncResult<Buffer>> handler) {
+		m_blockSize = blockSize;
+		m_readHandler = handler;
+		deliver();
+		flowControl();
+	}
+
+	private void handleData(Buffer data) {
+		m_chunks.add(data);
+		m_buffered += data.length();
+		deliver();
+		flowControl();
+	}
+
+	private void handleException(Throwable cause) {
+		m_failure = cause;
+		deliver();
+	}
+
+	private void deliver() {
+		if (m_readHandler == null)
+			return;
+		Handler<AsyncResult<Buffer>> handler = m_readHandler;
+		if (m_failure != null) {
+			m_readHandler = null;
+			handler.handle(Future.failedFuture(m_failure));
+		} else if (m_buffered >= m_blockSize || m_ended) {
+			m_readHandler = null;
+			handler.handle(Future.succeededFuture(takeBlock((int) Math.min(m_blockSize, m_buffered))));
+		}
+	}
+
+	private Buffer takeBlock(int length) {
+		Buffer block = Buffer.buffer(length);
+		while (block.length() < length) {
+			Buffer chunk = m_chunks.poll();
+			int needed = length - block.length();
+			if (chunk.length() > needed) {
+				block.appendBuffer(chunk, 0, needed);
+				m_chunks.addFirst(chunk.slice(needed, chunk.length()));
+			} else {
+				block.appendBuffer(chunk);
+			}
+		}
+		m_buffered -= length;
+		return block;
+	}
+
+	private void flowControl() {
+		if (m_ended || m_blockSize == 0)
+			return;
+		boolean full = m_buffered >= (long) m_blockSize * (m_readAhead + 1);
+		if (full && !m_paused) {
+			m_paused = true;
+			m_stream.pause();
+		} else if (!full && m_paused) {
+			m_paused = false;
+			m_stream.resume();
+		}
+	}
+
+	@Override
+	public void close(Handler<AsyncResult<Void>> handler) {
+		m_chunks.clear();
+		m_buffered = 0;
+		handler.handle(Future.succeededFuture());
+	}
+}
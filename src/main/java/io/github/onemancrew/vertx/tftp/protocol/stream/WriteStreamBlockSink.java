@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+
+/**
+ * Project: vertx-tftp-client
+ * File: WriteStreamBlockSink.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.stream
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Download blocks written to a write stream.
+ * The stream is ended when the download completed, it is left open after a failure.
+ * The sink takes over the exception handler of the stream, a handler set before is replaced and a failure of the
+ * stream fails the download instead.
+ */
+public class WriteStreamBlockSink implements BlockSink {
+	private final WriteStream<Buffer> m_stream;
+	private Throwable m_failure;
+
+	public WriteStreamBlockSink(WriteStream<Buffer> stream) {
+		m_stream = stream;
+		m_stream.exceptionHandler(cause -> m_failure = cause);
+	}
+
+	@Override
+	public void write(long block, int blockSize, Buffer data, Handler<AsyncResult<Void>> handler) {
+		if (m_failure != null) {
+			handler.handle(Future.failedFuture(m_failure));
+			return;
+		}
+		m_stream.write(data);
+		handler.handle(Future.succeededFuture());
+	}
+
+	@Override
+	public boolean writeQueueFull() {
+		return m_stream.writeQueueFull();
+	}
+
+	@Override
+	public BlockSink drainHandler(Handler<Void> handler) {
+		m_stream.drainHandler(handler);
+		return this;
+	}
+
+	@Override
+	public void end(Handler<AsyncResult<Void>> handler) {
+		if (m_failure != null) {
+			handler.handle(Future.failedFuture(m_failure));
+			return;
+		}
+		m_stream.end();
+		handler.handle(Future.succeededFuture());
+	}
+
+	@Override
+	public void abort(Handler<AsyncResult<Void>> handler) {
+		handler.handle(Future.succeededFuture());
+	}
+}
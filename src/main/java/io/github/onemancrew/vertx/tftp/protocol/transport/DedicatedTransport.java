@@ -0,0 +1,163 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.transport;
+
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.github.onemancrew.vertx.tftp.protocol.message.DataMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.ErrorMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramPacket;
+import io.vertx.core.datagram.DatagramSocket;
+import io.vertx.core.datagram.DatagramSocketOptions;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Project: vertx-tftp-client
+ * File: DedicatedTransport.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.transport
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Binds a new socket on an ephemeral port for each transfer, the port is the transfer identifier (TID) of the client.
+ * Packets from another host than the server are dropped. The port of the first answer is the TID of the server, a
+ * packet from another port of the server is answered with an ERROR and not delivered (RFC 1350).
+ */
+public class DedicatedTransport implements Transport {
+	private static Logger log = LoggerFactory.getLogger(DedicatedTransport.class);
+	/**
+	 * Netty reads datagrams into buffers of this size unless a receive buffer size is configured.
+	 */
+	private static final int DEFAULT_RECEIVE_SIZE = 2048;
+	/**
+	 * Smallest receive buffer configured for large blocks, so that DATA packets are not dropped by the kernel.
+	 */
+	private static final int LARGE_RECEIVE_SIZE = 64 * 1024;
+
+	private final Vertx m_vertx;
+	private final TftpClientOptions m_options;
+	private final ServerAddressCache m_addresses;
+
+	public DedicatedTransport(Vertx vertx, TftpClientOptions options) {
+		m_vertx = vertx;
+		m_options = options;
+		m_addresses = new ServerAddressCache(vertx);
+	}
+
+	@Override
+	public void open(String serverHost, Handler<AsyncResult<TransferChannel>> handler) {
+		m_addresses.resolve(serverHost, resolved -> {
+			if (resolved.failed()) {
+				handler.handle(Future.failedFuture(resolved.cause()));
+				return;
+			}
+			DatagramSocket socket = m_vertx.createDatagramSocket(socketOptions(m_options));
+			// port 0 lets the kernel pick a free port
+			socket.listen(0, "0.0.0.0", listened -> {
+				if (listened.succeeded())
+					handler.handle(Future.succeededFuture(new SocketChannel(socket, resolved.result())));
+				else
+					handler.handle(Future.failedFuture(listened.cause()));
+			});
+		});
+	}
+
+	@Override
+	public void close(Handler<AsyncResult<Void>> handler) {
+		handler.handle(Future.succeededFuture());
+	}
+
+	/**
+	 * Options of a socket that receives the blocks negotiated with the client options.
+	 */
+	static DatagramSocketOptions socketOptions(TftpClientOptions clientOptions) {
+		DatagramSocketOptions options = new DatagramSocketOptions().setReuseAddress(true);
+		// larger DATA packets would be silently truncated by the default receive buffer
+		int packetSize = Opcode.getSizeInBytes() + DataMessage.BLOCK_ID_SIZE + clientOptions.getBlockSize();
+		// a window sent again after a gap can arrive right behind the window in flight
+		if (packetSize > DEFAULT_RECEIVE_SIZE)
+			options.setReceiveBufferSize(Math.max(2 * packetSize * clientOptions.getWindowSize(), LARGE_RECEIVE_SIZE));
+		return options;
+	}
+
+	private static class SocketChannel implements TransferChannel {
+		private final DatagramSocket m_socket;
+		private final String m_serverAddress;
+		private int m_serverPort = -1;
+
+		SocketChannel(DatagramSocket socket, String serverAddress) {
+			m_socket = socket;
+			m_serverAddress = serverAddress;
+		}
+
+		@Override
+		public void send(Buffer packet, int port, Handler<AsyncResult<Void>> handler) {
+			m_socket.send(packet, port, m_serverAddress, sent -> handler.handle(sent.mapEmpty()));
+		}
+
+		@Override
+		public void handler(Handler<DatagramPacket> handler) {
+			m_socket.handler(packet -> {
+				String address = packet.sender().host();
+				int port = packet.sender().port();
+				if (!address.equals(m_serverAddress)) {
+					if (log.isDebugEnabled())
+						log.debug("drop packet from unknown host " + address + ":" + port);
+					return;
+				}
+				if (m_serverPort < 0) {
+					m_serverPort = port;
+				} else if (port != m_serverPort) {
+					sendUnknownTransferId(port);
+					return;
+				}
+				handler.handle(packet);
+			});
+		}
+
+		private void sendUnknownTransferId(int port) {
+			ErrorMessage error = new ErrorMessage(ErrorCode.UNKNOWN_TRANSFER_ID);
+			ByteBuf packet = Unpooled.buffer(error.getBufferSize());
+			error.toByteBuf(packet);
+			m_socket.send(Buffer.buffer(packet), port, m_serverAddress, sent -> {});
+		}
+
+		@Override
+		public void close(Handler<AsyncResult<Void>> handler) {
+			m_socket.close(handler);
+		}
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.transport;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramPacket;
+import io.vertx.core.net.SocketAddress;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Project: vertx-tftp-client
+ * File: ImpairedTransport.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.transport
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Decorates a {@link Transport} with the loss, duplication, reordering, delay and bandwidth of an
+ * {@link ImpairmentProfile}, to reproduce bad links on loopback. The packets sent and the packets received by each
+ * channel go through their own simulated link; each link of the n-th channel opened draws from its own generator
+ * seeded with the seed of the profile, n and the direction, so runs opening their transfers in the same order see the
+ * same impairments whatever the traffic in the other direction.
+ * Sends complete as soon as the packet was handed to the link, like a datagram lost on the way.
+ */
+public class ImpairedTransport implements Transport {
+	/**
+	 * Longest time a reordered packet waits for the next packet before it is delivered anyway.
+	 */
+	private static final long MAX_HOLD_MILLIS = 50;
+
+	private final Vertx m_vertx;
+	private final Transport m_transport;
+	private final ImpairmentProfile m_profile;
+	private final AtomicLong m_channels = new AtomicLong();
+	private final LongAdder m_dropped = new LongAdder();
+	private final LongAdder m_duplicated = new LongAdder();
+	private final LongAdder m_reordered = new LongAdder();
+
+	public ImpairedTransport(Vertx vertx, Transport transport, ImpairmentProfile profile) {
+		m_vertx = vertx;
+		m_transport = transport;
+		m_profile = new ImpairmentProfile(profile);
+	}
+
+	@Override
+	public void open(String serverHost, Handler<AsyncResult<TransferChannel>> handler) {
+		long seed = m_profile.getSeed() * 31 + m_channels.incrementAndGet();
+		m_transport.open(serverHost, opened -> {
+			if (opened.succeeded())
+				handler.handle(Future.succeededFuture(new ImpairedChannel(opened.result(), seed)));
+			else
+				handler.handle(opened);
+		});
+	}
+
+	@Override
+	public void close(Handler<AsyncResult<Void>> handler) {
+		m_transport.close(handler);
+	}
+
+	public ImpairmentProfile getProfile() {
+		return new ImpairmentProfile(m_profile);
+	}
+
+	/**
+	 * The number of packets dropped in both directions.
+	 */
+	public long getDropped() {
+		return m_dropped.sum();
+	}
+
+	public long getDuplicated() {
+		return m_duplicated.sum();
+	}
+
+	public long getReordered() {
+		return m_reordered.sum();
+	}
+
+	private class ImpairedChannel implements TransferChannel {
+		private final TransferChannel m_channel;
+		private final Link m_outgoing;
+		private final Link m_incoming;
+		private boolean m_closed;
+
+		ImpairedChannel(TransferChannel channel, long seed) {
+			m_channel = channel;
+			m_outgoing = new Link(new Random(seed * 31));
+			m_incoming = new Link(new Random(seed * 31 + 1));
+		}
+
+		@Override
+		public void send(Buffer packet, int port, Handler<AsyncResult<Void>> handler) {
+			// the caller releases the packet once the send completed, delayed copies must own their bytes
+			Buffer copy = packet.copy();
+			m_outgoing.transmit(copy.length(), () -> m_channel.send(copy, port, sent -> {
+			}));
+			handler.handle(Future.succeededFuture());
+		}
+
+		@Override
+		public void handler(Handler<DatagramPacket> handler) {
+			if (handler == null) {
+				m_channel.handler(null);
+				return;
+			}
+			m_channel.handler(packet -> {
+				if (m_closed)
+					return;
+				DatagramPacket copy = new Packet(packet.sender(), packet.data().copy());
+				m_incoming.transmit(copy.data().length(), () -> {
+					if (!m_closed)
+						handler.handle(copy);
+				});
+			});
+		}
+
+		@Override
+		public void close(Handler<AsyncResult<Void>> handler) {
+			// the packets still on the outgoing link, like the last ACK of a download, are sent before the close
+			m_outgoing.releaseHeld();
+			m_closed = true;
+			long drainMillis = TimeUnit.NANOSECONDS.toMillis(m_outgoing.m_lastDeliveryNanos - System.nanoTime()) + 1;
+			if (drainMillis > 1)
+				m_vertx.setTimer(drainMillis, id -> m_channel.close(handler));
+			else
+				m_channel.close(handler);
+		}
+
+		/**
+		 * One direction of the simulated link, only used from the context of the transfer.
+		 */
+		private class Link {
+			private final Random m_random;
+			/**
+			 * When the packets queued on the link have left it, for the bandwidth limit.
+			 */
+			private long m_idleNanos;
+			private Runnable m_held;
+			private int m_heldSize;
+			private long m_lastDeliveryNanos;
+
+			Link(Random random) {
+				m_random = random;
+				m_lastDeliveryNanos = System.nanoTime();
+			}
+
+			void transmit(int size, Runnable deliver) {
+				if (roll(m_profile.getLossRate())) {
+					m_dropped.increment();
+					return;
+				}
+				if (roll(m_profile.getDuplicateRate())) {
+					m_duplicated.increment();
+					schedule(size, deliver);
+				}
+				if (m_held == null && roll(m_profile.getReorderRate())) {
+					m_reordered.increment();
+					hold(size, deliver);
+					return;
+				}
+				schedule(size, deliver);
+				releaseHeld();
+			}
+
+			private void hold(int size, Runnable deliver) {
+				m_held = deliver;
+				m_heldSize = size;
+				m_vertx.setTimer(MAX_HOLD_MILLIS, id -> {
+					if (m_held == deliver && !m_closed)
+						releaseHeld();
+				});
+			}
+
+			void releaseHeld() {
+				Runnable held = m_held;
+				if (held == null)
+					return;
+				m_held = null;
+				schedule(m_heldSize, held);
+			}
+
+			private void schedule(int size, Runnable deliver) {
+				long now = System.nanoTime();
+				long delayNanos = TimeUnit.MILLISECONDS.toNanos(m_profile.getDelay());
+				if (m_profile.getJitter() > 0)
+					delayNanos += (long) (m_random.nextDouble() * TimeUnit.MILLISECONDS.toNanos(m_profile.getJitter()));
+				if (m_profile.getBandwidth() > 0) {
+					m_idleNanos = Math.max(now, m_idleNanos) + size * TimeUnit.SECONDS.toNanos(1) / m_profile.getBandwidth();
+					delayNanos += m_idleNanos - now;
+				}
+				// timers have a millisecond resolution, shorter delays are rounded to the nearest millisecond
+				long delayMillis = TimeUnit.NANOSECONDS.toMillis(delayNanos + 500_000);
+				if (delayMillis == 0) {
+					deliver.run();
+					return;
+				}
+				m_lastDeliveryNanos = Math.max(m_lastDeliveryNanos, now + TimeUnit.MILLISECONDS.toNanos(delayMillis));
+				m_vertx.setTimer(delayMillis, id -> deliver.run());
+			}
+
+			private boolean roll(double rate) {
+				return rate > 0 && m_random.nextDouble() < rate;
+			}
+		}
+	}
+
+	private static class Packet implements DatagramPacket {
+		private final SocketAddress m_sender;
+		private final Buffer m_data;
+
+		Packet(SocketAddress sender, Buffer data) {
+			m_sender = sender;
+			m_data = data;
+		}
+
+		@Override
+		public SocketAddress sender() {
+			return m_sender;
+		}
+
+		@Override
+		public Buffer data() {
+			return m_data;
+		}
+	}
+}
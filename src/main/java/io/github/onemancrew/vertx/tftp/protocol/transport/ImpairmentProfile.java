@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.transport;
+
+/**
+ * Project: vertx-tftp-client
+ * File: ImpairmentProfile.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.transport
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * The link conditions an {@link ImpairedTransport} simulates, applied to the packets sent and to the packets received.
+ * Rates are probabilities between 0 and 1 drawn for each packet from a generator seeded with {@link #getSeed()},
+ * so the same transfer sees the same impairments on every run.
+ */
+public class ImpairmentProfile {
+	public static final long DEFAULT_SEED = 1;
+
+	private double m_lossRate;
+	private double m_duplicateRate;
+	private double m_reorderRate;
+	private long m_delay;
+	private long m_jitter;
+	private long m_bandwidth;
+	private long m_seed;
+
+	public ImpairmentProfile() {
+		m_seed = DEFAULT_SEED;
+	}
+
+	public ImpairmentProfile(ImpairmentProfile other) {
+		m_lossRate = other.m_lossRate;
+		m_duplicateRate = other.m_duplicateRate;
+		m_reorderRate = other.m_reorderRate;
+		m_delay = other.m_delay;
+		m_jitter = other.m_jitter;
+		m_bandwidth = other.m_bandwidth;
+		m_seed = other.m_seed;
+	}
+
+	public double getLossRate() {
+		return m_lossRate;
+	}
+
+	/**
+	 * Set the probability a packet is dropped.
+	 */
+	public ImpairmentProfile setLossRate(double lossRate) {
+		m_lossRate = checkRate("lossRate", lossRate);
+		return this;
+	}
+
+	public double getDuplicateRate() {
+		return m_duplicateRate;
+	}
+
+	/**
+	 * Set the probability a packet is delivered twice.
+	 */
+	public ImpairmentProfile setDuplicateRate(double duplicateRate) {
+		m_duplicateRate = checkRate("duplicateRate", duplicateRate);
+		return this;
+	}
+
+	public double getReorderRate() {
+		return m_reorderRate;
+	}
+
+	/**
+	 * Set the probability a packet is held back and delivered after the next packet of the same direction.
+	 */
+	public ImpairmentProfile setReorderRate(double reorderRate) {
+		m_reorderRate = checkRate("reorderRate", reorderRate);
+		return this;
+	}
+
+	public long getDelay() {
+		return m_delay;
+	}
+
+	/**
+	 * Set the one way delay added to every packet.
+	 * @param delay the delay in milliseconds.
+	 */
+	public ImpairmentProfile setDelay(long delay) {
+		if (delay < 0)
+			throw new IllegalArgumentException("delay must not be negative");
+		m_delay = delay;
+		return this;
+	}
+
+	public long getJitter() {
+		return m_jitter;
+	}
+
+	/**
+	 * Set the largest random delay added on top of {@link #getDelay()}, packets may overtake each other.
+	 * @param jitter the jitter in milliseconds.
+	 */
+	public ImpairmentProfile setJitter(long jitter) {
+		if (jitter < 0)
+			throw new IllegalArgumentException("jitter must not be negative");
+		m_jitter = jitter;
+		return this;
+	}
+
+	public long getBandwidth() {
+		return m_bandwidth;
+	}
+
+	/**
+	 * Set the rate packets leave the link in each direction, packets sent faster wait in an unbounded queue.
+	 * @param bandwidth the bandwidth in bytes per second, 0 for no limit.
+	 */
+	public ImpairmentProfile setBandwidth(long bandwidth) {
+		if (bandwidth < 0)
+			throw new IllegalArgumentException("bandwidth must not be negative");
+		m_bandwidth = bandwidth;
+		return this;
+	}
+
+	public long getSeed() {
+		return m_seed;
+	}
+
+	public ImpairmentProfile setSeed(long seed) {
+		m_seed = seed;
+		return this;
+	}
+
+	private static double checkRate(String name, double rate) {
+		if (!(rate >= 0 && rate <= 1))
+			throw new IllegalArgumentException(name + " must be between 0 and 1");
+		return rate;
+	}
+
+	@Override
+	public String toString() {
+		return "ImpairmentProfile{loss=" + m_lossRate + ", duplicate=" + m_duplicateRate + ", reorder=" + m_reorderRate
+				+ ", delay=" + m_delay + "ms, jitter=" + m_jitter + "ms, bandwidth=" + m_bandwidth + "B/s, seed="
+				+ m_seed + "}";
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.transport;
+
+import io.netty.util.NetUtil;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Project: vertx-tftp-client
+ * File: ServerAddressCache.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.transport
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Resolves server host names once and keeps the address for a while.
+ * The address is the IP literal packets of the server are received from; sending to a literal is only parsed, the
+ * name is not looked up again for every packet.
+ */
+final class ServerAddressCache {
+	/**
+	 * How long a resolved address is used before the name is looked up again.
+	 */
+	private static final long TTL_MS = 60_000;
+
+	private final Vertx m_vertx;
+	private final Map<String, Entry> m_addresses = new ConcurrentHashMap<>();
+
+	ServerAddressCache(Vertx vertx) {
+		m_vertx = vertx;
+	}
+
+	void resolve(String host, Handler<AsyncResult<String>> handler) {
+		if (NetUtil.isValidIpV4Address(host) || NetUtil.isValidIpV6Address(host)) {
+			try {
+				// a literal is parsed, not looked up, and written the way received packets are
+				handler.handle(Future.succeededFuture(InetAddress.getByName(host).getHostAddress()));
+			} catch (Exception e) {
+				handler.handle(Future.failedFuture(e));
+			}
+			return;
+		}
+		Entry entry = m_addresses.get(host);
+		if (entry != null && System.currentTimeMillis() < entry.m_expires) {
+			handler.handle(Future.succeededFuture(entry.m_address));
+			return;
+		}
+		m_vertx.<String>executeBlocking(future -> {
+			try {
+				String address = InetAddress.getByName(host).getHostAddress();
+				m_addresses.put(host, new Entry(address, System.currentTimeMillis() + TTL_MS));
+				future.complete(address);
+			} catch (Exception e) {
+				future.fail(e);
+			}
+		}, false, handler);
+	}
+
+	private static class Entry {
+		private final String m_address;
+		private final long m_expires;
+
+		Entry(String address, long expires) {
+			m_address = address;
+			m_expires = expires;
+		}
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.transport;
+
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TransferCancelledException;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramPacket;
+import io.vertx.core.datagram.DatagramSocket;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Project: vertx-tftp-client
+ * File: SocketPoolTransport.java
+ * Package: io.github.onemancrew.vertx.tftp.protocol.transport
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Shares a few sockets per event loop between all the transfers of the event loop, whatever context they run on: a
+ * transfer started outside of Vert.x gets a new context, on one of the event loops.
+ * Packets are delivered to the transfer by the address and port (TID) of the server. The server TID is only known
+ * once it answered the request, so a socket has at most one transfer per server waiting for its first answer; when
+ * every socket of the event loop has one, the next transfer to that server waits until one of them was answered.
+ */
+public class SocketPoolTransport implements Transport {
+	private static Logger log = LoggerFactory.getLogger(SocketPoolTransport.class);
+
+	private final Vertx m_vertx;
+	private final TftpClientOptions m_options;
+	private final ServerAddressCache m_addresses;
+	private final Map<Object, SocketGroup> m_groups = new ConcurrentHashMap<>();
+	private final AtomicInteger m_socketCount = new AtomicInteger();
+	private volatile boolean m_closed;
+
+	public SocketPoolTransport(Vertx vertx, TftpClientOptions options) {
+		m_vertx = vertx;
+		m_options = options;
+		m_addresses = new ServerAddressCache(vertx);
+	}
+
+	@Override
+	public void open(String serverHost, Handler<AsyncResult<TransferChannel>> handler) {
+		Context context = m_vertx.getOrCreateContext();
+		// the contexts of an event loop run on its thread, a worker context does not and keeps its own sockets
+		Object key = context.isEventLoopContext() ? ((ContextInternal) context).nettyEventLoop() : context;
+		SocketGroup sockets = m_groups.computeIfAbsent(key, k -> new SocketGroup(context));
+		m_addresses.resolve(serverHost, resolved -> {
+			if (resolved.failed())
+				handler.handle(Future.failedFuture(resolved.cause()));
+			else
+				sockets.open(resolved.result(), handler);
+		});
+	}
+
+	@Override
+	public void close(Handler<AsyncResult<Void>> handler) {
+		m_closed = true;
+		List<SocketGroup> groups = new ArrayList<>(m_groups.values());
+		m_groups.clear();
+		for (SocketGroup group : groups)
+			group.m_context.runOnContext(v -> group.close());
+		handler.handle(Future.succeededFuture());
+	}
+
+	/**
+	 * @return the sockets bound or being bound.
+	 */
+	int getSocketCount() {
+		return m_socketCount.get();
+	}
+
+	/**
+	 * The sockets of one event loop, only used from its thread.
+	 */
+	private class SocketGroup {
+		private final Context m_context;
+		private final List<SharedSocket> m_sockets = new ArrayList<>();
+		private final Map<String, ArrayDeque<Handler<AsyncResult<TransferChannel>>>> m_waiting = new HashMap<>();
+		private boolean m_closed;
+
+		SocketGroup(Context context) {
+			m_context = context;
+		}
+
+		void open(String serverAddress, Handler<AsyncResult<TransferChannel>> handler) {
+			if (m_closed || SocketPoolTransport.this.m_closed) {
+				handler.handle(Future.failedFuture(new TransferCancelledException("transport closed")));
+				return;
+			}
+			for (SharedSocket socket : m_sockets) {
+				if (!socket.m_pending.containsKey(serverAddress)) {
+					socket.open(serverAddress, handler);
+					return;
+				}
+			}
+			if (m_sockets.size() < m_options.getSocketPoolSize()) {
+				SharedSocket socket = new SharedSocket(this);
+				m_sockets.add(socket);
+				m_socketCount.incrementAndGet();
+				socket.open(serverAddress, handler);
+				return;
+			}
+			m_waiting.computeIfAbsent(serverAddress, a -> new ArrayDeque<>()).add(handler);
+		}
+
+		/**
+		 * The socket can take a new transfer waiting for the first answer of the server.
+		 */
+		void released(SharedSocket socket, String serverAddress) {
+			ArrayDeque<Handler<AsyncResult<TransferChannel>>> waiting = m_waiting.get(serverAddress);
+			if (waiting == null)
+				return;
+			Handler<AsyncResult<TransferChannel>> handler = waiting.poll();
+			if (waiting.isEmpty())
+				m_waiting.remove(serverAddress);
+			socket.open(serverAddress, handler);
+		}
+
+		void removed(SharedSocket socket) {
+			if (m_sockets.remove(socket))
+				m_socketCount.decrementAndGet();
+		}
+
+		/**
+		 * Close the sockets, the transfers still waiting for one fail.
+		 */
+		void close() {
+			m_closed = true;
+			for (SharedSocket socket : new ArrayList<>(m_sockets))
+				socket.close();
+			List<ArrayDeque<Handler<AsyncResult<TransferChannel>>>> waiting = new ArrayList<>(m_waiting.values());
+			m_waiting.clear();
+			for (ArrayDeque<Handler<AsyncResult<TransferChannel>>> handlers : waiting) {
+				for (Handler<AsyncResult<TransferChannel>> handler : handlers)
+					handler.handle(Future.failedFuture(new TransferCancelledException("transport closed")));
+			}
+		}
+	}
+
+	private class SharedSocket {
+		private final SocketGroup m_group;
+		private DatagramSocket m_socket;
+		private AsyncResult<Void> m_bound;
+		private List<Handler<AsyncResult<Void>>> m_waiters;
+		private final Map<String, PooledChannel> m_pending = new HashMap<>();
+		private final Map<String, IntObjectMap<PooledChannel>> m_channels = new HashMap<>();
+
+		SharedSocket(SocketGroup group) {
+			m_group = group;
+		}
+
+		void open(String serverAddress, Handler<AsyncResult<TransferChannel>> handler) {
+			// reserve the slot before the socket is bound, the next transfer to the server takes another socket
+			PooledChannel channel = new PooledChannel(this, serverAddress);
+			m_pending.put(serverAddress, channel);
+			whenBound(bound -> {
+				if (bound.succeeded()) {
+					handler.handle(Future.succeededFuture(channel));
+				} else {
+					unregister(channel);
+					handler.handle(Future.failedFuture(bound.cause()));
+				}
+			});
+		}
+
+		private void whenBound(Handler<AsyncResult<Void>> handler) {
+			if (m_bound != null) {
+				handler.handle(m_bound);
+				return;
+			}
+			if (m_waiters != null) {
+				m_waiters.add(handler);
+				return;
+			}
+			m_waiters = new ArrayList<>();
+			m_waiters.add(handler);
+			m_socket = m_vertx.createDatagramSocket(DedicatedTransport.socketOptions(m_options));
+			m_socket.handler(this::dispatch);
+			m_socket.listen(0, "0.0.0.0", listened -> {
+				if (listened.succeeded()) {
+					m_bound = Future.succeededFuture();
+				} else {
+					// the socket is dropped, the next transfer binds a new one
+					m_group.removed(this);
+				}
+				List<Handler<AsyncResult<Void>>> waiters = m_waiters;
+				m_waiters = null;
+				for (Handler<AsyncResult<Void>> waiter : waiters)
+					waiter.handle(listened.mapEmpty());
+			});
+		}
+
+		private void dispatch(DatagramPacket packet) {
+			String address = packet.sender().host();
+			int port = packet.sender().port();
+			IntObjectMap<PooledChannel> ports = m_channels.get(address);
+			PooledChannel channel = ports == null ? null : ports.get(port);
+			if (channel != null) {
+				channel.handle(packet);
+				return;
+			}
+			// first answer of a transfer, the server port is its TID from now on
+			channel = m_pending.remove(address);
+			if (channel == null) {
+				if (log.isDebugEnabled())
+					log.debug("drop packet from unknown transfer " + address + ":" + port);
+				return;
+			}
+			channel.m_serverPort = port;
+			m_channels.computeIfAbsent(address, a -> new IntObjectHashMap<>()).put(port, channel);
+			channel.handle(packet);
+			m_group.released(this, address);
+		}
+
+		void unregister(PooledChannel channel) {
+			if (channel.m_serverPort < 0) {
+				if (m_pending.remove(channel.m_serverAddress, channel))
+					m_group.released(this, channel.m_serverAddress);
+				return;
+			}
+			IntObjectMap<PooledChannel> ports = m_channels.get(channel.m_serverAddress);
+			if (ports != null && ports.get(channel.m_serverPort) == channel) {
+				// late duplicates from the server TID must not be taken for the first answer of the next transfer,
+				// they are dropped by the closed channel until the server stopped retransmitting
+				m_vertx.setTimer(m_options.getMaxRetransmitTimeout(), id -> {
+					if (ports.get(channel.m_serverPort) == channel) {
+						ports.remove(channel.m_serverPort);
+						if (ports.isEmpty())
+							m_channels.remove(channel.m_serverAddress, ports);
+					}
+				});
+			}
+		}
+
+		void close() {
+			m_group.removed(this);
+			if (m_socket != null)
+				m_socket.close();
+		}
+	}
+
+	private static class PooledChannel implements TransferChannel {
+		private final SharedSocket m_shared;
+		private final String m_serverAddress;
+		private int m_serverPort = -1;
+		private Handler<DatagramPacket> m_handler;
+
+		PooledChannel(SharedSocket shared, String serverAddress) {
+			m_shared = shared;
+			m_serverAddress = serverAddress;
+		}
+
+		private void handle(DatagramPacket packet) {
+			if (m_handler != null)
+				m_handler.handle(packet);
+		}
+
+		@Override
+		public void send(Buffer packet, int port, Handler<AsyncResult<Void>> handler) {
+			m_shared.m_socket.send(packet, port, m_serverAddress, sent -> handler.handle(sent.mapEmpty()));
+		}
+
+		@Override
+		public void handler(Handler<DatagramPacket> handler) {
+			m_handler = handler;
+		}
+
+		@Override
+		public void close(Handler<AsyncResult<Void>> handler) {
+			m_handler = null;
+			m_shared.unregister(this);
+			handler.handle(Future.succeededFuture());
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.server;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Project: vertx-tftp-client
+ * File: DirectoryFileStore.java
+ * Package: io.github.onemancrew.vertx.tftp.server
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Files of a directory, read and written with the Vert.x file system.
+ * Names are resolved against the directory; a name that leaves it, e.g. with "..", is refused.
+ */
+public class DirectoryFileStore implements TftpFileStore {
+	private final Vertx m_vertx;
+	private final Path m_directory;
+
+	public DirectoryFileStore(Vertx vertx, String directory) {
+		m_vertx = vertx;
+		m_directory = Paths.get(directory).toAbsolutePath().normalize();
+	}
+
+	private Path resolve(String name) {
+		Path path = m_directory.resolve(name).normalize();
+		if (!path.startsWith(m_directory) || path.equals(m_directory))
+			throw new SecurityException(name + " is outside of " + m_directory);
+		return path;
+	}
+
+	@Override
+	public void read(String name, Handler<AsyncResult<Buffer>> handler) {
+		String path;
+		try {
+			path = resolve(name).toString();
+		} catch (SecurityException e) {
+			handler.handle(Future.failedFuture(e));
+			return;
+		}
+		m_vertx.fileSystem().exists(path, exists -> {
+			if (exists.failed())
+				handler.handle(Future.failedFuture(exists.cause()));
+			else if (!exists.result())
+				handler.handle(Future.failedFuture(new FileNotFoundException(name)));
+			else
+				m_vertx.fileSystem().readFile(path, handler);
+		});
+	}
+
+	@Override
+	public void write(String name, Buffer content, Handler<AsyncResult<Void>> handler) {
+		String path;
+		try {
+			path = resolve(name).toString();
+		} catch (SecurityException e) {
+			handler.handle(Future.failedFuture(e));
+			return;
+		}
+		m_vertx.fileSystem().writeFile(path, content, handler);
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.server;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import java.io.FileNotFoundException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Project: vertx-tftp-client
+ * File: MemoryFileStore.java
+ * Package: io.github.onemancrew.vertx.tftp.server
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Files kept in memory, keyed by the name of the request.
+ */
+public class MemoryFileStore implements TftpFileStore {
+	private final Map<String, Buffer> m_files = new ConcurrentHashMap<>();
+
+	public MemoryFileStore putFile(String name, Buffer content) {
+		m_files.put(name, content);
+		return this;
+	}
+
+	/**
+	 * @return the content of the file, null if there is none.
+	 */
+	public Buffer getFile(String name) {
+		return m_files.get(name);
+	}
+
+	@Override
+	public void read(String name, Handler<AsyncResult<Buffer>> handler) {
+		Buffer content = m_files.get(name);
+		if (content == null)
+			handler.handle(Future.failedFuture(new FileNotFoundException(name)));
+		else
+			handler.handle(Future.succeededFuture(content));
+	}
+
+	@Override
+	public void write(String name, Buffer content, Handler<AsyncResult<Void>> handler) {
+		m_files.put(name, content);
+		handler.handle(Future.succeededFuture());
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.server;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.TransferOption;
+import io.github.onemancrew.vertx.tftp.protocol.message.PacketReader;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.RequestMessage;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.SocketAddress;
+
+/**
+ * Project: vertx-tftp-client
+ * File: ReadTransfer.java
+ * Package: io.github.onemancrew.vertx.tftp.server
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Sends a file for a read request (RRQ), a window of blocks at a time (RFC 7440).
+ */
+class ReadTransfer extends ServerTransfer {
+	private Buffer m_file;
+	private long m_lastBlock;
+	/**
+	 * The first block of the window in flight.
+	 */
+	private long m_base = 1;
+	private boolean m_waitOptionAck;
+	/**
+	 * The window was sent again for an ACK of the block before it.
+	 */
+	private boolean m_resent;
+
+	ReadTransfer(Vertx vertx, TftpFileStore store, TftpServerOptions options, RequestMessage request, String host,
+				 SocketAddress client, Handler<ServerTransfer> closeHandler) {
+		super(vertx, store, options, request, host, client, closeHandler);
+	}
+
+	@Override
+	protected void begin() {
+		m_store.read(m_request.getFilename(), read -> {
+			if (read.failed()) {
+				sendError(toErrorCode(read.cause(), ErrorCode.ACCESS_VIOLATION));
+				return;
+			}
+			m_file = read.result();
+			m_lastBlock = m_file.length() / m_blockSize + 1;
+			if (m_request.getOption(TransferOption.TRANSFER_SIZE.getName()) != null)
+				m_acceptedOptions.put(TransferOption.TRANSFER_SIZE.getName(), String.valueOf(m_file.length()));
+			if (m_acceptedOptions.isEmpty()) {
+				sendWindow();
+			} else {
+				m_waitOptionAck = true;
+				send(optionAck());
+				touch();
+			}
+		});
+	}
+
+	@Override
+	protected void handlePacket(Opcode opcode, PacketReader packet) {
+		if (opcode != Opcode.ACK)
+			return;
+		int blockId = packet.getBlockId();
+		if (m_waitOptionAck) {
+			if (blockId == 0) {
+				m_waitOptionAck = false;
+				sendWindow();
+			}
+			return;
+		}
+		long acked = toBlock(m_base - 1, blockId);
+		if (acked >= m_base + m_windowSize)
+			return;
+		if (acked == m_lastBlock) {
+			close();
+			return;
+		}
+		if (acked == m_base - 1) {
+			// the client lost the first block of the window, or this is a copy of the ACK that started it: send the
+			// window again once, doing it for every copy would double each following window
+			if (m_resent)
+				return;
+			m_resent = true;
+		} else {
+			m_resent = false;
+		}
+		// the ACK of a whole window, or of the last block received before a gap, starts the next window after it
+		m_base = acked + 1;
+		sendWindow();
+	}
+
+	private void sendWindow() {
+		sendBlocks();
+		touch();
+	}
+
+	private void sendBlocks() {
+		long end = Math.min(m_base + m_windowSize - 1, m_lastBlock);
+		for (long block = m_base; block <= end; block++) {
+			int start = (int) ((block - 1) * m_blockSize);
+			sendData(block, m_file.slice(start, Math.min(start + m_blockSize, m_file.length())));
+		}
+	}
+
+	@Override
+	protected void retransmit() {
+		if (m_waitOptionAck)
+			send(optionAck());
+		else
+			sendBlocks();
+	}
+}
@@ -0,0 +1,296 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.server;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.TransferOption;
+import io.github.onemancrew.vertx.tftp.protocol.message.DataMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.ErrorMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.IBufferProtocol;
+import io.github.onemancrew.vertx.tftp.protocol.message.OptionAckMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.PacketReader;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.RequestMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramPacket;
+import io.vertx.core.datagram.DatagramSocket;
+import io.vertx.core.datagram.DatagramSocketOptions;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.net.SocketAddress;
+import java.io.FileNotFoundException;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Project: vertx-tftp-client
+ * File: ServerTransfer.java
+ * Package: io.github.onemancrew.vertx.tftp.server
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * One transfer of a {@link TftpServer}, on its own socket (the server transfer identifier of RFC 1350).
+ * Option negotiation, the retransmission timer and the packet encoding shared by {@link ReadTransfer} and
+ * {@link WriteTransfer}.
+ */
+abstract class ServerTransfer {
+	private static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+	private static final int BLOCK_ID_MASK = 0xFFFF;
+	private static Logger log = LoggerFactory.getLogger(ServerTransfer.class);
+	protected final Vertx m_vertx;
+	protected final TftpFileStore m_store;
+	protected final TftpServerOptions m_options;
+	protected final RequestMessage m_request;
+	private final String m_host;
+	private final SocketAddress m_client;
+	private final Handler<ServerTransfer> m_closeHandler;
+	/**
+	 * The options the server acknowledges in its OACK, empty to answer as a plain RFC 1350 server.
+	 */
+	protected final Map<String, String> m_acceptedOptions = new LinkedHashMap<>();
+	protected int m_blockSize = DataMessage.BLOCK_SIZE;
+	protected int m_windowSize = 1;
+	private DatagramSocket m_socket;
+	private final PacketReader m_reader = new PacketReader();
+	private long m_timer = -1;
+	private int m_retries;
+	private boolean m_closed;
+
+	ServerTransfer(Vertx vertx, TftpFileStore store, TftpServerOptions options, RequestMessage request, String host,
+				   SocketAddress client, Handler<ServerTransfer> closeHandler) {
+		m_vertx = vertx;
+		m_store = store;
+		m_options = options;
+		m_request = request;
+		m_host = host;
+		m_client = client;
+		m_closeHandler = closeHandler;
+	}
+
+	void start() {
+		negotiate();
+		m_socket = m_vertx.createDatagramSocket(socketOptions());
+		m_socket.handler(this::handle);
+		m_socket.listen(0, m_host, listened -> {
+			if (listened.failed()) {
+				log.error("transfer of " + m_request.getFilename() + " failed to bind: " + listened.cause().getMessage());
+				close();
+				return;
+			}
+			begin();
+		});
+	}
+
+	/**
+	 * Accept the blksize and windowsize options of the request, capped by the server options.
+	 * Values out of range are ignored, the transfer then runs without the option.
+	 */
+	private void negotiate() {
+		String blockSize = m_request.getOption(TransferOption.BLOCK_SIZE.getName());
+		long value = parse(blockSize);
+		if (TransferOption.BLOCK_SIZE.isValid(value)) {
+			m_blockSize = (int) Math.min(value, m_options.getMaxBlockSize());
+			m_acceptedOptions.put(TransferOption.BLOCK_SIZE.getName(), String.valueOf(m_blockSize));
+		}
+		String windowSize = m_request.getOption(TransferOption.WINDOW_SIZE.getName());
+		value = parse(windowSize);
+		if (TransferOption.WINDOW_SIZE.isValid(value)) {
+			m_windowSize = (int) Math.min(value, m_options.getMaxWindowSize());
+			m_acceptedOptions.put(TransferOption.WINDOW_SIZE.getName(), String.valueOf(m_windowSize));
+		}
+	}
+
+	protected static long parse(String value) {
+		if (value == null)
+			return -1;
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	protected DatagramSocketOptions socketOptions() {
+		return new DatagramSocketOptions();
+	}
+
+	/**
+	 * Called once the socket of the transfer is bound, sends the first packet.
+	 */
+	protected abstract void begin();
+
+	/**
+	 * Handle an ACK or DATA packet of the client.
+	 */
+	protected abstract void handlePacket(Opcode opcode, PacketReader packet);
+
+	/**
+	 * Called when the client did not answer in time, sends the last packets again.
+	 */
+	protected abstract void retransmit();
+
+	private void handle(DatagramPacket packet) {
+		SocketAddress sender = packet.sender();
+		if (sender.port() != m_client.port() || !sender.host().equals(m_client.host())) {
+			// a packet of another transfer, answered without disturbing this one (RFC 1350)
+			send(new ErrorMessage(ErrorCode.UNKNOWN_TRANSFER_ID), sender);
+			return;
+		}
+		PacketReader reader = m_reader.wrap(packet.data());
+		Opcode opcode = reader.getOpcode();
+		if (opcode == Opcode.ERROR) {
+			close();
+		} else if (opcode != null && reader.hasBlockId() && !m_closed) {
+			handlePacket(opcode, reader);
+		}
+	}
+
+	protected OptionAckMessage optionAck() {
+		return new OptionAckMessage(m_acceptedOptions);
+	}
+
+	protected void send(IBufferProtocol msg) {
+		send(msg, m_client);
+	}
+
+	private void send(IBufferProtocol msg, SocketAddress address) {
+		send(msg, address, null);
+	}
+
+	private void send(IBufferProtocol msg, SocketAddress address, Handler<Void> onSent) {
+		ByteBuf packet = ALLOCATOR.directBuffer(msg.getBufferSize());
+		msg.toByteBuf(packet);
+		send(packet, address, onSent);
+	}
+
+	/**
+	 * Encode and send the DATA message of a block, its data is a slice of the file.
+	 */
+	protected void sendData(long block, Buffer data) {
+		ByteBuf packet = ALLOCATOR.directBuffer(DataMessage.getBufferSize(data.length()));
+		DataMessage.toByteBuf(packet, toBlockId(block), data.getByteBuf());
+		send(packet, m_client, null);
+	}
+
+	private void send(ByteBuf packet, SocketAddress address, Handler<Void> onSent) {
+		if (m_closed) {
+			packet.release();
+			return;
+		}
+		m_socket.send(Buffer.buffer(packet), address.port(), address.host(), sent -> {
+			packet.release();
+			if (onSent != null)
+				onSent.handle(null);
+		});
+	}
+
+	/**
+	 * Answer the request with an ERROR and end the transfer.
+	 */
+	protected void sendError(ErrorCode errorCode) {
+		cancelTimer();
+		send(new ErrorMessage(errorCode), m_client, v -> close());
+	}
+
+	/**
+	 * @return the error code reporting a failure of the file store.
+	 */
+	protected static ErrorCode toErrorCode(Throwable cause, ErrorCode otherwise) {
+		if (cause instanceof FileNotFoundException)
+			return ErrorCode.FILE_NOT_FOUND;
+		if (cause instanceof FileAlreadyExistsException)
+			return ErrorCode.FILE_ALREADY_EXISTS;
+		if (cause instanceof SecurityException)
+			return ErrorCode.ACCESS_VIOLATION;
+		return otherwise;
+	}
+
+	/**
+	 * Restart the retransmission timer after the client made progress.
+	 */
+	protected void touch() {
+		m_retries = 0;
+		schedule();
+	}
+
+	private void schedule() {
+		cancelTimer();
+		if (m_closed)
+			return;
+		m_timer = m_vertx.setTimer(m_options.getRetransmitTimeout(), id -> {
+			m_timer = -1;
+			if (m_closed)
+				return;
+			if (++m_retries > m_options.getMaxRetries()) {
+				log.info("transfer of " + m_request.getFilename() + " to " + m_client + " timed out");
+				close();
+				return;
+			}
+			retransmit();
+			schedule();
+		});
+	}
+
+	protected void cancelTimer() {
+		if (m_timer >= 0) {
+			m_vertx.cancelTimer(m_timer);
+			m_timer = -1;
+		}
+	}
+
+	protected static int toBlockId(long block) {
+		return (int) (block & BLOCK_ID_MASK);
+	}
+
+	/**
+	 * @return the block a 16 bits block id refers to, the closest one at or after base.
+	 */
+	protected static long toBlock(long base, int blockId) {
+		return base + ((blockId - base) & BLOCK_ID_MASK);
+	}
+
+	protected boolean isClosed() {
+		return m_closed;
+	}
+
+	void close() {
+		if (m_closed)
+			return;
+		m_closed = true;
+		cancelTimer();
+		if (m_socket != null)
+			m_socket.close();
+		m_closeHandler.handle(this);
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.server;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownErrorException;
+import io.github.onemancrew.vertx.tftp.protocol.exception.UnknownOpcodeException;
+import io.github.onemancrew.vertx.tftp.protocol.message.PacketReader;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.ReadRequestMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.RequestMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.WriteRequestMessage;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.datagram.DatagramPacket;
+import io.vertx.core.datagram.DatagramSocket;
+import io.vertx.core.datagram.DatagramSocketOptions;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TftpServer.java
+ * Package: io.github.onemancrew.vertx.tftp.server
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * A TFTP server embedded in the application, meant for tests and benchmarks on loopback.
+ * It serves read (RRQ) and write (WRQ) requests from a {@link TftpFileStore}, with the blksize (RFC 2348),
+ * windowsize (RFC 7440) and tsize (RFC 2349) options; every mode is served as octet.
+ * All the transfers run on the context the server was started on.
+ */
+public class TftpServer {
+	private static Logger log = LoggerFactory.getLogger(TftpServer.class);
+	private final Vertx m_vertx;
+	private final TftpFileStore m_store;
+	private final TftpServerOptions m_options;
+	private final Set<ServerTransfer> m_transfers = new HashSet<>();
+	private final PacketReader m_reader = new PacketReader();
+	private DatagramSocket m_socket;
+	private Context m_context;
+	private String m_host;
+
+	public TftpServer(Vertx vertx, TftpFileStore store) {
+		this(vertx, store, new TftpServerOptions());
+	}
+
+	public TftpServer(Vertx vertx, TftpFileStore store, TftpServerOptions options) {
+		m_vertx = vertx;
+		m_store = store;
+		m_options = new TftpServerOptions(options);
+	}
+
+	/**
+	 * Listen for requests.
+	 * @param port the port, 0 to let the kernel pick one, see {@link #actualPort()}.
+	 * @param host the address to bind, the transfers are bound to it too.
+	 */
+	public TftpServer listen(int port, String host, Handler<AsyncResult<TftpServer>> handler) {
+		m_host = host;
+		m_context = m_vertx.getOrCreateContext();
+		m_context.runOnContext(v -> {
+			m_socket = m_vertx.createDatagramSocket(new DatagramSocketOptions());
+			m_socket.handler(this::handleRequest);
+			m_socket.listen(port, host, listened -> {
+				if (listened.failed())
+					handler.handle(Future.failedFuture(listened.cause()));
+				else
+					handler.handle(Future.succeededFuture(this));
+			});
+		});
+		return this;
+	}
+
+	/**
+	 * @return the port the server listens on.
+	 */
+	public int actualPort() {
+		return m_socket.localAddress().port();
+	}
+
+	private void handleRequest(DatagramPacket packet) {
+		Opcode opcode = m_reader.wrap(packet.data()).getOpcode();
+		RequestMessage request;
+		if (opcode == Opcode.RRQ)
+			request = new ReadRequestMessage("");
+		else if (opcode == Opcode.WRQ)
+			request = new WriteRequestMessage("");
+		else
+			return;
+		try {
+			request.fromBuffer(m_reader.toByteBuffer());
+		} catch (UnknownOpcodeException | UnknownErrorException e) {
+			return;
+		}
+		if (log.isDebugEnabled())
+			log.debug(opcode + " " + request.getFilename() + " " + request.getOptions() + " from " + packet.sender());
+		ServerTransfer transfer = opcode == Opcode.RRQ
+				? new ReadTransfer(m_vertx, m_store, m_options, request, m_host, packet.sender(), m_transfers::remove)
+				: new WriteTransfer(m_vertx, m_store, m_options, request, m_host, packet.sender(), m_transfers::remove);
+		m_transfers.add(transfer);
+		transfer.start();
+	}
+
+	/**
+	 * Stop listening and abort the transfers in progress.
+	 */
+	public void close(Handler<AsyncResult<Void>> handler) {
+		if (m_context == null) {
+			handler.handle(Future.succeededFuture());
+			return;
+		}
+		m_context.runOnContext(v -> {
+			new ArrayList<>(m_transfers).forEach(ServerTransfer::close);
+			if (m_socket == null)
+				handler.handle(Future.succeededFuture());
+			else
+				m_socket.close(handler);
+		});
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.server;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.TransferOption;
+import io.github.onemancrew.vertx.tftp.protocol.message.DataMessage;
+
+/**
+ * Project: vertx-tftp-client
+ * File: TftpServerOptions.java
+ * Package: io.github.onemancrew.vertx.tftp.server
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Options used to configure a {@link TftpServer}.
+ */
+public class TftpServerOptions {
+	public static final int DEFAULT_MAX_BLOCK_SIZE = DataMessage.MAX_BLOCK_SIZE;
+	public static final int DEFAULT_MAX_WINDOW_SIZE = 64;
+	public static final long DEFAULT_RETRANSMIT_TIMEOUT = 1000;
+	public static final int DEFAULT_MAX_RETRIES = 5;
+
+	private int m_maxBlockSize;
+	private int m_maxWindowSize;
+	private long m_retransmitTimeout;
+	private int m_maxRetries;
+
+	public TftpServerOptions() {
+		m_maxBlockSize = DEFAULT_MAX_BLOCK_SIZE;
+		m_maxWindowSize = DEFAULT_MAX_WINDOW_SIZE;
+		m_retransmitTimeout = DEFAULT_RETRANSMIT_TIMEOUT;
+		m_maxRetries = DEFAULT_MAX_RETRIES;
+	}
+
+	public TftpServerOptions(TftpServerOptions other) {
+		m_maxBlockSize = other.m_maxBlockSize;
+		m_maxWindowSize = other.m_maxWindowSize;
+		m_retransmitTimeout = other.m_retransmitTimeout;
+		m_maxRetries = other.m_maxRetries;
+	}
+
+	public int getMaxBlockSize() {
+		return m_maxBlockSize;
+	}
+
+	/**
+	 * Set the largest block size the server accepts with the blksize option (RFC 2348), larger requests get this one.
+	 * @param maxBlockSize between 8 and 65464 bytes.
+	 */
+	public TftpServerOptions setMaxBlockSize(int maxBlockSize) {
+		if (!TransferOption.BLOCK_SIZE.isValid(maxBlockSize))
+			throw new IllegalArgumentException("maxBlockSize must be between " + TransferOption.BLOCK_SIZE.getMin()
+					+ " and " + DataMessage.MAX_BLOCK_SIZE);
+		m_maxBlockSize = maxBlockSize;
+		return this;
+	}
+
+	public int getMaxWindowSize() {
+		return m_maxWindowSize;
+	}
+
+	/**
+	 * Set the largest window the server accepts with the windowsize option (RFC 7440), larger requests get this one.
+	 * @param maxWindowSize between 1 and 65535 blocks.
+	 */
+	public TftpServerOptions setMaxWindowSize(int maxWindowSize) {
+		if (!TransferOption.WINDOW_SIZE.isValid(maxWindowSize))
+			throw new IllegalArgumentException("maxWindowSize must be between " + TransferOption.WINDOW_SIZE.getMin()
+					+ " and " + TransferOption.WINDOW_SIZE.getMax());
+		m_maxWindowSize = maxWindowSize;
+		return this;
+	}
+
+	public long getRetransmitTimeout() {
+		return m_retransmitTimeout;
+	}
+
+	/**
+	 * Set the time the server waits for the next packet of the client before it sends its last packets again.
+	 * @param retransmitTimeout in milliseconds.
+	 */
+	public TftpServerOptions setRetransmitTimeout(long retransmitTimeout) {
+		if (retransmitTimeout <= 0)
+			throw new IllegalArgumentException("retransmitTimeout must be > 0");
+		m_retransmitTimeout = retransmitTimeout;
+		return this;
+	}
+
+	public int getMaxRetries() {
+		return m_maxRetries;
+	}
+
+	/**
+	 * Set how many timeouts in a row the server retransmits before it drops the transfer.
+	 */
+	public TftpServerOptions setMaxRetries(int maxRetries) {
+		if (maxRetries < 0)
+			throw new IllegalArgumentException("maxRetries must be >= 0");
+		m_maxRetries = maxRetries;
+		return this;
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.server;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.TransferOption;
+import io.github.onemancrew.vertx.tftp.protocol.message.AckMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.DataMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.IBufferProtocol;
+import io.github.onemancrew.vertx.tftp.protocol.message.PacketReader;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.RequestMessage;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramSocketOptions;
+import io.vertx.core.net.SocketAddress;
+
+/**
+ * Project: vertx-tftp-client
+ * File: WriteTransfer.java
+ * Package: io.github.onemancrew.vertx.tftp.server
+ * create by: Levi
+ * create date: 18-10-2026
+ * Last update by:
+ * Last update date:
+ **/
+/**
+ * Receives a file for a write request (WRQ), acknowledging each window of blocks (RFC 7440).
+ * The file is kept in memory and handed to the store once the last block arrived, before it is acknowledged.
+ */
+class WriteTransfer extends ServerTransfer {
+	private static final int MIN_RECEIVE_BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_RECEIVE_BUFFER_SIZE = 1024 * 1024;
+	private final Buffer m_file = Buffer.buffer();
+	/**
+	 * The next block expected.
+	 */
+	private long m_next = 1;
+	private int m_received;
+	/**
+	 * The gap or the duplicates since the last block received in order were answered, once is enough.
+	 */
+	private boolean m_gapAcked;
+	private IBufferProtocol m_lastAck;
+	private boolean m_done;
+	private boolean m_stored;
+
+	WriteTransfer(Vertx vertx, TftpFileStore store, TftpServerOptions options, RequestMessage request, String host,
+				  SocketAddress client, Handler<ServerTransfer> closeHandler) {
+		super(vertx, store, options, request, host, client, closeHandler);
+	}
+
+	@Override
+	protected DatagramSocketOptions socketOptions() {
+		DatagramSocketOptions options = super.socketOptions();
+		if (m_blockSize > DataMessage.BLOCK_SIZE || m_windowSize > 1) {
+			// room for a whole window, the kernel accounts about twice the size of each datagram
+			long size = 2L * DataMessage.getBufferSize(m_blockSize) * m_windowSize;
+			options.setReceiveBufferSize((int) Math.max(MIN_RECEIVE_BUFFER_SIZE, Math.min(size, MAX_RECEIVE_BUFFER_SIZE)));
+		}
+		return options;
+	}
+
+	@Override
+	protected void begin() {
+		String transferSize = m_request.getOption(TransferOption.TRANSFER_SIZE.getName());
+		if (TransferOption.TRANSFER_SIZE.isValid(parse(transferSize)))
+			m_acceptedOptions.put(TransferOption.TRANSFER_SIZE.getName(), transferSize.trim());
+		m_lastAck = m_acceptedOptions.isEmpty() ? new AckMessage(0) : optionAck();
+		send(m_lastAck);
+		touch();
+	}
+
+	@Override
+	protected void handlePacket(Opcode opcode, PacketReader packet) {
+		if (opcode != Opcode.DATA)
+			return;
+		if (m_done) {
+			// the final ACK was lost, the client sends its last block again
+			if (m_stored)
+				send(m_lastAck);
+			return;
+		}
+		int blockId = packet.getBlockId();
+		if (blockId != toBlockId(m_next)) {
+			// a gap, or blocks sent again because the client missed an ACK: ACK the last block received in order
+			// so the client resends from there, once, an ACK for each packet would make it send the window again
+			// for each of them
+			if (!m_gapAcked) {
+				m_gapAcked = true;
+				m_received = 0;
+				m_lastAck = new AckMessage(toBlockId(m_next - 1));
+				send(m_lastAck);
+			}
+			return;
+		}
+		m_file.appendBuffer(packet.getPayload());
+		m_next++;
+		m_received++;
+		m_gapAcked = false;
+		m_lastAck = new AckMessage(blockId);
+		if (packet.getPayloadLength() < m_blockSize) {
+			complete();
+			return;
+		}
+		if (m_received == m_windowSize) {
+			m_received = 0;
+			send(m_lastAck);
+		}
+		touch();
+	}
+
+	private void complete() {
+		m_done = true;
+		cancelTimer();
+		m_store.write(m_request.getFilename(), m_file, written -> {
+			if (written.failed()) {
+				sendError(toErrorCode(written.cause(), ErrorCode.DISK_FULL));
+				return;
+			}
+			m_stored = true;
+			send(m_lastAck);
+			// stay as long as a transfer waits for its client, to acknowledge the last block again if the client
+			// did not get the ACK and sends it again after its own, longer, timeout
+			m_vertx.setTimer(m_options.getRetransmitTimeout() * (m_options.getMaxRetries() + 1), id -> close());
+		});
+	}
+
+	@Override
+	protected void retransmit() {
+		send(m_lastAck);
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+@RunWith(VertxUnitRunner.class)
+public class DownloadCacheTest {
+
+    Vertx vertx;
+    Path dir;
+    MemoryFileStore store;
+    TftpServer server;
+
+    @Before
+    public void before(TestContext context) throws IOException {
+        vertx = Vertx.vertx();
+        dir = Files.createTempDirectory("tftp-cache");
+        store = new MemoryFileStore();
+        for (String name : new String[]{"a", "b", "c"})
+            store.putFile(name, Buffer.buffer("content " + name));
+        server = new TftpServer(vertx, store, new TftpServerOptions());
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess());
+    }
+
+    @After
+    public void after(TestContext context) {
+        server.close(context.asyncAssertSuccess(v -> {
+            vertx.fileSystem().deleteRecursiveBlocking(dir.toString(), true);
+            vertx.close(context.asyncAssertSuccess());
+        }));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted(TestContext context) {
+        // room for two of the 9 bytes files
+        DownloadCache cache = new DownloadCache(vertx, options().setMaxBytes(20));
+        TftpClient client = new TftpClient(vertx, "127.0.0.1", server.actualPort()).setDownloadCache(cache);
+        Async async = context.async();
+        download(context, client, "a", v1 -> download(context, client, "b", v2 -> download(context, client, "a", v3 -> {
+            context.assertEquals(1L, cache.getHits());
+            // a was used last, b is evicted for c
+            download(context, client, "c", v4 -> download(context, client, "a", v5 -> download(context, client, "b", v6 -> {
+                context.assertEquals(2L, cache.getHits());
+                context.assertEquals(4L, cache.getMisses());
+                context.assertEquals(18L, cache.getSize());
+                cache.close(context.asyncAssertSuccess(c -> async.complete()));
+            })));
+        })));
+    }
+
+    @Test
+    public void testExpiredFileIsRevalidated(TestContext context) {
+        DownloadCache cache = new DownloadCache(vertx, options().setTtl(0));
+        TftpClient client = new TftpClient(vertx, "127.0.0.1", server.actualPort()).setDownloadCache(cache);
+        Async async = context.async();
+        download(context, client, "a", v1 -> download(context, client, "a", v2 -> {
+            // the server announced the same size
+            context.assertEquals(1L, cache.getHits());
+            store.putFile("a", Buffer.buffer("changed content a"));
+            download(context, client, "a", v3 -> {
+                context.assertEquals(1L, cache.getHits());
+                context.assertEquals(2L, cache.getMisses());
+                context.assertEquals(17L, cache.getSize());
+                cache.close(context.asyncAssertSuccess(c -> async.complete()));
+            });
+        }));
+    }
+
+    @Test
+    public void testFileEvictedWhileServedIsDownloaded(TestContext context) {
+        Path cacheDir = dir.resolve("cache");
+        DownloadCache cache = new DownloadCache(vertx, options().setDirectory(cacheDir.toString()));
+        TftpClient client = new TftpClient(vertx, "127.0.0.1", server.actualPort()).setDownloadCache(cache);
+        Async async = context.async();
+        download(context, client, "a", v1 -> {
+            try (Stream<Path> files = Files.walk(cacheDir)) {
+                files.filter(Files::isRegularFile).forEach(file -> file.toFile().delete());
+            } catch (IOException e) {
+                context.fail(e);
+            }
+            download(context, client, "a", v2 -> {
+                context.assertEquals(0L, cache.getHits());
+                context.assertEquals(2L, cache.getMisses());
+                cache.close(context.asyncAssertSuccess(c -> async.complete()));
+            });
+        });
+    }
+
+    @Test
+    public void testSameFileServedConcurrently(TestContext context) {
+        DownloadCache cache = new DownloadCache(vertx, options());
+        TftpClient client = new TftpClient(vertx, "127.0.0.1", server.actualPort()).setDownloadCache(cache);
+        Async async = context.async();
+        download(context, client, "a", v -> {
+            // each copy goes through a temporary file of its own before it is renamed over the destination
+            Async served = context.async(8);
+            for (int i = 0; i < 8; i++)
+                download(context, client, "a", v2 -> served.countDown());
+            served.handler(r -> {
+                context.assertEquals(8L, cache.getHits());
+                try (Stream<Path> files = Files.list(dir)) {
+                    context.assertEquals(1L, files.filter(Files::isRegularFile).count());
+                } catch (IOException e) {
+                    context.fail(e);
+                }
+                cache.close(context.asyncAssertSuccess(c -> async.complete()));
+            });
+        });
+    }
+
+    private DownloadCacheOptions options() {
+        return new DownloadCacheOptions().setDirectory(dir.resolve("cache").toString());
+    }
+
+    /**
+     * Download a file through the cache and check it has the content of the server.
+     */
+    private void download(TestContext context, TftpClient client, String name, Handler<Void> next) {
+        String target = dir.resolve("downloaded-" + name).toString();
+        client.downloadFile(name, target, context.asyncAssertSuccess(v -> {
+            context.assertEquals(store.getFile(name), vertx.fileSystem().readFileBlocking(target));
+            next.handle(null);
+        }));
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.github.onemancrew.vertx.tftp.protocol.exception.TftpError;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+@RunWith(VertxUnitRunner.class)
+public class DownloadFlightsTest {
+
+    Vertx vertx;
+    Path dir;
+    CountingStore store;
+    TftpServer server;
+    TftpClient client;
+    Buffer content;
+
+    @Before
+    public void before(TestContext context) throws IOException {
+        vertx = Vertx.vertx();
+        dir = Files.createTempDirectory("tftp-flights");
+        byte[] bytes = new byte[100000];
+        new Random(3).nextBytes(bytes);
+        content = Buffer.buffer(bytes);
+        store = new CountingStore();
+        store.putFile("file", content);
+        server = new TftpServer(vertx, store, new TftpServerOptions());
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> client = new TftpClient(vertx, "127.0.0.1",
+                s.actualPort(), new TftpClientOptions().setCoalesceDownloads(true))));
+    }
+
+    @After
+    public void after(TestContext context) {
+        server.close(context.asyncAssertSuccess(v -> {
+            vertx.fileSystem().deleteRecursiveBlocking(dir.toString(), true);
+            vertx.close(context.asyncAssertSuccess());
+        }));
+    }
+
+    @Test
+    public void testDownloadsJoinOneTransfer(TestContext context) {
+        Async async = context.async(4);
+        CollectStream late = new CollectStream(null);
+        // joins once the blocks are flowing, it is served from the spool
+        CollectStream live = new CollectStream(v -> client.download("file", late, context.asyncAssertSuccess(w -> {
+            context.assertEquals(content, late.received);
+            context.assertTrue(late.ended);
+            async.countDown();
+        })));
+        vertx.runOnContext(v -> {
+            for (String name : new String[]{"first", "second"}) {
+                Path target = dir.resolve(name);
+                client.downloadFile("file", target.toString(), context.asyncAssertSuccess(w -> {
+                    context.assertEquals(content, vertx.fileSystem().readFileBlocking(target.toString()));
+                    async.countDown();
+                }));
+            }
+            client.download("file", live, context.asyncAssertSuccess(w -> {
+                context.assertEquals(content, live.received);
+                context.assertTrue(live.ended);
+                async.countDown();
+            }));
+        });
+        async.handler(done -> {
+            context.assertEquals(1, store.reads.get());
+            // the spool was moved to the first file
+            context.assertEquals(2L, countFiles());
+        });
+    }
+
+    @Test
+    public void testFlightsServeTheSameFile(TestContext context) {
+        int flights = 6;
+        Async async = context.async(flights * 2);
+        vertx.runOnContext(v -> {
+            // each flight copies its spool to the shared file through a temporary file of its own
+            for (int i = 0; i < flights; i++) {
+                store.putFile("file" + i, content);
+                for (String name : new String[]{"first" + i, "shared"}) {
+                    Path target = dir.resolve(name);
+                    client.downloadFile("file" + i, target.toString(), context.asyncAssertSuccess(w -> {
+                        context.assertEquals(content, vertx.fileSystem().readFileBlocking(target.toString()));
+                        async.countDown();
+                    }));
+                }
+            }
+        });
+        async.handler(done -> context.assertEquals(flights + 1L, countFiles()));
+    }
+
+    @Test
+    public void testFailureReachesEveryDownload(TestContext context) {
+        Async async = context.async(3);
+        vertx.runOnContext(v -> {
+            client.downloadFile("missing", dir.resolve("first").toString(), failed(context, async));
+            client.downloadFile("missing", dir.resolve("second").toString(), failed(context, async));
+            client.download("missing", new CollectStream(null), failed(context, async));
+        });
+        async.handler(done -> {
+            context.assertEquals(1, store.reads.get());
+            context.assertEquals(0L, countFiles());
+        });
+    }
+
+    private Handler<AsyncResult<Void>> failed(TestContext context, Async async) {
+        return result -> {
+            context.assertTrue(result.failed() && result.cause() instanceof TftpError);
+            async.countDown();
+        };
+    }
+
+    private long countFiles() {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Counts the read requests and answers them late, so the downloads started together join one flight.
+     */
+    class CountingStore extends MemoryFileStore {
+        final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public void read(String name, Handler<AsyncResult<Buffer>> handler) {
+            reads.incrementAndGet();
+            vertx.setTimer(100, id -> super.read(name, handler));
+        }
+    }
+
+    static class CollectStream implements WriteStream<Buffer> {
+        final Buffer received = Buffer.buffer();
+        final Handler<Void> firstWrite;
+        boolean ended;
+
+        CollectStream(Handler<Void> firstWrite) {
+            this.firstWrite = firstWrite;
+        }
+
+        @Override
+        public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public WriteStream<Buffer> write(Buffer data) {
+            if (received.length() == 0 && firstWrite != null)
+                firstWrite.handle(null);
+            received.appendBuffer(data);
+            return this;
+        }
+
+        @Override
+        public void end() {
+            ended = true;
+        }
+
+        @Override
+        public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+            return this;
+        }
+
+        @Override
+        public boolean writeQueueFull() {
+            return false;
+        }
+
+        @Override
+        public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+            return this;
+        }
+    }
+}
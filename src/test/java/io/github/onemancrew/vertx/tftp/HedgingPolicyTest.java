@@ -0,0 +1,50 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HedgingPolicyTest {
+
+    @Test
+    public void testPercentileOfRecentDownloads() {
+        HedgingPolicy policy = HedgingPolicy.percentile(90, 500);
+        for (int i = 1; i < 20; i++)
+            policy.record(i);
+        // not enough downloads measured yet
+        Assert.assertEquals(500, policy.getDelayMs());
+        for (int i = 20; i <= 100; i++)
+            policy.record(i);
+        Assert.assertEquals(90, policy.getDelayMs());
+    }
+
+    @Test
+    public void testFixedDelay() {
+        HedgingPolicy policy = HedgingPolicy.fixed(50);
+        policy.record(1000);
+        Assert.assertEquals(50, policy.getDelayMs());
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProgressTest {
+
+    private static final TransferStatistics STATISTICS = new TransferStatistics(10, 5, 1000, 1, 1, 2, 0, 0, 0, 0);
+
+    @Test
+    public void testEstimatesFromAverageRate() {
+        Progress progress = new Progress(null, "file.bin", 250000, 1000000, 500, 600000, STATISTICS);
+        Assert.assertEquals(25, progress.getPercentage());
+        Assert.assertEquals(500000, progress.getAverageRate(), 0.001);
+        Assert.assertEquals(1500, progress.getEtaMs());
+        Assert.assertEquals(2, progress.getRetransmittedPackets());
+    }
+
+    @Test
+    public void testUnknownSize() {
+        Progress progress = new Progress(null, "file.bin", 250000, -1, 500, 600000, STATISTICS);
+        Assert.assertEquals(-1, progress.getPercentage());
+        Assert.assertEquals(-1, progress.getEtaMs());
+    }
+}
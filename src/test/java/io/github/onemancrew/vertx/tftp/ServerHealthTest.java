@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.net.SocketAddress;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ServerHealthTest {
+
+    @Test
+    public void testQuarantineAfterConsecutiveFailures() {
+        Vertx vertx = Vertx.vertx();
+        ServerHealth server = new ServerHealth(SocketAddress.inetSocketAddress(69, "127.0.0.1"),
+                new TftpClient(vertx, "127.0.0.1", 69));
+        long now = 1000;
+        for (int i = 0; i < ServerHealth.FAILURES_BEFORE_QUARANTINE - 1; i++) {
+            server.started();
+            server.completed(true, now);
+        }
+        Assert.assertTrue(server.isHealthy(now));
+        server.started();
+        server.completed(true, now);
+        Assert.assertFalse(server.isHealthy(now));
+        Assert.assertTrue(server.isHealthy(now + ServerHealth.QUARANTINE_MS));
+        vertx.close();
+    }
+
+    @Test
+    public void testCostGrowsWithLoadAndErrors() {
+        Vertx vertx = Vertx.vertx();
+        ServerHealth server = new ServerHealth(SocketAddress.inetSocketAddress(69, "127.0.0.1"),
+                new TftpClient(vertx, "127.0.0.1", 69));
+        double idle = server.cost();
+        server.started();
+        Assert.assertTrue(server.cost() > idle);
+        server.completed(false, 0);
+        Assert.assertEquals(idle, server.cost(), 0.0001);
+        server.started();
+        server.completed(true, 0);
+        Assert.assertTrue(server.cost() > idle);
+        vertx.close();
+    }
+}
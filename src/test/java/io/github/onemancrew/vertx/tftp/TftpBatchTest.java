@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(VertxUnitRunner.class)
+public class TftpBatchTest {
+
+    Vertx vertx;
+    Path dir;
+
+    @Before
+    public void before() throws IOException {
+        vertx = Vertx.vertx();
+        dir = Files.createTempDirectory("tftp-batch");
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.fileSystem().deleteRecursiveBlocking(dir.toString(), true);
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testConcurrencyLimits(TestContext context) {
+        AtomicInteger pending = new AtomicInteger();
+        AtomicInteger maxPending = new AtomicInteger();
+        SlowStore storeA = new SlowStore(pending, maxPending);
+        SlowStore storeB = new SlowStore(pending, maxPending);
+        TftpServer serverA = new TftpServer(vertx, storeA, new TftpServerOptions());
+        TftpServer serverB = new TftpServer(vertx, storeB, new TftpServerOptions());
+        Async async = context.async();
+        serverA.listen(0, "127.0.0.1", context.asyncAssertSuccess(a -> serverB.listen(0, "127.0.0.1", context.asyncAssertSuccess(b -> {
+            List<TransferJob> jobs = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                jobs.add(TransferJob.download("127.0.0.1", a.actualPort(), "file", dir.resolve("a" + i).toString()));
+                jobs.add(TransferJob.download("127.0.0.1", b.actualPort(), "file", dir.resolve("b" + i).toString()));
+            }
+            jobs.add(TransferJob.download("127.0.0.1", b.actualPort(), "missing", dir.resolve("missing").toString()));
+            TftpBatch batch = new TftpBatch(vertx, new TftpClientOptions(),
+                    new BatchOptions().setMaxConcurrency(3).setMaxConcurrencyPerServer(2));
+            batch.run(jobs, context.asyncAssertSuccess(result -> {
+                context.assertEquals(12, result.getSucceeded());
+                context.assertEquals(1, result.getFailed());
+                context.assertEquals("missing", result.getFailures().get(0).getJob().getRemoteName());
+                // the servers are slow enough that the limits are reached, never exceeded
+                context.assertEquals(3, maxPending.get());
+                context.assertEquals(2, storeA.m_maxPending);
+                context.assertEquals(2, storeB.m_maxPending);
+                context.assertEquals(6, storeA.m_reads);
+                batch.close(context.asyncAssertSuccess(v -> async.complete()));
+            }));
+        }))));
+    }
+
+    /**
+     * Answers each read after a delay and records how many reads were pending at once, on this server and on all
+     * servers sharing the same counters. A one block transfer ends right after its read is answered.
+     */
+    class SlowStore extends MemoryFileStore {
+        final AtomicInteger m_totalPending;
+        final AtomicInteger m_totalMaxPending;
+        int m_pending;
+        volatile int m_maxPending;
+        volatile int m_reads;
+
+        SlowStore(AtomicInteger totalPending, AtomicInteger totalMaxPending) {
+            m_totalPending = totalPending;
+            m_totalMaxPending = totalMaxPending;
+            putFile("file", Buffer.buffer("content"));
+        }
+
+        @Override
+        public synchronized void read(String name, Handler<AsyncResult<Buffer>> handler) {
+            m_reads++;
+            m_maxPending = Math.max(m_maxPending, ++m_pending);
+            m_totalMaxPending.accumulateAndGet(m_totalPending.incrementAndGet(), Math::max);
+            vertx.setTimer(100, id -> {
+                synchronized (this) {
+                    m_pending--;
+                }
+                m_totalPending.decrementAndGet();
+                super.read(name, handler);
+            });
+        }
+    }
+}
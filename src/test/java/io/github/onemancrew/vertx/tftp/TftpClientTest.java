@@ -24,6 +24,13 @@
 
 package io.github.onemancrew.vertx.tftp;
 
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TftpError;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TimeoutException;
+import io.github.onemancrew.vertx.tftp.server.DirectoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.Context;
 import io.vertx.core.Vertx;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
@@ -38,7 +45,11 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(VertxUnitRunner.class)
 public class TftpClientTest {
@@ -47,35 +58,46 @@ public class TftpClientTest {
     public static final String TEST_FILE = "test.txt";
 
     Vertx vertx;
+    Path serverDir;
+    Path clientDir;
+    TftpServer server;
 
     @Before
-    public void before(TestContext context) {
+    public void before(TestContext context) throws IOException {
         vertx = Vertx.vertx();
+        serverDir = Files.createTempDirectory("tftp-server");
+        clientDir = Files.createTempDirectory("tftp-client");
+        server = new TftpServer(vertx, new DirectoryFileStore(vertx, serverDir.toString()),
+                new TftpServerOptions().setRetransmitTimeout(200));
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess());
     }
 
     @After
     public void after(TestContext context) {
-        vertx.close(context.asyncAssertSuccess());
+        server.close(context.asyncAssertSuccess(v -> {
+            delDir(serverDir);
+            delDir(clientDir);
+            vertx.close(context.asyncAssertSuccess());
+        }));
     }
 
     @Test
     public void testTFTPClient(TestContext context) throws Throwable {
-        File currentDirFile = new File("");
-        String currDir = currentDirFile.getAbsolutePath() + File.separator;
+        String currDir = clientDir.toString() + File.separator;
         String testStr = "1...2...3..4...test";
-        writeToFile(testStr);
+        writeToFile(currDir + TEST_FILE, testStr);
         Async async = context.async();
-        TftpClient client = new TftpClient(vertx, "127.0.0.1", 69);
+        TftpClient client = new TftpClient(vertx, "127.0.0.1", server.actualPort());
         client.upload(currDir + TEST_FILE, (progress) -> {
         }, (result) -> {
             if (result.failed()) {
-                context.asyncAssertFailure();
-                async.complete();
+                context.fail(result.cause());
             } else {
+                context.assertEquals(testStr, readFromFile(serverDir.resolve(TEST_FILE).toString()));
                 delFile(currDir + TEST_FILE);
                 client.download(TEST_FILE, currDir, (result2) -> {
                     if (result2.failed()) {
-                        context.asyncAssertFailure();
+                        context.fail(result2.cause());
                     } else {
                         String tmp = readFromFile(currDir + TEST_FILE);
                         context.assertEquals(testStr,tmp);
@@ -90,6 +112,83 @@ public class TftpClientTest {
 
     }
 
+    @Test
+    public void testWindowedTransfer(TestContext context) throws IOException {
+        byte[] content = new byte[300000];
+        new Random(1).nextBytes(content);
+        Path source = clientDir.resolve("source.bin");
+        Files.write(source, content);
+        TftpClient client = new TftpClient(vertx, "127.0.0.1", server.actualPort(),
+                new TftpClientOptions().setBlockSize(1468).setWindowSize(8));
+        Async async = context.async();
+        client.upload(source.toString(), "window.bin", (progress) -> {
+        }, context.asyncAssertSuccess(v -> {
+            client.transferSize("window.bin", context.asyncAssertSuccess(size -> {
+                context.assertEquals((long) content.length, size);
+                String target = clientDir.resolve("target.bin").toString();
+                client.downloadFile("window.bin", target, context.asyncAssertSuccess(w -> {
+                    try {
+                        context.assertTrue(Arrays.equals(content, Files.readAllBytes(Paths.get(target))));
+                    } catch (IOException e) {
+                        context.fail(e);
+                    }
+                    async.complete();
+                }));
+            }));
+        }));
+    }
+
+    @Test
+    public void testShardedProgressOnCaller(TestContext context) throws IOException {
+        byte[] content = new byte[100000];
+        new Random(2).nextBytes(content);
+        Path source = clientDir.resolve("source.bin");
+        Files.write(source, content);
+        TftpClient client = new TftpClient(vertx, "127.0.0.1", server.actualPort(),
+                new TftpClientOptions().setSharded(true).setShardCount(2));
+        Async async = context.async();
+        vertx.runOnContext(v -> {
+            Context caller = vertx.getOrCreateContext();
+            AtomicInteger reports = new AtomicInteger();
+            client.upload(source.toString(), "sharded.bin", progress -> {
+                context.assertTrue(Vertx.currentContext() == caller);
+                reports.incrementAndGet();
+            }, context.asyncAssertSuccess(w -> {
+                context.assertTrue(Vertx.currentContext() == caller);
+                context.assertTrue(reports.get() > 0);
+                client.close(context.asyncAssertSuccess(c -> async.complete()));
+            }));
+        });
+    }
+
+    @Test
+    public void testDownloadMissingFile(TestContext context) {
+        TftpClient client = new TftpClient(vertx, "127.0.0.1", server.actualPort());
+        client.downloadFile("missing.bin", clientDir.resolve("missing.bin").toString(), context.asyncAssertFailure(cause -> {
+            context.assertTrue(cause instanceof TftpError);
+            context.assertEquals(ErrorCode.FILE_NOT_FOUND, ((TftpError) cause).getErrorCode());
+            context.assertFalse(Files.exists(clientDir.resolve("missing.bin")));
+        }));
+    }
+
+    @Test
+    public void testSilentServerTimesOutAfterIdleTimeout(TestContext context) {
+        vertx.createDatagramSocket().listen(0, "127.0.0.1", context.asyncAssertSuccess(silent -> {
+            // a short retransmission timeout does not make the transfer give up earlier
+            TftpClientOptions options = new TftpClientOptions().setInitialRetransmitTimeout(20)
+                    .setMinRetransmitTimeout(20).setMaxRetransmitTimeout(40).setIdleTimeout(600);
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", silent.localAddress().port(), options);
+            long start = System.nanoTime();
+            client.downloadFile("file.bin", clientDir.resolve("file.bin").toString(), context.asyncAssertFailure(cause -> {
+                long elapsed = (System.nanoTime() - start) / 1_000_000;
+                context.assertTrue(cause instanceof TimeoutException);
+                context.assertTrue(elapsed >= 600, "gave up after " + elapsed + "ms");
+                context.assertTrue(elapsed < 1500, "gave up after " + elapsed + "ms");
+                silent.close();
+            }));
+        }));
+    }
+
     private void delFile(String file) {
         try {
             Files.deleteIfExists(Paths.get(file));
@@ -98,8 +197,15 @@ public class TftpClientTest {
         }
     }
 
-    private void writeToFile(String text) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new FileWriter(TEST_FILE));
+    private void delDir(Path dir) {
+        File[] files = dir.toFile().listFiles();
+        if (files != null)
+            Arrays.stream(files).forEach(File::delete);
+        dir.toFile().delete();
+    }
+
+    private void writeToFile(String file, String text) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
         writer.write(text);
         writer.close();
     }
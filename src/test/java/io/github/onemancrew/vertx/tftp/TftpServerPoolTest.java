@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+@RunWith(VertxUnitRunner.class)
+public class TftpServerPoolTest {
+
+    Vertx vertx;
+    Path dir;
+
+    @Before
+    public void before() throws IOException {
+        vertx = Vertx.vertx();
+        dir = Files.createTempDirectory("tftp-pool");
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.fileSystem().deleteRecursiveBlocking(dir.toString(), true);
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testHedgedDownloadsAreNotMeasured(TestContext context) {
+        TftpServer serverA = new TftpServer(vertx, new SlowStore(), new TftpServerOptions());
+        TftpServer serverB = new TftpServer(vertx, new SlowStore(), new TftpServerOptions());
+        HedgingPolicy hedging = HedgingPolicy.percentile(50, 30);
+        int downloads = 25;
+        Async async = context.async(downloads);
+        serverA.listen(0, "127.0.0.1", context.asyncAssertSuccess(a -> serverB.listen(0, "127.0.0.1", context.asyncAssertSuccess(b -> {
+            TftpServerPool pool = new TftpServerPool(vertx, Arrays.asList(
+                    SocketAddress.inetSocketAddress(a.actualPort(), "127.0.0.1"),
+                    SocketAddress.inetSocketAddress(b.actualPort(), "127.0.0.1")),
+                    new TftpClientOptions().setAtomicDownload(true)).setHedgingPolicy(hedging);
+            for (int i = 0; i < downloads; i++) {
+                pool.downloadFile("file", dir.resolve("file" + i).toString(), context.asyncAssertSuccess(v -> {
+                    // every download was hedged, the initial delay is kept instead of the first block times
+                    context.assertEquals(30L, hedging.getDelayMs());
+                    async.countDown();
+                }));
+            }
+        }))));
+    }
+
+    /**
+     * Answers each read request after a delay longer than the hedging delay.
+     */
+    class SlowStore extends MemoryFileStore {
+
+        SlowStore() {
+            putFile("file", Buffer.buffer("content"));
+        }
+
+        @Override
+        public void read(String name, Handler<AsyncResult<Buffer>> handler) {
+            vertx.setTimer(150, id -> super.read(name, handler));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class TransferShardsTest {
+
+    @Test
+    public void testTransfersAreSpreadAndCompleteOnCaller() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        TransferShards shards = new TransferShards(vertx, 3);
+        CompletableFuture<int[]> active = new CompletableFuture<>();
+        CompletableFuture<Boolean> onCaller = new CompletableFuture<>();
+        vertx.runOnContext(v -> {
+            Context caller = vertx.getOrCreateContext();
+            List<Handler<AsyncResult<Void>>> running = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                shards.run(done -> {
+                    synchronized (running) {
+                        running.add(done);
+                        if (running.size() < 6)
+                            return;
+                    }
+                    active.complete(shards.getActiveTransfers());
+                    running.forEach(handler -> handler.handle(Future.succeededFuture()));
+                }, result -> {
+                    if (vertx.getOrCreateContext() != caller)
+                        onCaller.complete(false);
+                    else if (shards.getActiveTransfers()[0] + shards.getActiveTransfers()[1] + shards.getActiveTransfers()[2] == 0)
+                        onCaller.complete(true);
+                });
+            }
+        });
+        Assert.assertArrayEquals(new int[]{2, 2, 2}, active.get(10, TimeUnit.SECONDS));
+        Assert.assertTrue(onCaller.get(10, TimeUnit.SECONDS));
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        shards.close(result -> closed.complete(null));
+        closed.get(10, TimeUnit.SECONDS);
+        vertx.close();
+    }
+
+    @Test
+    public void testRunAfterCloseFails() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        TransferShards shards = new TransferShards(vertx, 2);
+        CompletableFuture<Void> ran = new CompletableFuture<>();
+        shards.run(done -> done.handle(Future.succeededFuture()), result -> ran.complete(null));
+        ran.get(10, TimeUnit.SECONDS);
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        shards.close(result -> closed.complete(null));
+        closed.get(10, TimeUnit.SECONDS);
+        // the verticles are not deployed again
+        CompletableFuture<AsyncResult<Void>> refused = new CompletableFuture<>();
+        shards.run(done -> done.handle(Future.succeededFuture()), refused::complete);
+        Assert.assertTrue(refused.get(10, TimeUnit.SECONDS).failed());
+        Assert.assertTrue(vertx.deploymentIDs().isEmpty());
+        vertx.close();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.congestion;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AimdCongestionControlTest {
+
+    @Test
+    public void testIncreaseAndDecrease() {
+        CongestionWindow window = new AimdCongestionControl().newWindow(16);
+        Assert.assertEquals(2, window.getWindow(), 0);
+        // slow start doubles the window each round trip, up to the negotiated window
+        window.onAcked(2, -1);
+        window.onAcked(4, -1);
+        window.onAcked(8, -1);
+        Assert.assertEquals(16, window.getWindow(), 0);
+        window.onLoss();
+        Assert.assertEquals(8, window.getWindow(), 0);
+        // a second loss in the same round trip is the same congestion event
+        window.onLoss();
+        Assert.assertEquals(8, window.getWindow(), 0);
+        // congestion avoidance adds one block per window
+        window.onAcked(8, -1);
+        Assert.assertEquals(9, window.getWindow(), 0);
+        window.onTimeout();
+        Assert.assertEquals(1, window.getWindow(), 0);
+    }
+
+    @Test
+    public void testDelayBackoff() {
+        CongestionWindow window = new AimdCongestionControl().setInitialWindow(8).setDelayThreshold(0.5).newWindow(8);
+        window.onAcked(8, 1_000_000);
+        Assert.assertEquals(8, window.getWindow(), 0);
+        // the smoothed round trip time climbs above 1.5 ms
+        for (int i = 0; i < 8 && window.getWindow() == 8; i++)
+            window.onAcked(8, 10_000_000);
+        Assert.assertEquals(4, window.getWindow(), 0);
+    }
+}
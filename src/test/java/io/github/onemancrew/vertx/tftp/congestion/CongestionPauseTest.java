@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.congestion;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.protocol.transport.ImpairmentProfile;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+@RunWith(VertxUnitRunner.class)
+public class CongestionPauseTest {
+
+    Vertx vertx;
+    Path source;
+    MemoryFileStore store;
+    TftpServer server;
+
+    @Before
+    public void before(TestContext context) throws IOException {
+        vertx = Vertx.vertx();
+        byte[] content = new byte[80 * 512];
+        new Random(4).nextBytes(content);
+        source = Files.createTempFile("tftp-", ".bin");
+        Files.write(source, content);
+        store = new MemoryFileStore();
+        server = new TftpServer(vertx, store);
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess());
+    }
+
+    @After
+    public void after(TestContext context) {
+        source.toFile().delete();
+        server.close(context.asyncAssertSuccess(v -> vertx.close(context.asyncAssertSuccess())));
+    }
+
+    @Test
+    public void testRateFollowsCongestionWindow(TestContext context) {
+        Async async = context.async();
+        // 40 ms round trips, a congestion window of 4 blocks pauses one round trip between the windows of 8 blocks
+        // and a congestion window of 2 three round trips
+        upload(8, warmUp -> upload(8, full -> upload(4, half -> upload(2, quarter -> {
+            context.assertTrue(half > full, full + " " + half + "ms");
+            context.assertTrue(quarter - full > 2 * (half - full), full + " " + half + " " + quarter + "ms");
+            async.complete();
+        }))));
+    }
+
+    /**
+     * Upload the file in windows of 8 blocks with a fixed congestion window.
+     */
+    private void upload(int window, Handler<Long> millis) {
+        TftpClientOptions options = new TftpClientOptions().setBlockSize(512).setWindowSize(8)
+                .setImpairment(new ImpairmentProfile().setDelay(20)).setCongestionControl(max -> new FixedWindow(window));
+        TftpClient client = new TftpClient(vertx, "127.0.0.1", server.actualPort(), options);
+        long start = System.nanoTime();
+        client.upload(source.toString(), "paused.bin", null, result -> {
+            if (result.failed())
+                throw new IllegalStateException(result.cause());
+            millis.handle((System.nanoTime() - start) / 1_000_000);
+        });
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.digest;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.protocol.exception.DigestMismatchException;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramSocket;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+@RunWith(VertxUnitRunner.class)
+public class TransferDigestTest {
+
+    Vertx vertx;
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testKnownValues() {
+        byte[] check = "123456789".getBytes(StandardCharsets.US_ASCII);
+        Crc32c crc = new Crc32c();
+        crc.update(check, 0, check.length);
+        Assert.assertEquals(0xe3069283L, crc.getValue());
+
+        // split over a heap and a direct buffer, as blocks would be
+        TransferDigest digest = TransferDigest.crc32c();
+        digest.update(Buffer.buffer("12345"));
+        digest.update(Buffer.buffer(Unpooled.directBuffer().writeBytes("6789".getBytes(StandardCharsets.US_ASCII))));
+        digest.complete();
+        Assert.assertEquals("e3069283", digest.getHex());
+        Assert.assertEquals(9, digest.getLength());
+
+        // an empty direct buffer first, as the last block of a file of whole blocks would be
+        TransferDigest empty = TransferDigest.crc32c();
+        empty.update(Buffer.buffer(Unpooled.directBuffer()));
+        empty.update(Buffer.buffer(Unpooled.directBuffer().writeBytes(check)));
+        empty.complete();
+        Assert.assertEquals("e3069283", empty.getHex());
+
+        TransferDigest sha = TransferDigest.sha256()
+                .setExpectedHex("BA7816BF8F01CFEA414140DE5DAE2223B00361A396177A9CB410FF61F20015AD");
+        sha.update(Buffer.buffer("abc"));
+        Assert.assertFalse(sha.matches());
+        sha.complete();
+        Assert.assertTrue(sha.matches());
+    }
+
+    @Test
+    public void testVerifiedTransfers(TestContext context) throws Exception {
+        byte[] content = new byte[512 * 40 + 100];
+        new Random(3).nextBytes(content);
+        Path source = Files.createTempFile("tftp-", ".bin");
+        Path target = Files.createTempFile("tftp-", ".bin");
+        Files.write(source, content);
+        target.toFile().delete();
+        TransferDigest expected = TransferDigest.sha256();
+        expected.update(Buffer.buffer(content));
+        expected.complete();
+        String hex = expected.getHex();
+        String wrong = (hex.charAt(0) == '0' ? "1" : "0") + hex.substring(1);
+        MemoryFileStore store = new MemoryFileStore();
+        TftpServer server = new TftpServer(vertx, store, new TftpServerOptions());
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClientOptions options = new TftpClientOptions().setBlockSize(512).setWindowSize(4);
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(), options);
+            client.upload(source.toString(), "bad.bin", TransferDigest.crc32c().setExpectedHex("00000000"), null,
+                    context.asyncAssertFailure(cause -> {
+                context.assertTrue(cause instanceof DigestMismatchException);
+                context.assertNull(store.getFile("bad.bin"));
+                client.upload(source.toString(), "good.bin", TransferDigest.sha256().setExpectedHex(hex), null,
+                        context.asyncAssertSuccess(up -> {
+                    context.assertEquals(hex, up.getHex());
+                    client.downloadFile("good.bin", target.toString(), TransferDigest.sha256().setExpectedHex(wrong), null,
+                            context.asyncAssertFailure(mismatch -> {
+                        context.assertTrue(mismatch instanceof DigestMismatchException);
+                        context.assertFalse(target.toFile().exists());
+                        client.downloadFile("good.bin", target.toString(), TransferDigest.sha256().setExpectedHex(hex), null,
+                                context.asyncAssertSuccess(down -> {
+                            context.assertEquals(hex, down.getHex());
+                            context.assertEquals((long) content.length, down.getLength());
+                            context.assertEquals(Buffer.buffer(content), vertx.fileSystem().readFileBlocking(target.toString()));
+                            source.toFile().delete();
+                            target.toFile().delete();
+                        }));
+                    }));
+                }));
+            }));
+        }));
+    }
+
+    @Test
+    public void testMismatchedUploadSendsError(TestContext context) throws Exception {
+        byte[] content = new byte[512 * 3 + 100];
+        new Random(5).nextBytes(content);
+        Path source = Files.createTempFile("tftp-", ".bin");
+        Files.write(source, content);
+        Async error = context.async();
+        DatagramSocket server = vertx.createDatagramSocket();
+        // acknowledges every request and block, as a server with a window of one block would
+        server.handler(packet -> {
+            Buffer data = packet.data();
+            short opcode = data.getShort(0);
+            if (opcode == 2)
+                server.send(Buffer.buffer().appendShort((short) 4).appendShort((short) 0), packet.sender().port(), "127.0.0.1", null);
+            else if (opcode == 3)
+                server.send(Buffer.buffer().appendShort((short) 4).appendShort(data.getShort(2)), packet.sender().port(), "127.0.0.1", null);
+            else if (opcode == 5 && !error.isCompleted())
+                error.complete();
+        });
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.localAddress().port(), new TftpClientOptions().setBlockSize(512));
+            client.upload(source.toString(), "bad.bin", TransferDigest.crc32c().setExpectedHex("00000000"), null,
+                    context.asyncAssertFailure(cause -> {
+                context.assertTrue(cause instanceof DigestMismatchException);
+                source.toFile().delete();
+            }));
+        }));
+    }
+}
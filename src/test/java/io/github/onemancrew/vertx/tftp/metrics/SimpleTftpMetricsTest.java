@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.github.onemancrew.vertx.tftp.metrics;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@RunWith(VertxUnitRunner.class)
+public class SimpleTftpMetricsTest {
+
+    Vertx vertx;
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testTransfersAreRecorded(TestContext context) throws Exception {
+        // 11 DATA packets of 4 bytes of header each way
+        int size = 512 * 10 + 100;
+        MemoryFileStore store = new MemoryFileStore();
+        store.putFile("file.bin", Buffer.buffer(new byte[size]));
+        Path target = Files.createTempFile("tftp-", ".bin");
+        SimpleTftpMetrics metrics = new SimpleTftpMetrics();
+        TftpServer server = new TftpServer(vertx, store, new TftpServerOptions());
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(),
+                    new TftpClientOptions().setBlockSize(512).setMetrics(metrics));
+            client.downloadFile("file.bin", target.toString(), context.asyncAssertSuccess(down -> {
+                client.downloadFile("missing.bin", target.toString(), context.asyncAssertFailure(missing -> {
+                    client.upload(target.toString(), "copy.bin", null, context.asyncAssertSuccess(up -> {
+                        context.assertEquals(0L, metrics.getActiveTransfers(TransferDirection.DOWNLOAD));
+                        context.assertEquals(0L, metrics.getActiveTransfers(TransferDirection.UPLOAD));
+                        context.assertEquals(1L, metrics.getSucceededTransfers(TransferDirection.DOWNLOAD));
+                        context.assertEquals(1L, metrics.getFailedTransfers(TransferDirection.DOWNLOAD));
+                        context.assertEquals(1L, metrics.getSucceededTransfers(TransferDirection.UPLOAD));
+                        context.assertEquals(1L, metrics.getErrors(ErrorCode.FILE_NOT_FOUND));
+                        long data = size + 11 * 4;
+                        long received = metrics.getBytesReceived(TransferDirection.DOWNLOAD);
+                        long sent = metrics.getBytesSent(TransferDirection.UPLOAD);
+                        context.assertTrue(received >= data && received < data + 200, "received " + received);
+                        context.assertTrue(sent >= data && sent < data + 200, "sent " + sent);
+                        context.assertEquals(2L, metrics.getTransferDurations(TransferDirection.DOWNLOAD).getCount());
+                        context.assertEquals(1L, metrics.getTransferDurations(TransferDirection.UPLOAD).getCount());
+                        context.assertTrue(metrics.getTransferDurations(TransferDirection.UPLOAD).getMaxNanos() > 0);
+                        context.assertTrue(metrics.getRtt().getCount() > 0);
+                        target.toFile().delete();
+                    }));
+                }));
+            }));
+        }));
+    }
+}
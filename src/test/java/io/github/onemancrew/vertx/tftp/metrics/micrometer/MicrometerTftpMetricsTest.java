@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.github.onemancrew.vertx.tftp.metrics.micrometer;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(VertxUnitRunner.class)
+public class MicrometerTftpMetricsTest {
+
+    Vertx vertx;
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testTransfersAreRecorded(TestContext context) throws Exception {
+        int size = 512 * 10 + 100;
+        MemoryFileStore store = new MemoryFileStore();
+        store.putFile("file.bin", Buffer.buffer(new byte[size]));
+        Path target = Files.createTempFile("tftp-", ".bin");
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerTftpMetrics metrics = new MicrometerTftpMetrics(registry, Tags.of("client", "test"));
+        TftpServer server = new TftpServer(vertx, store, new TftpServerOptions());
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(),
+                    new TftpClientOptions().setBlockSize(512).setMetrics(metrics));
+            client.downloadFile("file.bin", target.toString(), context.asyncAssertSuccess(down -> {
+                client.downloadFile("missing.bin", target.toString(), context.asyncAssertFailure(missing -> {
+                    Timer succeeded = registry.get("tftp.transfers.duration")
+                            .tags("client", "test", "direction", "download", "outcome", "success").timer();
+                    context.assertEquals(1L, succeeded.count());
+                    context.assertTrue(succeeded.totalTime(TimeUnit.NANOSECONDS) > 0);
+                    context.assertEquals(1L, registry.get("tftp.transfers.duration")
+                            .tags("direction", "download", "outcome", "failure").timer().count());
+                    context.assertEquals(0.0, registry.get("tftp.transfers.active").tags("direction", "download").gauge().value());
+                    context.assertEquals(1.0, registry.get("tftp.errors").tags("code", "file_not_found").counter().count());
+                    // 11 DATA packets of 4 bytes of header
+                    double received = registry.get("tftp.bytes.received").tags("direction", "download").counter().count();
+                    context.assertTrue(received >= size + 11 * 4 && received < size + 11 * 4 + 200, "received " + received);
+                    context.assertTrue(registry.get("tftp.bytes.sent").tags("direction", "download").counter().count() > 0);
+                    target.toFile().delete();
+                }));
+            }));
+        }));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.pacing;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(VertxUnitRunner.class)
+public class BandwidthLimiterTest {
+
+    Vertx vertx;
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testBucketDebt(TestContext context) {
+        TokenBucket bucket = new TokenBucket(1_000_000).setBurst(1000);
+        context.assertEquals(0L, bucket.reserve(1000));
+        // 1000 bytes of debt at 1 MB/s is a millisecond
+        long wait = bucket.reserve(1000);
+        context.assertTrue(wait > 900_000 && wait <= 1_000_000, "wait " + wait);
+        context.assertEquals(0L, new TokenBucket(0).reserve(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testPacedUpload(TestContext context) throws Exception {
+        byte[] content = new byte[100 * 1024];
+        new Random(1).nextBytes(content);
+        Path source = Files.createTempFile("tftp-", ".bin");
+        Files.write(source, content);
+        MemoryFileStore store = new MemoryFileStore();
+        TftpServer server = new TftpServer(vertx, store);
+        // the transfer rate is the lowest of the three
+        BandwidthLimiter limiter = new BandwidthLimiter().setGlobalRate(10_000_000).setServerRate(1_000_000)
+                .setTransferRate(200_000);
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(),
+                    new TftpClientOptions().setWindowSize(8).setBandwidthLimiter(limiter));
+            long start = System.nanoTime();
+            client.upload(source.toString(), "paced.bin", null, context.asyncAssertSuccess(v -> {
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                context.assertEquals(Buffer.buffer(content), store.getFile("paced.bin"));
+                context.assertTrue(millis >= 400 && millis < 1500, "took " + millis + "ms");
+                source.toFile().delete();
+            }));
+        }));
+    }
+
+    @Test
+    public void testSlowWindowedUploadIsNotRetransmitted(TestContext context) throws Exception {
+        byte[] content = new byte[20 * 1024];
+        new Random(2).nextBytes(content);
+        Path source = Files.createTempFile("tftp-", ".bin");
+        Files.write(source, content);
+        MemoryFileStore store = new MemoryFileStore();
+        TftpServer server = new TftpServer(vertx, store);
+        // each block waits longer for its tokens than the retransmission timeout
+        BandwidthLimiter limiter = new BandwidthLimiter().setTransferRate(10_000);
+        AtomicLong retransmitted = new AtomicLong(-1);
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(),
+                    new TftpClientOptions().setBlockSize(1468).setWindowSize(4).setInitialRetransmitTimeout(100)
+                            .setMinRetransmitTimeout(50).setBandwidthLimiter(limiter));
+            client.upload(source.toString(), "slow.bin", progress -> retransmitted.set(progress.getRetransmittedPackets()),
+                    context.asyncAssertSuccess(v -> {
+                        context.assertEquals(Buffer.buffer(content), store.getFile("slow.bin"));
+                        context.assertEquals(0L, retransmitted.get());
+                        context.assertEquals(0, limiter.getServerCount());
+                        source.toFile().delete();
+                    }));
+        }));
+    }
+
+    @Test
+    public void testServerBucketIsDroppedWithItsLastTransfer(TestContext context) {
+        BandwidthLimiter limiter = new BandwidthLimiter().setServerRate(1000);
+        TransferPacer first = limiter.pacer("a", 69);
+        TransferPacer second = limiter.pacer("a", 69);
+        TransferPacer other = limiter.pacer("b", 69);
+        context.assertEquals(2, limiter.getServerCount());
+        first.release();
+        first.release();
+        context.assertEquals(2, limiter.getServerCount());
+        second.release();
+        context.assertEquals(1, limiter.getServerCount());
+        other.release();
+        context.assertEquals(0, limiter.getServerCount());
+    }
+}
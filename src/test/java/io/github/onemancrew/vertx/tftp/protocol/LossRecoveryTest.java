@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LossRecoveryTest {
+
+    @Test
+    public void testReAckOncePerRoundTrip() {
+        LossRecovery recovery = new LossRecovery();
+        recovery.ackSent(8);
+        // a window of 8 sent again gets a single ACK within a 100 ms round trip
+        int reAcks = 0;
+        for (int i = 0; i < 8; i++) {
+            if (recovery.duplicateBlock(8, 100))
+                reAcks++;
+        }
+        Assert.assertEquals(0, reAcks);
+        // the last ACK was for an older block, the server missed the newest one
+        recovery.ackSent(4);
+        Assert.assertTrue(recovery.duplicateBlock(8, 100));
+        Assert.assertEquals(9, recovery.getDuplicateBlocks());
+        Assert.assertEquals(1, recovery.getReAcks());
+        Assert.assertEquals(8, recovery.getSuppressed());
+    }
+
+    @Test
+    public void testEarlyDuplicateAckIsNotAGap() {
+        LossRecovery recovery = new LossRecovery();
+        long now = System.nanoTime();
+        Assert.assertFalse(recovery.duplicateAck(8, true, now, 100));
+        Assert.assertTrue(recovery.duplicateAck(8, true, now - 60_000_000, 100));
+        Assert.assertFalse(recovery.duplicateAck(8, false, now - 60_000_000, 100));
+        // the window was sent again for block 8, the same gap again is only believed two round trips later
+        Assert.assertFalse(recovery.duplicateAck(8, true, now - 60_000_000, 100));
+        Assert.assertTrue(recovery.duplicateAck(8, true, now - 250_000_000, 100));
+        Assert.assertEquals(5, recovery.getDuplicateAcks());
+        Assert.assertEquals(2, recovery.getSuppressed());
+    }
+
+    @Test
+    public void testEarlyPartialAckIsNotAGap() {
+        LossRecovery recovery = new LossRecovery();
+        long now = System.nanoTime();
+        // block 5 went out just now, an ACK of block 4 only closes the server's window
+        Assert.assertFalse(recovery.partialAck(4, now, 100));
+        Assert.assertTrue(recovery.partialAck(4, now - 60_000_000, 100));
+        // after going back for block 4, a duplicate ACK of it waits two round trips
+        Assert.assertFalse(recovery.duplicateAck(4, true, now - 60_000_000, 100));
+        Assert.assertEquals(1, recovery.getDuplicateAcks());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TftpError;
+import io.github.onemancrew.vertx.tftp.protocol.transport.ImpairmentProfile;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.AbstractByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@RunWith(VertxUnitRunner.class)
+public class PacketBufferTest {
+
+    Vertx vertx;
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testEveryPacketIsReleased(TestContext context) throws Exception {
+        byte[] content = new byte[512 * 60 + 3];
+        new Random(11).nextBytes(content);
+        Path source = Files.createTempFile("tftp-", ".bin");
+        Path target = Files.createTempFile("tftp-", ".bin");
+        Files.write(source, content);
+        MemoryFileStore store = new MemoryFileStore();
+        TftpServer server = new TftpServer(vertx, store, new TftpServerOptions().setRetransmitTimeout(100));
+        TrackingAllocator allocator = new TrackingAllocator();
+        // losses make the transfers retransmit single packets and whole windows
+        ImpairmentProfile profile = new ImpairmentProfile().setLossRate(0.05).setDuplicateRate(0.05).setSeed(3);
+        Async async = context.async();
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClientOptions options = new TftpClientOptions().setBlockSize(512).setWindowSize(4)
+                    .setInitialRetransmitTimeout(100).setImpairment(profile).setBufferAllocator(allocator);
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(), options);
+            client.upload(source.toString(), "file.bin", null, context.asyncAssertSuccess(v -> {
+                context.assertEquals(Buffer.buffer(content), store.getFile("file.bin"));
+                client.downloadFile("file.bin", target.toString(), context.asyncAssertSuccess(w -> {
+                    client.downloadFile("missing.bin", target.toString(), context.asyncAssertFailure(cause -> {
+                        context.assertTrue(cause instanceof TftpError);
+                        // the sends of the last packets complete after the result
+                        vertx.setTimer(200, id -> {
+                            context.assertTrue(allocator.packets.size() > content.length / 512);
+                            for (ByteBuf packet : allocator.packets) {
+                                context.assertTrue(packet.isDirect());
+                                context.assertEquals(0, packet.refCnt());
+                            }
+                            source.toFile().delete();
+                            target.toFile().delete();
+                            async.complete();
+                        });
+                    }));
+                }));
+            }));
+        }));
+    }
+
+    /**
+     * Unpooled buffers are not recycled, their reference count tells whether the transfer released them.
+     */
+    static class TrackingAllocator extends AbstractByteBufAllocator {
+        final List<ByteBuf> packets = new CopyOnWriteArrayList<>();
+
+        TrackingAllocator() {
+            super(true);
+        }
+
+        @Override
+        protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+            return Unpooled.buffer(initialCapacity, maxCapacity);
+        }
+
+        @Override
+        protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+            ByteBuf packet = Unpooled.directBuffer(initialCapacity, maxCapacity);
+            packets.add(packet);
+            return packet;
+        }
+
+        @Override
+        public boolean isDirectBufferPooled() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RttEstimatorTest {
+
+    @Test
+    public void testSamplesDriveTimeout() {
+        RttEstimator rtt = new RttEstimator(1000, 10, 5000);
+        Assert.assertEquals(1000, rtt.getRto());
+        rtt.sample(100);
+        // RFC 6298: SRTT = R, RTTVAR = R/2, RTO = SRTT + 4 * RTTVAR
+        Assert.assertEquals(100, rtt.getSmoothedRtt(), 0.001);
+        Assert.assertEquals(50, rtt.getRttVariance(), 0.001);
+        Assert.assertEquals(300, rtt.getRto());
+        rtt.sample(100);
+        Assert.assertEquals(37.5, rtt.getRttVariance(), 0.001);
+        Assert.assertEquals(250, rtt.getRto());
+    }
+
+    @Test
+    public void testBackoffIsBounded() {
+        RttEstimator rtt = new RttEstimator(1000, 10, 3000);
+        rtt.backoff();
+        Assert.assertEquals(2000, rtt.getRto());
+        rtt.backoff();
+        Assert.assertEquals(3000, rtt.getRto());
+        rtt.sample(0.1);
+        Assert.assertEquals(10, rtt.getRto());
+    }
+}
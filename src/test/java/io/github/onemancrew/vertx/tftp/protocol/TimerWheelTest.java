@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(VertxUnitRunner.class)
+public class TimerWheelTest {
+
+    Vertx vertx;
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testDeadlines(TestContext context) {
+        Async async = context.async();
+        // the wheel and its periodic timer run on one context, the test moves the clock
+        vertx.getOrCreateContext().runOnContext(v -> {
+            AtomicLong nanos = new AtomicLong(1_000_000_000);
+            TimerWheel wheel = new TimerWheel(vertx, nanos::get);
+            List<String> fired = new ArrayList<>();
+            TimerWheel.Timeout a = wheel.newTimeout(x -> fired.add("a"));
+            TimerWheel.Timeout b = wheel.newTimeout(x -> fired.add("b"));
+            TimerWheel.Timeout cancelled = wheel.newTimeout(x -> fired.add("cancelled"));
+            TimerWheel.Timeout moved = wheel.newTimeout(x -> fired.add("moved"));
+            // more ticks than the wheel has slots, its slot is visited before the deadline
+            TimerWheel.Timeout far = wheel.newTimeout(x -> fired.add("far"));
+            wheel.schedule(a, 25);
+            wheel.schedule(b, 100);
+            wheel.schedule(cancelled, 50);
+            wheel.schedule(moved, 30);
+            wheel.schedule(far, 6000);
+            wheel.cancel(cancelled);
+            wheel.schedule(moved, 200);
+            context.assertEquals(4, wheel.getPending());
+
+            advance(wheel, nanos, 30);
+            context.assertEquals("[a]", fired.toString());
+            context.assertFalse(a.isPending());
+            advance(wheel, nanos, 60);
+            context.assertEquals("[a]", fired.toString());
+            advance(wheel, nanos, 110);
+            context.assertEquals("[a, b]", fired.toString());
+            advance(wheel, nanos, 210);
+            context.assertEquals("[a, b, moved]", fired.toString());
+            advance(wheel, nanos, 5130);
+            advance(wheel, nanos, 5990);
+            context.assertEquals("[a, b, moved]", fired.toString());
+            context.assertTrue(far.isPending());
+            advance(wheel, nanos, 6000);
+            context.assertEquals("[a, b, moved, far]", fired.toString());
+            context.assertEquals(0, wheel.getPending());
+
+            // a timeout scheduled again by its handler keeps running
+            TimerWheel.Timeout[] periodic = new TimerWheel.Timeout[1];
+            periodic[0] = wheel.newTimeout(x -> {
+                fired.add("periodic");
+                wheel.schedule(periodic[0], 10);
+            });
+            wheel.schedule(periodic[0], 10);
+            advance(wheel, nanos, 6010);
+            advance(wheel, nanos, 6020);
+            context.assertEquals(2, fired.size() - 4);
+            wheel.cancel(periodic[0]);
+            context.assertEquals(0, wheel.getPending());
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testPostpone(TestContext context) {
+        Async async = context.async();
+        vertx.getOrCreateContext().runOnContext(v -> {
+            AtomicLong nanos = new AtomicLong(1_000_000_000);
+            TimerWheel wheel = new TimerWheel(vertx, nanos::get);
+            List<String> fired = new ArrayList<>();
+            TimerWheel.Timeout timeout = wheel.newTimeout(x -> fired.add("timeout"));
+            wheel.schedule(timeout, 100);
+            advance(wheel, nanos, 50);
+            // the deadline moves from 100ms to 180ms
+            wheel.postpone(timeout, 80);
+            advance(wheel, nanos, 170);
+            context.assertEquals("[]", fired.toString());
+            advance(wheel, nanos, 180);
+            context.assertEquals("[timeout]", fired.toString());
+            // a timeout that is not pending is not scheduled
+            wheel.postpone(timeout, 10);
+            context.assertFalse(timeout.isPending());
+            context.assertEquals(0, wheel.getPending());
+            async.complete();
+        });
+    }
+
+    private static void advance(TimerWheel wheel, AtomicLong nanos, long millis) {
+        nanos.set(1_000_000_000 + millis * 1_000_000);
+        wheel.advance();
+    }
+
+    @Test
+    public void testOneWheelPerEventLoop(TestContext context) {
+        Async async = context.async();
+        Vertx loop = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(1));
+        // a transfer started outside of Vert.x gets a new context each time, on the same event loop here
+        Context first = loop.getOrCreateContext();
+        Context second = loop.getOrCreateContext();
+        context.assertNotEquals(first, second);
+        first.runOnContext(v -> {
+            TimerWheel wheel = TimerWheel.get(loop, first);
+            second.runOnContext(v2 -> {
+                context.assertTrue(wheel == TimerWheel.get(loop, second));
+                loop.close(context.asyncAssertSuccess(c -> async.complete()));
+            });
+        });
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.message;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.ReadRequestMessage;
+import io.github.onemancrew.vertx.tftp.protocol.message.request.WriteRequestMessage;
+import org.junit.Assert;
+import org.junit.Test;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class OptionAckMessageTest {
+
+    @Test
+    public void testRequestOptions() {
+        ReadRequestMessage msg = new ReadRequestMessage("file.bin");
+        msg.addOption("blksize", "1468");
+        ByteBuffer buf = ByteBuffer.allocate(msg.getBufferSize());
+        msg.toBuffer(buf);
+        Assert.assertFalse(buf.hasRemaining());
+        String expected = "\0\1file.bin\0octet\0blksize\0" + "1468\0";
+        Assert.assertArrayEquals(expected.getBytes(StandardCharsets.US_ASCII), buf.array());
+    }
+
+    @Test
+    public void testOptionAckRoundTrip() throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("BLKSIZE", "8192");
+        OptionAckMessage msg = new OptionAckMessage(options);
+        ByteBuffer buf = ByteBuffer.allocate(msg.getBufferSize());
+        msg.toBuffer(buf);
+        buf.flip();
+
+        OptionAckMessage decoded = new OptionAckMessage();
+        decoded.fromBuffer(buf);
+        Assert.assertEquals(Opcode.OACK, decoded.getOpcode());
+        Assert.assertEquals("8192", decoded.getOption("blksize"));
+        Assert.assertNull(decoded.getOption("windowsize"));
+    }
+
+    @Test
+    public void testRequestRoundTrip() throws Exception {
+        WriteRequestMessage msg = new WriteRequestMessage("dir/file.bin");
+        msg.addOption("BLKSIZE", "1468");
+        msg.addOption("tsize", "300000");
+        ByteBuffer buf = ByteBuffer.allocate(msg.getBufferSize());
+        msg.toBuffer(buf);
+        buf.flip();
+
+        WriteRequestMessage decoded = new WriteRequestMessage("");
+        decoded.fromBuffer(buf);
+        Assert.assertEquals(Opcode.WRQ, decoded.getOpcode());
+        Assert.assertEquals("dir/file.bin", decoded.getFilename());
+        Assert.assertEquals("octet", decoded.getMode());
+        Assert.assertEquals("1468", decoded.getOption("blksize"));
+        Assert.assertEquals("300000", decoded.getOption("tsize"));
+        Assert.assertNull(decoded.getOption("windowsize"));
+    }
+}
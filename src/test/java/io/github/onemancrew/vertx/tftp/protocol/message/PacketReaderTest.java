@@ -0,0 +1,53 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.message;
+
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PacketReaderTest {
+
+    @Test
+    public void testReadDataInPlace() {
+        Buffer packet = Buffer.buffer().appendShort((short) 3).appendUnsignedShort(65535).appendString("abc");
+        PacketReader reader = new PacketReader().wrap(packet);
+        Assert.assertEquals(Opcode.DATA, reader.getOpcode());
+        Assert.assertTrue(reader.hasBlockId());
+        Assert.assertEquals(65535, reader.getBlockId());
+        Assert.assertEquals(3, reader.getPayloadLength());
+        Assert.assertEquals("abc", reader.getPayload().toString());
+    }
+
+    @Test
+    public void testUnknownOrTruncatedPacket() {
+        PacketReader reader = new PacketReader();
+        Assert.assertNull(reader.wrap(Buffer.buffer().appendShort((short) 9)).getOpcode());
+        Assert.assertNull(reader.wrap(Buffer.buffer().appendByte((byte) 3)).getOpcode());
+        Assert.assertEquals(Opcode.ACK, reader.wrap(Buffer.buffer().appendShort((short) 4)).getOpcode());
+        Assert.assertFalse(reader.hasBlockId());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@RunWith(VertxUnitRunner.class)
+public class AsyncFileBlockSinkTest {
+
+    Vertx vertx;
+    Path dir;
+
+    @Before
+    public void before() throws IOException {
+        vertx = Vertx.vertx();
+        dir = Files.createTempDirectory("tftp-sink");
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.fileSystem().deleteRecursiveBlocking(dir.toString(), true);
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLateWriteFailureFailsTheDownload(TestContext context) {
+        Async async = context.async();
+        String path = dir.resolve("file.bin").toString();
+        String temp = dir.resolve(".file.bin.part").toString();
+        IOException failure = new IOException("disk full");
+        vertx.fileSystem().open(temp, new OpenOptions().setWrite(true).setCreate(true), context.asyncAssertSuccess(opened -> {
+            // the write of the second block fails after the download ended
+            AsyncFile file = (AsyncFile) Proxy.newProxyInstance(AsyncFile.class.getClassLoader(),
+                    new Class<?>[] { AsyncFile.class }, (proxy, method, args) -> {
+                if (method.getName().equals("write") && args.length == 3 && (long) args[1] > 0) {
+                    Handler<AsyncResult<Void>> handler = (Handler<AsyncResult<Void>>) args[2];
+                    vertx.setTimer(50, id -> handler.handle(Future.failedFuture(failure)));
+                    return proxy;
+                }
+                try {
+                    return method.invoke(opened, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+            AsyncFileBlockSink sink = new AsyncFileBlockSink(vertx, file, path, temp, false);
+            sink.write(1, 4, Buffer.buffer("1234"), context.asyncAssertSuccess());
+            sink.write(2, 4, Buffer.buffer("56"), context.asyncAssertFailure());
+            sink.end(context.asyncAssertFailure(cause -> {
+                context.assertEquals(failure, cause);
+                context.assertFalse(vertx.fileSystem().existsBlocking(temp));
+                context.assertFalse(vertx.fileSystem().existsBlocking(path));
+                async.complete();
+            }));
+        }));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(VertxUnitRunner.class)
+public class AsyncFileBlockSourceTest {
+
+    Vertx vertx;
+    Path file;
+    byte[] content;
+
+    @Before
+    public void before() throws Exception {
+        vertx = Vertx.vertx();
+        // a multiple of the block size, the last block is empty
+        content = new byte[512 * 10];
+        new Random(5).nextBytes(content);
+        file = Files.createTempFile("tftp-", ".bin");
+        Files.write(file, content);
+    }
+
+    @After
+    public void after(TestContext context) {
+        file.toFile().delete();
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testReadAheadIsBounded(TestContext context) {
+        Async async = context.async();
+        vertx.fileSystem().open(file.toString(), new OpenOptions().setRead(true), context.asyncAssertSuccess(opened -> {
+            AtomicInteger reads = new AtomicInteger();
+            AsyncFile file = (AsyncFile) Proxy.newProxyInstance(AsyncFile.class.getClassLoader(),
+                    new Class<?>[] { AsyncFile.class }, (proxy, method, args) -> {
+                if (method.getName().equals("read"))
+                    reads.incrementAndGet();
+                try {
+                    return method.invoke(opened, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+            AsyncFileBlockSource source = new AsyncFileBlockSource(file, content.length, 2);
+            source.read(1, 512, context.asyncAssertSuccess(first -> {
+                context.assertEquals(Buffer.buffer(content).slice(0, 512), first);
+                // the block and the two after it, nothing more until the upload moves on
+                context.assertEquals(3, reads.get());
+                source.read(2, 512, context.asyncAssertSuccess(second -> {
+                    context.assertEquals(Buffer.buffer(content).slice(512, 1024), second);
+                    context.assertEquals(4, reads.get());
+                    source.read(11, 512, context.asyncAssertSuccess(last -> {
+                        context.assertEquals(0, last.length());
+                        source.close(context.asyncAssertSuccess(v -> async.complete()));
+                    }));
+                }));
+            }));
+        }));
+    }
+
+    @Test
+    public void testUploadWithoutReadAhead(TestContext context) {
+        MemoryFileStore store = new MemoryFileStore();
+        TftpServer server = new TftpServer(vertx, store, new TftpServerOptions());
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClientOptions options = new TftpClientOptions().setBlockSize(512).setWindowSize(4).setReadAheadBlocks(0);
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(), options);
+            client.upload(file.toString(), "even.bin", null, context.asyncAssertSuccess(v ->
+                    context.assertEquals(Buffer.buffer(content), store.getFile("even.bin"))));
+        }));
+    }
+}
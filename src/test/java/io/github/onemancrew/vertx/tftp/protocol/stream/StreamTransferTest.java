@@ -0,0 +1,248 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.stream;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.io.IOException;
+import java.util.Random;
+
+@RunWith(VertxUnitRunner.class)
+public class StreamTransferTest {
+
+    Vertx vertx;
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testReadStreamIsPausedWhenReadAheadIsFull(TestContext context) {
+        TestReadStream stream = new TestReadStream();
+        ReadStreamBlockSource source = new ReadStreamBlockSource(stream, 1);
+        context.assertTrue(stream.paused);
+        source.read(1, 4, context.asyncAssertSuccess(block -> context.assertEquals("1234", block.toString())));
+        context.assertFalse(stream.paused);
+        stream.push("12");
+        stream.push("345678");
+        context.assertFalse(stream.paused);
+        // one block read ahead and the next one being filled
+        stream.push("9abc");
+        context.assertTrue(stream.paused);
+        source.read(2, 4, context.asyncAssertSuccess(block -> context.assertEquals("5678", block.toString())));
+        context.assertFalse(stream.paused);
+        stream.end();
+        source.read(3, 4, context.asyncAssertSuccess(block -> context.assertEquals("9abc", block.toString())));
+        source.read(4, 4, context.asyncAssertSuccess(block -> context.assertEquals(0, block.length())));
+    }
+
+    @Test
+    public void testStreamRoundTrip(TestContext context) {
+        byte[] content = new byte[512 * 30 + 7];
+        new Random(9).nextBytes(content);
+        MemoryFileStore store = new MemoryFileStore();
+        TftpServer server = new TftpServer(vertx, store, new TftpServerOptions());
+        Async async = context.async();
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(),
+                    new TftpClientOptions().setBlockSize(512).setWindowSize(4).setReadAheadBlocks(2));
+            TestReadStream source = new TestReadStream();
+            client.upload("stream.bin", source, null, context.asyncAssertSuccess(v -> {
+                context.assertEquals(Buffer.buffer(content), store.getFile("stream.bin"));
+                // a sink that is full after every block drains on a timer, the download waits for it
+                SlowWriteStream sink = new SlowWriteStream(vertx);
+                client.download("stream.bin", sink, context.asyncAssertSuccess(w -> {
+                    context.assertEquals(Buffer.buffer(content), sink.received);
+                    context.assertTrue(sink.ended);
+                    context.assertTrue(sink.drains > 0);
+                    async.complete();
+                }));
+            }));
+            // the producer pushes as fast as the source lets it
+            vertx.setPeriodic(1, id -> {
+                if (source.paused)
+                    return;
+                int offset = source.offset;
+                if (offset == content.length) {
+                    vertx.cancelTimer(id);
+                    source.end();
+                    return;
+                }
+                int length = Math.min(1000, content.length - offset);
+                source.offset += length;
+                source.push(Buffer.buffer(content).slice(offset, offset + length));
+            });
+        }));
+    }
+
+    @Test
+    public void testFailedWriteStreamFailsTheDownload(TestContext context) {
+        MemoryFileStore store = new MemoryFileStore().putFile("file.bin", Buffer.buffer(new byte[512 * 10]));
+        TftpServer server = new TftpServer(vertx, store, new TftpServerOptions());
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(), new TftpClientOptions().setBlockSize(512));
+            SlowWriteStream sink = new SlowWriteStream(vertx);
+            sink.failAfter = 3;
+            client.download("file.bin", sink, context.asyncAssertFailure(cause -> {
+                context.assertTrue(cause instanceof IOException);
+                context.assertFalse(sink.ended);
+            }));
+        }));
+    }
+
+    static class TestReadStream implements ReadStream<Buffer> {
+        Handler<Buffer> handler;
+        Handler<Void> endHandler;
+        boolean paused;
+        int offset;
+
+        void push(String data) {
+            push(Buffer.buffer(data));
+        }
+
+        void push(Buffer data) {
+            handler.handle(data);
+        }
+
+        void end() {
+            endHandler.handle(null);
+        }
+
+        @Override
+        public ReadStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public ReadStream<Buffer> handler(Handler<Buffer> handler) {
+            this.handler = handler;
+            return this;
+        }
+
+        @Override
+        public ReadStream<Buffer> pause() {
+            paused = true;
+            return this;
+        }
+
+        @Override
+        public ReadStream<Buffer> resume() {
+            paused = false;
+            return this;
+        }
+
+        @Override
+        public ReadStream<Buffer> fetch(long amount) {
+            return this;
+        }
+
+        @Override
+        public ReadStream<Buffer> endHandler(Handler<Void> endHandler) {
+            this.endHandler = endHandler;
+            return this;
+        }
+    }
+
+    static class SlowWriteStream implements WriteStream<Buffer> {
+        final Vertx vertx;
+        final Buffer received = Buffer.buffer();
+        Handler<Throwable> exceptionHandler;
+        Handler<Void> drainHandler;
+        boolean full;
+        boolean ended;
+        int drains;
+        int writes;
+        int failAfter = -1;
+
+        SlowWriteStream(Vertx vertx) {
+            this.vertx = vertx;
+        }
+
+        @Override
+        public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+            exceptionHandler = handler;
+            return this;
+        }
+
+        @Override
+        public WriteStream<Buffer> write(Buffer data) {
+            received.appendBuffer(data);
+            if (++writes == failAfter) {
+                exceptionHandler.handle(new IOException("stream closed"));
+                return this;
+            }
+            full = true;
+            vertx.setTimer(1, id -> {
+                full = false;
+                drains++;
+                if (drainHandler != null)
+                    drainHandler.handle(null);
+            });
+            return this;
+        }
+
+        @Override
+        public void end() {
+            ended = true;
+        }
+
+        @Override
+        public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+            return this;
+        }
+
+        @Override
+        public boolean writeQueueFull() {
+            return full;
+        }
+
+        @Override
+        public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+            drainHandler = handler;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.transport;
+
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.github.onemancrew.vertx.tftp.protocol.enums.Opcode;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramSocket;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(VertxUnitRunner.class)
+public class DedicatedTransportTest {
+
+    Vertx vertx;
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testPacketsFromAnotherTidAreRejected(TestContext context) {
+        Async async = context.async();
+        DatagramSocket tid = vertx.createDatagramSocket();
+        DatagramSocket other = vertx.createDatagramSocket();
+        tid.listen(0, "127.0.0.1", context.asyncAssertSuccess(s1 -> other.listen(0, "127.0.0.1", context.asyncAssertSuccess(s2 -> {
+            DedicatedTransport transport = new DedicatedTransport(vertx, new TftpClientOptions());
+            transport.open("127.0.0.1", context.asyncAssertSuccess(channel -> {
+                List<String> received = new ArrayList<>();
+                channel.handler(packet -> received.add(packet.data().toString()));
+                // the other port is told it is not part of the transfer, the channel only sees the first TID
+                other.handler(error -> {
+                    context.assertEquals(Opcode.ERROR.getValue(), error.data().getShort(0));
+                    context.assertEquals(ErrorCode.UNKNOWN_TRANSFER_ID.getError(), error.data().getShort(2));
+                    vertx.setTimer(50, id -> {
+                        context.assertEquals("[first]", received.toString());
+                        channel.close(context.asyncAssertSuccess(c -> async.complete()));
+                    });
+                });
+                tid.handler(request -> tid.send("first", request.sender().port(), "127.0.0.1", context.asyncAssertSuccess(v ->
+                        other.send("stray", request.sender().port(), "127.0.0.1", context.asyncAssertSuccess()))));
+                channel.send(Buffer.buffer("request"), tid.localAddress().port(), context.asyncAssertSuccess());
+            }));
+        }))));
+    }
+}
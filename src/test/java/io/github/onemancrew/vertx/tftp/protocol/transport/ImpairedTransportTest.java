@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.transport;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramPacket;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(VertxUnitRunner.class)
+public class ImpairedTransportTest {
+
+    Vertx vertx;
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testRoundTripOverBadLink(TestContext context) throws Exception {
+        byte[] content = new byte[512 * 200 + 17];
+        new Random(1).nextBytes(content);
+        Path source = Files.createTempFile("tftp-", ".bin");
+        Path target = Files.createTempFile("tftp-", ".bin");
+        Files.write(source, content);
+        MemoryFileStore store = new MemoryFileStore();
+        TftpServer server = new TftpServer(vertx, store, new TftpServerOptions().setRetransmitTimeout(100));
+        ImpairmentProfile profile = new ImpairmentProfile().setLossRate(0.05).setDuplicateRate(0.05)
+                .setReorderRate(0.05).setDelay(1).setJitter(2).setSeed(7);
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClientOptions options = new TftpClientOptions().setBlockSize(512).setWindowSize(4)
+                    .setInitialRetransmitTimeout(100).setMinRetransmitTimeout(50);
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(), options.setImpairment(profile));
+            client.upload(source.toString(), "impaired.bin", null, context.asyncAssertSuccess(v -> {
+                context.assertEquals(Buffer.buffer(content), store.getFile("impaired.bin"));
+                client.downloadFile("impaired.bin", target.toString(), context.asyncAssertSuccess(w -> {
+                    context.assertEquals(Buffer.buffer(content), vertx.fileSystem().readFileBlocking(target.toString()));
+                    source.toFile().delete();
+                    target.toFile().delete();
+                }));
+            }));
+        }));
+    }
+
+    @Test
+    public void testLinksDrawIndependently(TestContext context) {
+        ImpairmentProfile profile = new ImpairmentProfile().setLossRate(0.5).setSeed(3);
+        List<Integer> quiet = sendOverLink(profile, false);
+        // the packets received do not change which packets sent are lost
+        context.assertEquals(quiet, sendOverLink(profile, true));
+        context.assertTrue(quiet.size() > 20 && quiet.size() < 80);
+    }
+
+    /**
+     * Send 100 packets over the first channel of a new impaired transport.
+     * @return the packets that were not lost.
+     */
+    private List<Integer> sendOverLink(ImpairmentProfile profile, boolean receive) {
+        List<Integer> sent = new ArrayList<>();
+        List<Handler<DatagramPacket>> receivers = new ArrayList<>();
+        TransferChannel channel = new TransferChannel() {
+            @Override
+            public void send(Buffer packet, int port, Handler<AsyncResult<Void>> handler) {
+                sent.add(packet.getInt(0));
+            }
+
+            @Override
+            public void handler(Handler<DatagramPacket> handler) {
+                receivers.add(handler);
+            }
+
+            @Override
+            public void close(Handler<AsyncResult<Void>> handler) {
+                handler.handle(Future.succeededFuture());
+            }
+        };
+        Transport transport = new ImpairedTransport(vertx, new Transport() {
+            @Override
+            public void open(String serverHost, Handler<AsyncResult<TransferChannel>> handler) {
+                handler.handle(Future.succeededFuture(channel));
+            }
+
+            @Override
+            public void close(Handler<AsyncResult<Void>> handler) {
+                handler.handle(Future.succeededFuture());
+            }
+        }, profile);
+        transport.open("127.0.0.1", opened -> {
+            opened.result().handler(packet -> {
+            });
+            for (int i = 0; i < 100; i++) {
+                if (receive)
+                    receivers.get(0).handle(new DatagramPacket() {
+                        @Override
+                        public SocketAddress sender() {
+                            return SocketAddress.inetSocketAddress(69, "127.0.0.1");
+                        }
+
+                        @Override
+                        public Buffer data() {
+                            return Buffer.buffer(new byte[4]);
+                        }
+                    });
+                opened.result().send(Buffer.buffer().appendInt(i), 69, v -> {
+                });
+            }
+        });
+        return sent;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.protocol.transport;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TransferCancelledException;
+import io.github.onemancrew.vertx.tftp.server.MemoryFileStore;
+import io.github.onemancrew.vertx.tftp.server.TftpServer;
+import io.github.onemancrew.vertx.tftp.server.TftpServerOptions;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramSocket;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(VertxUnitRunner.class)
+public class SocketPoolTransportTest {
+
+    Vertx vertx;
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testPacketsAreDispatchedByServerTid(TestContext context) {
+        Async async = context.async();
+        // two server TIDs on the same host
+        DatagramSocket tid1 = vertx.createDatagramSocket();
+        DatagramSocket tid2 = vertx.createDatagramSocket();
+        tid1.listen(0, "127.0.0.1", context.asyncAssertSuccess(s1 -> tid2.listen(0, "127.0.0.1", context.asyncAssertSuccess(s2 -> {
+            Context transferContext = vertx.getOrCreateContext();
+            transferContext.runOnContext(v -> {
+                SocketPoolTransport transport = new SocketPoolTransport(vertx,
+                        new TftpClientOptions().setSocketPoolSize(1).setMaxRetransmitTimeout(100));
+                List<String> first = new ArrayList<>();
+                List<String> second = new ArrayList<>();
+                transport.open("127.0.0.1", context.asyncAssertSuccess(a -> {
+                    a.handler(packet -> first.add(packet.data().toString()));
+                    // one socket and the server has not answered a yet, b waits
+                    transport.open("127.0.0.1", context.asyncAssertSuccess(b -> {
+                        context.assertEquals("[a1]", first.toString());
+                        b.handler(packet -> second.add(packet.data().toString()));
+                        tid1.handler(request -> tid1.send("a2", request.sender().port(), "127.0.0.1", context.asyncAssertSuccess()));
+                        tid2.handler(request -> tid2.send("b1", request.sender().port(), "127.0.0.1", context.asyncAssertSuccess()));
+                        b.send(Buffer.buffer("request b"), tid2.localAddress().port(), context.asyncAssertSuccess());
+                        a.send(Buffer.buffer("ack a"), tid1.localAddress().port(), context.asyncAssertSuccess());
+                        vertx.setTimer(100, id -> {
+                            context.assertEquals("[a1, a2]", first.toString());
+                            context.assertEquals("[b1]", second.toString());
+                            testUnregisterDelay(context, transport, a, tid1, async);
+                        });
+                    }));
+                    context.assertTrue(first.isEmpty());
+                    tid1.handler(request -> tid1.send("a1", request.sender().port(), "127.0.0.1", context.asyncAssertSuccess()));
+                    a.send(Buffer.buffer("request a"), tid1.localAddress().port(), context.asyncAssertSuccess());
+                }));
+            });
+        }))));
+    }
+
+    /**
+     * A late packet from the TID of a closed transfer is not the first answer of the next transfer to the server,
+     * until the server stopped retransmitting.
+     */
+    private void testUnregisterDelay(TestContext context, SocketPoolTransport transport, TransferChannel closed,
+                                     DatagramSocket tid, Async async) {
+        closed.close(context.asyncAssertSuccess(v -> transport.open("127.0.0.1", context.asyncAssertSuccess(next -> {
+            List<String> received = new ArrayList<>();
+            next.handler(packet -> received.add(packet.data().toString()));
+            tid.handler(request -> {
+                tid.send("late", request.sender().port(), "127.0.0.1", context.asyncAssertSuccess());
+                vertx.setTimer(50, id -> {
+                    context.assertTrue(received.isEmpty());
+                    // the TID of the closed transfer was released after the max retransmission timeout
+                    vertx.setTimer(100, id2 -> tid.send("new", request.sender().port(), "127.0.0.1", context.asyncAssertSuccess(s -> vertx.setTimer(50, id3 -> {
+                        context.assertEquals("[new]", received.toString());
+                        transport.close(context.asyncAssertSuccess(c -> async.complete()));
+                    }))));
+                });
+            });
+            next.send(Buffer.buffer("request"), tid.localAddress().port(), context.asyncAssertSuccess());
+        }))));
+    }
+
+    @Test
+    public void testConcurrentTransfersShareTheSockets(TestContext context) {
+        MemoryFileStore store = new MemoryFileStore();
+        for (int i = 0; i < 8; i++)
+            store.putFile("file" + i, Buffer.buffer(new byte[512 * 20 + i]).setInt(0, i));
+        TftpServer server = new TftpServer(vertx, store, new TftpServerOptions());
+        Async done = context.async(8);
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            // 8 transfers of one context to one server over 2 sockets, 6 wait for a socket to be answered
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(),
+                    new TftpClientOptions().setBlockSize(512).setSocketPoolSize(2));
+            for (int i = 0; i < 8; i++) {
+                int file = i;
+                Buffer received = Buffer.buffer();
+                client.download("file" + i, new CollectStream(received), context.asyncAssertSuccess(r -> {
+                    context.assertEquals(store.getFile("file" + file), received);
+                    done.countDown();
+                }));
+            }
+        }));
+    }
+
+    @Test
+    public void testTransfersStartedOutsideVertxShareTheSockets(TestContext context) {
+        Vertx loops = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(2));
+        SocketPoolTransport transport = new SocketPoolTransport(loops, new TftpClientOptions().setSocketPoolSize(2));
+        Async closed = context.async();
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        // 16 transfers started from the test thread get 16 contexts over 2 event loops, the server never answers so
+        // each event loop binds 2 sockets and the other transfers wait for one
+        for (int i = 0; i < 16; i++) {
+            Context transferContext = loops.getOrCreateContext();
+            transferContext.runOnContext(v -> transport.open("127.0.0.1", result -> {
+                if (result.succeeded()) {
+                    if (opened.incrementAndGet() == 4) {
+                        context.assertEquals(4, transport.getSocketCount());
+                        transport.close(context.asyncAssertSuccess());
+                    }
+                } else {
+                    // the transfers still waiting fail with the transport
+                    context.assertTrue(result.cause() instanceof TransferCancelledException);
+                    if (failed.incrementAndGet() == 12)
+                        loops.close(context.asyncAssertSuccess(c -> closed.complete()));
+                }
+            }));
+        }
+    }
+
+    static class CollectStream implements WriteStream<Buffer> {
+        final Buffer received;
+
+        CollectStream(Buffer received) {
+            this.received = received;
+        }
+
+        @Override
+        public WriteStream<Buffer> exceptionHandler(io.vertx.core.Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public WriteStream<Buffer> write(Buffer data) {
+            received.appendBuffer(data);
+            return this;
+        }
+
+        @Override
+        public void end() {
+        }
+
+        @Override
+        public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+            return this;
+        }
+
+        @Override
+        public boolean writeQueueFull() {
+            return false;
+        }
+
+        @Override
+        public WriteStream<Buffer> drainHandler(io.vertx.core.Handler<Void> handler) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 OneManCrew
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.onemancrew.vertx.tftp.server;
+
+import io.github.onemancrew.vertx.tftp.TftpClient;
+import io.github.onemancrew.vertx.tftp.TftpClientOptions;
+import io.github.onemancrew.vertx.tftp.protocol.enums.ErrorCode;
+import io.github.onemancrew.vertx.tftp.protocol.exception.TftpError;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+@RunWith(VertxUnitRunner.class)
+public class TftpServerTest {
+
+    Vertx vertx;
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void after(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testUploadToMemory(TestContext context) throws Exception {
+        byte[] content = new byte[512 * 10];
+        new Random(1).nextBytes(content);
+        Path source = Files.createTempFile("tftp-", ".bin");
+        Files.write(source, content);
+        MemoryFileStore store = new MemoryFileStore();
+        TftpServer server = new TftpServer(vertx, store, new TftpServerOptions().setMaxWindowSize(4));
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            // the server caps the window the client asks for
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort(),
+                    new TftpClientOptions().setBlockSize(512).setWindowSize(16));
+            client.upload(source.toString(), "memory.bin", null, context.asyncAssertSuccess(v -> {
+                context.assertEquals(Buffer.buffer(content), store.getFile("memory.bin"));
+                source.toFile().delete();
+            }));
+        }));
+    }
+
+    @Test
+    public void testNameOutsideDirectory(TestContext context) throws Exception {
+        Path dir = Files.createTempDirectory("tftp-server");
+        TftpServer server = new TftpServer(vertx, new DirectoryFileStore(vertx, dir.toString()));
+        server.listen(0, "127.0.0.1", context.asyncAssertSuccess(s -> {
+            TftpClient client = new TftpClient(vertx, "127.0.0.1", s.actualPort());
+            client.transferSize("../etc/passwd", context.asyncAssertFailure(cause -> {
+                context.assertTrue(cause instanceof TftpError);
+                context.assertEquals(ErrorCode.ACCESS_VIOLATION, ((TftpError) cause).getErrorCode());
+                dir.toFile().delete();
+            }));
+        }));
+    }
+}